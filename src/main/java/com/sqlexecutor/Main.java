@@ -1,20 +1,217 @@
 package com.sqlexecutor;
 
+import com.sqlexecutor.model.DatabaseConfig;
+import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.PerformanceSummary;
+import com.sqlexecutor.model.RunList;
+import com.sqlexecutor.ui.ExecutionPanel;
+import com.sqlexecutor.ui.FileTreePanel;
 import com.sqlexecutor.ui.MainFrame;
+import com.sqlexecutor.ui.SQLEditorPanel;
+import com.sqlexecutor.util.AdaptiveController;
+import com.sqlexecutor.util.ConfigManager;
+import com.sqlexecutor.util.PerformanceHistory;
+import com.sqlexecutor.util.RateLimiter;
+import com.sqlexecutor.util.ResultFormatter;
+import com.sqlexecutor.util.RunListExecutor;
+import com.sqlexecutor.util.RunListStore;
 
 import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
+        long mainStart = System.currentTimeMillis();
+        boolean startupTiming = false;
+        boolean cdsTraining = false;
+        String runListName = null;
+        String rateLimit = null;
+        boolean changedOnly = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--run") && i + 1 < args.length) {
+                runListName = args[++i];
+            } else if (arg.equals("--rate-limit") && i + 1 < args.length) {
+                rateLimit = args[++i];
+            } else if (arg.equals("--changed-only")) {
+                changedOnly = true;
+            } else if (arg.equals("--report")) {
+                System.exit(printReport());
+            } else if (arg.equals("--startup-timing")) {
+                startupTiming = true;
+            } else if (arg.equals("--cds-training")) {
+                // Start, paint once and exit, so -XX:ArchiveClassesAtExit records the startup classes
+                cdsTraining = true;
+            }
+        }
+        if (runListName != null) {
+            // Headless: run a saved run list and exit with its outcome
+            System.exit(runHeadless(runListName, rateLimit, changedOnly));
+        }
+
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
             e.printStackTrace();
         }
-        
+
+        if (cdsTraining && GraphicsEnvironment.isHeadless()) {
+            trainHeadless();
+            return;
+        }
+
+        boolean reportTiming = startupTiming || cdsTraining;
+        boolean exitAfterPaint = cdsTraining;
         SwingUtilities.invokeLater(() -> {
             MainFrame mainFrame = new MainFrame();
+            if (reportTiming) {
+                mainFrame.setFirstPaintListener(() -> {
+                    reportFirstPaint(mainStart);
+                    if (exitAfterPaint) {
+                        // Touch the editor too; it is otherwise only loaded with the first file
+                        new SQLEditorPanel().getTextArea();
+                        System.exit(0);
+                    }
+                });
+            }
             mainFrame.setVisible(true);
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs a saved run list against the stored connection profile, printing
+     * each file's result as it completes.
+     *
+     * @param rateLimit overrides the profile's rate limit, as {@code statements:N},
+     *                  {@code rows:N}, {@code busy:PERCENT} or {@code off}; null keeps the profile's
+     * @param changedOnly run only statements changed since each file was last applied
+     * @return the process exit code: 0 if every file succeeded, 1 if one failed, 2 if the list could not be run
+     */
+    private static int runHeadless(String name, String rateLimit, boolean changedOnly) {
+        RunList runList;
+        try {
+            runList = RunListStore.load(name);
+        } catch (IOException e) {
+            System.err.println("Failed to load run list " + name + ": " + e.getMessage());
+            return 2;
+        }
+        if (runList == null) {
+            System.err.println("No run list named " + name);
+            return 2;
+        }
+
+        System.out.println("Running run list \"" + runList.getName() + "\" (" + runList.getEntries().size() + " files)");
+        DatabaseConfig config = ConfigManager.loadConfig();
+        if (rateLimit != null && !applyRateLimit(config, rateLimit)) {
+            System.err.println("Invalid --rate-limit " + rateLimit + ", expected statements:N, rows:N, busy:PERCENT or off");
+            return 2;
+        }
+        RateLimiter.Group rateLimits = new RateLimiter.Group(config.getRateLimitMode(), config.getRateLimit());
+        if (config.getRateLimitMode() != RateLimiter.Mode.OFF) {
+            System.out.println("Rate limit: " + RateLimiter.describe(config.getRateLimitMode(), config.getRateLimit())
+                    + " per target");
+        }
+        long runDeadline = config.getRunTimeout() > 0 ? System.currentTimeMillis() + config.getRunTimeout() * 1000L : 0;
+        AdaptiveController adaptiveController = config.isAdaptiveTuning()
+                ? new AdaptiveController(1, config.getMaxBatchSize(), 1, config.getMaxConnections()) : null;
+        RunListExecutor executor = new RunListExecutor(config, sqlExecutor -> {
+            sqlExecutor.setRunDeadline(runDeadline);
+            sqlExecutor.setAdaptiveController(adaptiveController);
+            sqlExecutor.setRateLimits(rateLimits);
+            sqlExecutor.setChangedOnly(changedOnly);
+        });
+        try {
+            List<ExecutionResult> results = executor.execute(runList,
+                    result -> System.out.println(ResultFormatter.format(result)));
+            for (ExecutionResult result : results) {
+                if (!result.isSuccess()) {
+                    return 1;
+                }
+            }
+            return results.size() == runList.getEntries().size() ? 0 : 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 2;
+        } catch (RuntimeException e) {
+            System.err.println("Run failed: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Prints the performance history of every file, and of the statements
+     * that regressed.
+     *
+     * @return the process exit code: 0 if nothing regressed, 1 otherwise
+     */
+    private static int printReport() {
+        List<PerformanceSummary> shown = new ArrayList<>();
+        boolean regressed = false;
+        for (PerformanceSummary summary : PerformanceHistory.report(true)) {
+            if (summary.isFile() || summary.isRegression()) {
+                shown.add(summary);
+            }
+            regressed |= summary.isRegression();
+        }
+        System.out.print(ResultFormatter.formatReport(shown));
+        return regressed ? 1 : 0;
+    }
+
+    private static boolean applyRateLimit(DatabaseConfig config, String rateLimit) {
+        if (rateLimit.equalsIgnoreCase("off")) {
+            config.setRateLimit(RateLimiter.Mode.OFF, 0);
+            return true;
+        }
+        int colon = rateLimit.indexOf(':');
+        if (colon < 0) {
+            return false;
+        }
+        double limit;
+        try {
+            limit = Double.parseDouble(rateLimit.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        switch (rateLimit.substring(0, colon).toLowerCase()) {
+            case "statements":
+                config.setRateLimit(RateLimiter.Mode.STATEMENTS_PER_SECOND, limit);
+                return limit > 0;
+            case "rows":
+                config.setRateLimit(RateLimiter.Mode.ROWS_PER_SECOND, limit);
+                return limit > 0;
+            case "busy":
+                config.setRateLimit(RateLimiter.Mode.BUSY_PERCENT, limit);
+                return limit > 0 && limit <= 100;
+            default:
+                return false;
+        }
+    }
+
+    private static void reportFirstPaint(long mainStart) {
+        long now = System.currentTimeMillis();
+        long jvmStart = ProcessHandle.current().info().startInstant().map(Instant::toEpochMilli).orElse(mainStart);
+        System.out.printf("Startup: first paint %d ms after JVM start (%d ms after main)%n",
+                now - jvmStart, now - mainStart);
+    }
+
+    /**
+     * Without a display no window can be shown, so build the main panels
+     * directly to load the same classes.
+     */
+    private static void trainHeadless() {
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                new FileTreePanel();
+                new ExecutionPanel();
+                new SQLEditorPanel().getTextArea();
+            });
+        } catch (Exception e) {
+            System.err.println("CDS training run failed: " + e.getMessage());
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,449 @@
+package com.sqlexecutor.bench;
+
+import com.sqlexecutor.model.StatementKind;
+import com.sqlexecutor.util.SQLStatementSplitter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * In-process JDBC stand-in for load-testing the executor without a server.
+ * Select it in the connection settings with driver
+ * {@code com.sqlexecutor.bench.FakeDriver} and a URL such as
+ *
+ * <pre>jdbc:sqlexecutor-fake:?latencyMs=5&amp;jitterMs=2&amp;failureRate=0.01&amp;rows=1000&amp;columns=8</pre>
+ *
+ * Settings, all optional:
+ * <ul>
+ *   <li>{@code latencyMs}, {@code jitterMs}: simulated round-trip time per statement</li>
+ *   <li>{@code connectMs}: simulated time to open a connection</li>
+ *   <li>{@code statementUs}: simulated server work per statement, on top of the round trip;
+ *       a batch costs one round trip plus the work of each statement in it</li>
+ *   <li>{@code capacity}: requests the simulated server works on at once; beyond that
+ *       the work of every request slows in proportion, as on a saturated server</li>
+ *   <li>{@code failureRate}: probability (0-1) that a statement fails</li>
+ *   <li>{@code failureState}: SQLSTATE of injected failures, default 40001</li>
+ *   <li>{@code rows}, {@code columns}: shape of the synthetic result of every query</li>
+ *   <li>{@code seed}: random seed for reproducible runs</li>
+ * </ul>
+ * Queries (SELECT, WITH, VALUES, SHOW, EXPLAIN) return synthetic rows; every
+ * other statement reports one affected row.
+ */
+public class FakeDriver implements Driver {
+    public static final String URL_PREFIX = "jdbc:sqlexecutor-fake:";
+
+    // Requests being worked on by all fake connections, for the capacity model
+    private static final AtomicInteger active = new AtomicInteger();
+
+    static {
+        try {
+            DriverManager.registerDriver(new FakeDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Settings settings = Settings.parse(url, info);
+        settings.sleep(settings.connectMs, 0, null);
+        return proxy(Connection.class, new FakeConnection(settings));
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Value returned for methods the fake does not model.
+     */
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == float.class) {
+            // A proxy must return exactly the boxed primitive type, so each gets its own branch
+            return 0.0f;
+        } else if (type == char.class) {
+            return '\0';
+        }
+        return null;
+    }
+
+    private static boolean isQuery(String sql) {
+        String keyword = SQLStatementSplitter.firstKeyword(sql);
+        return keyword.equals("EXPLAIN") || SQLStatementSplitter.classify(sql) == StatementKind.QUERY;
+    }
+
+    private static boolean isTransactionControl(String sql) {
+        return sql != null && (SQLStatementSplitter.classify(sql) == StatementKind.TRANSACTION
+                || SQLStatementSplitter.firstKeyword(sql).equals("DEALLOCATE"));
+    }
+
+    private static class Settings {
+        long latencyMs;
+        long jitterMs;
+        long connectMs;
+        long statementUs;
+        int capacity;
+        double failureRate;
+        String failureState = "40001";
+        int rows = 10;
+        int columns = 3;
+        Random random = new Random();
+
+        static Settings parse(String url, Properties info) {
+            Properties values = new Properties();
+            int query = url.indexOf('?');
+            if (query >= 0) {
+                for (String pair : url.substring(query + 1).split("&")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0) {
+                        values.setProperty(pair.substring(0, eq), pair.substring(eq + 1));
+                    }
+                }
+            }
+            if (info != null) {
+                for (String name : info.stringPropertyNames()) {
+                    values.setProperty(name, info.getProperty(name));
+                }
+            }
+
+            Settings settings = new Settings();
+            settings.latencyMs = Long.parseLong(values.getProperty("latencyMs", "0"));
+            settings.jitterMs = Long.parseLong(values.getProperty("jitterMs", "0"));
+            settings.connectMs = Long.parseLong(values.getProperty("connectMs", "0"));
+            settings.statementUs = Long.parseLong(values.getProperty("statementUs", "0"));
+            settings.capacity = Integer.parseInt(values.getProperty("capacity", "0"));
+            settings.failureRate = Double.parseDouble(values.getProperty("failureRate", "0"));
+            settings.failureState = values.getProperty("failureState", settings.failureState);
+            settings.rows = Integer.parseInt(values.getProperty("rows", String.valueOf(settings.rows)));
+            settings.columns = Math.max(1, Integer.parseInt(values.getProperty("columns", String.valueOf(settings.columns))));
+            if (values.getProperty("seed") != null) {
+                settings.random = new Random(Long.parseLong(values.getProperty("seed")));
+            }
+            return settings;
+        }
+
+        /**
+         * Waits out the simulated latency, failing with 57014 if cancelled.
+         */
+        void sleep(long base, long jitter, FakeStatement statement) throws SQLException {
+            long millis = base + (jitter > 0 ? nextLong(jitter + 1) : 0);
+            long deadline = System.currentTimeMillis() + millis;
+            while (true) {
+                if (statement != null && statement.cancelled) {
+                    statement.cancelled = false;
+                    throw new SQLException("canceling statement due to user request", "57014");
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                try {
+                    Thread.sleep(Math.min(remaining, 10));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted", "57014", e);
+                }
+            }
+        }
+
+        /**
+         * Waits out a request of {@code statements} statements: one round trip
+         * plus their work, slowed down while more than {@code capacity}
+         * requests are in progress.
+         */
+        void serve(int statements, FakeStatement statement) throws SQLException {
+            int load = active.incrementAndGet();
+            try {
+                double work = (double) statements * statementUs;
+                if (capacity > 0 && load > capacity) {
+                    work = work * load / capacity;
+                }
+                sleep(latencyMs + Math.round(work / 1000), jitterMs, statement);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        synchronized long nextLong(long bound) {
+            return (long) (random.nextDouble() * bound);
+        }
+
+        synchronized boolean shouldFail() {
+            return failureRate > 0 && random.nextDouble() < failureRate;
+        }
+    }
+
+    private static class FakeConnection implements InvocationHandler {
+        private final Settings settings;
+        private boolean autoCommit = true;
+        private boolean closed;
+
+        FakeConnection(Settings settings) {
+            this.settings = settings;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    checkOpen();
+                    String preparedSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    Class<?> type = method.getReturnType();
+                    return Proxy.newProxyInstance(FakeDriver.class.getClassLoader(), new Class<?>[]{type},
+                            new FakeStatement(settings, (Connection) proxy, preparedSql));
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "commit":
+                case "rollback":
+                    checkOpen();
+                    settings.sleep(settings.latencyMs, settings.jitterMs, null);
+                    return null;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return !closed;
+                case "isWrapperFor":
+                    return false;
+                case "unwrap":
+                    throw new SQLException("Not a wrapper for " + args[0]);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "FakeConnection";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("Connection is closed", "08003");
+            }
+        }
+    }
+
+    private static class FakeStatement implements InvocationHandler {
+        private final Settings settings;
+        private final Connection connection;
+        private final String preparedSql;
+        private final List<String> batch = new ArrayList<>();
+        private volatile boolean cancelled;
+        private ResultSet resultSet;
+        private int updateCount = -1;
+
+        FakeStatement(Settings settings, Connection connection, String preparedSql) {
+            this.settings = settings;
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            switch (method.getName()) {
+                case "execute":
+                    return run(sql);
+                case "executeQuery":
+                    run(sql);
+                    return resultSet != null ? resultSet : resultSet(0, sql);
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    run(sql);
+                    return method.getReturnType() == long.class ? (long) Math.max(updateCount, 0) : Math.max(updateCount, 0);
+                case "addBatch":
+                    batch.add(sql);
+                    return null;
+                case "clearBatch":
+                    batch.clear();
+                    return null;
+                case "executeBatch":
+                    // One round trip for the whole batch
+                    settings.serve(batch.size(), this);
+                    int[] counts = new int[batch.size()];
+                    for (int i = 0; i < counts.length; i++) {
+                        if (settings.shouldFail()) {
+                            batch.clear();
+                            throw new BatchUpdateException("Injected failure", settings.failureState, 0, counts);
+                        }
+                        counts[i] = 1;
+                    }
+                    batch.clear();
+                    return counts;
+                case "getResultSet":
+                    ResultSet rs = resultSet;
+                    resultSet = null;
+                    return rs;
+                case "getUpdateCount":
+                    int count = updateCount;
+                    updateCount = -1;
+                    return count;
+                case "getMoreResults":
+                    resultSet = null;
+                    updateCount = -1;
+                    return false;
+                case "cancel":
+                    cancelled = true;
+                    return null;
+                case "getConnection":
+                    return connection;
+                case "isClosed":
+                    return false;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "FakeStatement";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private boolean run(String sql) throws SQLException {
+            settings.serve(1, this);
+            // Transaction control is left alone so callers can always recover
+            if (!isTransactionControl(sql) && settings.shouldFail()) {
+                throw new SQLException("Injected failure", settings.failureState);
+            }
+            if (sql != null && isQuery(sql)) {
+                resultSet = resultSet(settings.rows, sql);
+                updateCount = -1;
+                return true;
+            }
+            resultSet = null;
+            updateCount = 1;
+            return false;
+        }
+
+        private ResultSet resultSet(int rows, String sql) {
+            boolean explain = sql != null && SQLStatementSplitter.firstKeyword(sql).equals("EXPLAIN");
+            return proxy(ResultSet.class, explain ? new FakeResultSet(1, 1, true) : new FakeResultSet(rows, settings.columns, false));
+        }
+    }
+
+    private static class FakeResultSet implements InvocationHandler {
+        private static final String PLAN = "[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Relation Name\": \"fake\", "
+                + "\"Plan Rows\": 10, \"Actual Rows\": 10, \"Actual Total Time\": 0.1, \"Actual Loops\": 1, "
+                + "\"Shared Hit Blocks\": 1, \"Shared Read Blocks\": 0}, \"Planning Time\": 0.01, \"Execution Time\": 0.1}]";
+
+        private final int rows;
+        private final int columns;
+        private final boolean plan;
+        private int row;
+
+        FakeResultSet(int rows, int columns, boolean plan) {
+            this.rows = rows;
+            this.columns = columns;
+            this.plan = plan;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    return ++row <= rows;
+                case "getString":
+                case "getObject":
+                    return plan ? PLAN : "r" + row + "c" + column(args[0]);
+                case "getInt":
+                    return row * columns + column(args[0]);
+                case "getLong":
+                    return (long) row * columns + column(args[0]);
+                case "getDouble":
+                    return (double) row;
+                case "getBoolean":
+                    return (row & 1) == 0;
+                case "wasNull":
+                    return false;
+                case "getMetaData":
+                    return proxy(ResultSetMetaData.class, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "getColumnCount":
+                                return columns;
+                            case "getColumnLabel":
+                            case "getColumnName":
+                                return plan ? "QUERY PLAN" : "c" + a[0];
+                            case "getColumnType":
+                                return (Integer) a[0] == 1 && !plan ? Types.BIGINT : Types.VARCHAR;
+                            default:
+                                return defaultValue(m.getReturnType());
+                        }
+                    });
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private int column(Object index) {
+            return index instanceof Integer ? (Integer) index : 1;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.sqlexecutor.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes a reproducible tree of synthetic SQL scripts for benchmarking.
+ *
+ * <pre>
+ * java -cp sql-executor.jar com.sqlexecutor.bench.WorkloadGenerator \
+ *     --out /tmp/workload --files 200 --statements 500 --shape mixed --dirs 4 --seed 42
+ * </pre>
+ *
+ * Shapes: {@code mixed} (DDL, multi-row inserts, updates, queries and
+ * functions), {@code inserts}, {@code ddl} and {@code functions}. The same
+ * arguments always produce the same files.
+ */
+public class WorkloadGenerator {
+    public enum Shape { MIXED, INSERTS, DDL, FUNCTIONS }
+
+    private final Random random;
+    private final Shape shape;
+    private final int statementsPerFile;
+
+    public WorkloadGenerator(Shape shape, int statementsPerFile, long seed) {
+        this.shape = shape;
+        this.statementsPerFile = statementsPerFile;
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        File out = new File("workload");
+        int files = 100;
+        int statements = 200;
+        int dirs = 1;
+        long seed = 1;
+        Shape shape = Shape.MIXED;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--out":
+                    out = new File(value);
+                    break;
+                case "--files":
+                    files = Integer.parseInt(value);
+                    break;
+                case "--statements":
+                    statements = Integer.parseInt(value);
+                    break;
+                case "--dirs":
+                    dirs = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--shape":
+                    shape = Shape.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.err.println("Usage: WorkloadGenerator --out DIR [--files N] [--statements N] "
+                            + "[--shape mixed|inserts|ddl|functions] [--dirs N] [--seed N]");
+                    System.exit(2);
+            }
+            i++;
+        }
+
+        WorkloadGenerator generator = new WorkloadGenerator(shape, statements, seed);
+        long bytes = generator.generate(out, files, dirs);
+        System.out.printf("Wrote %d files (%d bytes) to %s%n", files, bytes, out.getAbsolutePath());
+    }
+
+    /**
+     * Writes {@code files} scripts spread round-robin over {@code dirs} subdirectories.
+     *
+     * @return total bytes written
+     */
+    public long generate(File out, int files, int dirs) throws IOException {
+        long bytes = 0;
+        for (int f = 0; f < files; f++) {
+            File dir = dirs > 1 ? new File(out, String.format("dir%03d", f % dirs)) : out;
+            Files.createDirectories(dir.toPath());
+            File file = new File(dir, String.format("%05d_%s.sql", f, shape.name().toLowerCase(Locale.ROOT)));
+            try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                writeScript(writer, f);
+            }
+            bytes += file.length();
+        }
+        return bytes;
+    }
+
+    private void writeScript(BufferedWriter w, int fileIndex) throws IOException {
+        String table = "bench_t" + fileIndex;
+        w.write("-- Generated workload file " + fileIndex + " (" + shape.name().toLowerCase(Locale.ROOT) + ")\n");
+        w.write("CREATE TABLE IF NOT EXISTS " + table
+                + " (id integer PRIMARY KEY, name text, amount numeric(12,2), note text);\n\n");
+
+        int nextId = 1;
+        for (int s = 0; s < statementsPerFile; s++) {
+            Shape kind = shape == Shape.MIXED ? pickMixed() : shape;
+            switch (kind) {
+                case INSERTS:
+                    nextId = writeInsert(w, table, nextId);
+                    break;
+                case DDL:
+                    writeDdl(w, table, s);
+                    break;
+                case FUNCTIONS:
+                    writeFunction(w, fileIndex, s);
+                    break;
+                default:
+                    writeQueryOrUpdate(w, table, nextId);
+                    break;
+            }
+        }
+    }
+
+    private Shape pickMixed() {
+        int roll = random.nextInt(100);
+        if (roll < 50) {
+            return Shape.INSERTS;
+        } else if (roll < 85) {
+            return Shape.MIXED; // query or update
+        } else if (roll < 95) {
+            return Shape.DDL;
+        }
+        return Shape.FUNCTIONS;
+    }
+
+    private int writeInsert(BufferedWriter w, String table, int nextId) throws IOException {
+        int rows = 1 + random.nextInt(20);
+        w.write("INSERT INTO " + table + " (id, name, amount, note) VALUES\n");
+        for (int r = 0; r < rows; r++) {
+            int id = nextId++;
+            w.write(String.format(Locale.ROOT, "    (%d, 'name %d', %d.%02d, '%s')%s%n", id, id,
+                    random.nextInt(10000), random.nextInt(100), note(), r + 1 < rows ? "," : ""));
+        }
+        w.write("ON CONFLICT (id) DO NOTHING;\n");
+        return nextId;
+    }
+
+    private void writeQueryOrUpdate(BufferedWriter w, String table, int maxId) throws IOException {
+        int id = 1 + random.nextInt(Math.max(maxId, 1));
+        if (random.nextBoolean()) {
+            w.write("/* lookup */ SELECT id, name, amount FROM " + table + " WHERE id BETWEEN "
+                    + id + " AND " + (id + 50) + " ORDER BY amount DESC;\n");
+        } else {
+            w.write("UPDATE " + table + " SET amount = amount * 1.01, note = '" + note()
+                    + "' WHERE id = " + id + ";\n");
+        }
+    }
+
+    private void writeDdl(BufferedWriter w, String table, int index) throws IOException {
+        switch (random.nextInt(3)) {
+            case 0:
+                w.write("CREATE INDEX IF NOT EXISTS " + table + "_i" + index + " ON " + table + " (amount);\n");
+                break;
+            case 1:
+                w.write("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS c" + index + " text;\n");
+                break;
+            default:
+                w.write("COMMENT ON TABLE " + table + " IS 'generated; revision " + index + "';\n");
+                break;
+        }
+    }
+
+    private void writeFunction(BufferedWriter w, int fileIndex, int index) throws IOException {
+        // Dollar-quoted bodies with embedded semicolons exercise the splitter
+        w.write("CREATE OR REPLACE FUNCTION bench_f" + fileIndex + "_" + index + "(x integer)\n");
+        w.write("RETURNS integer AS $body$\n");
+        w.write("DECLARE\n    y integer := x;\nBEGIN\n");
+        int loops = 1 + random.nextInt(4);
+        for (int i = 0; i < loops; i++) {
+            w.write("    y := y * " + (2 + random.nextInt(7)) + " + " + random.nextInt(100) + "; -- step " + i + "\n");
+        }
+        w.write("    RETURN y;\nEND;\n$body$ LANGUAGE plpgsql;\n");
+    }
+
+    private String note() {
+        // Occasional quotes and semicolons inside literals
+        switch (random.nextInt(4)) {
+            case 0:
+                return "it''s; fine";
+            case 1:
+                return "plain";
+            case 2:
+                return "ünïcødé " + random.nextInt(1000);
+            default:
+                return "n" + random.nextInt(100000);
+        }
+    }
+}
@@ -1,13 +1,33 @@
 package com.sqlexecutor.model;
 
+import com.sqlexecutor.util.RateLimiter;
+
 import java.util.Properties;
 
 public class DatabaseConfig {
+    public static final String DEFAULT_DRIVER = "org.postgresql.Driver";
+
     private String host;
     private int port;
     private String username;
     private String password;
     private String databaseName;
+    private String driverClassName = DEFAULT_DRIVER;
+    // Explicit JDBC URL; when empty the URL is built from host, port and database
+    private String jdbcUrl = "";
+    // Timeouts in seconds, 0 meaning no limit
+    private int statementTimeout;
+    private int lockTimeout;
+    private int runTimeout;
+    // Limit on opening a connection (TCP connect and login), 0 for the driver's default
+    private int connectTimeout = 10;
+    private int maxConnections = 8;
+    // Let AdaptiveController tune batch size and concurrency within these bounds
+    private boolean adaptiveTuning;
+    private int maxBatchSize = 500;
+    // Load cap applied to each target; see RateLimiter
+    private RateLimiter.Mode rateLimitMode = RateLimiter.Mode.OFF;
+    private double rateLimit;
 
     public DatabaseConfig() {
         // Default values
@@ -26,6 +46,21 @@ public class DatabaseConfig {
         this.databaseName = databaseName;
     }
 
+    public DatabaseConfig(DatabaseConfig other) {
+        this(other.host, other.port, other.username, other.password, other.databaseName);
+        this.statementTimeout = other.statementTimeout;
+        this.lockTimeout = other.lockTimeout;
+        this.runTimeout = other.runTimeout;
+        this.connectTimeout = other.connectTimeout;
+        this.maxConnections = other.maxConnections;
+        this.adaptiveTuning = other.adaptiveTuning;
+        this.maxBatchSize = other.maxBatchSize;
+        this.rateLimitMode = other.rateLimitMode;
+        this.rateLimit = other.rateLimit;
+        this.driverClassName = other.driverClassName;
+        this.jdbcUrl = other.jdbcUrl;
+    }
+
     public String getHost() {
         return host;
     }
@@ -66,7 +101,123 @@ public class DatabaseConfig {
         this.databaseName = databaseName;
     }
 
+    /**
+     * @return the per-statement timeout in seconds, 0 for none
+     */
+    public int getStatementTimeout() {
+        return statementTimeout;
+    }
+
+    public void setStatementTimeout(int statementTimeout) {
+        this.statementTimeout = statementTimeout;
+    }
+
+    /**
+     * @return how long a statement may wait for a lock in seconds, 0 for no limit
+     */
+    public int getLockTimeout() {
+        return lockTimeout;
+    }
+
+    public void setLockTimeout(int lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * @return the time limit for a whole batch run in seconds, 0 for none
+     */
+    public int getRunTimeout() {
+        return runTimeout;
+    }
+
+    public void setRunTimeout(int runTimeout) {
+        this.runTimeout = runTimeout;
+    }
+
+    /**
+     * @return the time limit for opening a connection in seconds, 0 for the driver's default
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return the most connections opened to this database at once
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return whether batch size and concurrency are tuned from measured latency
+     */
+    public boolean isAdaptiveTuning() {
+        return adaptiveTuning;
+    }
+
+    public void setAdaptiveTuning(boolean adaptiveTuning) {
+        this.adaptiveTuning = adaptiveTuning;
+    }
+
+    /**
+     * @return the most statements adaptive tuning may send in one batch, 1 for no batching
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+    }
+
+    public RateLimiter.Mode getRateLimitMode() {
+        return rateLimitMode;
+    }
+
+    /**
+     * @return the limit in the unit of the mode: statements/s, rows/s or percent busy
+     */
+    public double getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimiter.Mode mode, double limit) {
+        this.rateLimitMode = mode == null ? RateLimiter.Mode.OFF : mode;
+        this.rateLimit = Math.max(limit, 0);
+    }
+
+    public String getDriverClassName() {
+        return driverClassName;
+    }
+
+    public void setDriverClassName(String driverClassName) {
+        this.driverClassName = driverClassName == null || driverClassName.trim().isEmpty()
+                ? DEFAULT_DRIVER : driverClassName.trim();
+    }
+
+    /**
+     * @return the explicit JDBC URL, or an empty string when it is derived
+     */
+    public String getJdbcUrlOverride() {
+        return jdbcUrl;
+    }
+
+    public void setJdbcUrlOverride(String jdbcUrl) {
+        this.jdbcUrl = jdbcUrl == null ? "" : jdbcUrl.trim();
+    }
+
     public String getJdbcUrl() {
+        if (!jdbcUrl.isEmpty()) {
+            return jdbcUrl;
+        }
         return "jdbc:postgresql://" + host + ":" + port + "/" + databaseName;
     }
 
@@ -74,6 +225,11 @@ public class DatabaseConfig {
         Properties props = new Properties();
         props.setProperty("user", username);
         props.setProperty("password", password);
+        if (connectTimeout > 0 && getJdbcUrl().startsWith("jdbc:postgresql:")) {
+            // connectTimeout covers the TCP connect, loginTimeout the whole connection setup
+            props.setProperty("connectTimeout", String.valueOf(connectTimeout));
+            props.setProperty("loginTimeout", String.valueOf(connectTimeout));
+        }
         return props;
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.sqlexecutor.model;
+
+/**
+ * Snapshot of how far the executor has got through a single file.
+ */
+public class ExecutionProgress {
+    private final String filePath;
+    private final int statementIndex;
+    private final int statementCount;
+    private final long bytesConsumed;
+    private final long totalBytes;
+    private final long rowsProcessed;
+    private final long elapsedMillis;
+
+    public ExecutionProgress(String filePath, int statementIndex, int statementCount,
+                             long bytesConsumed, long totalBytes,
+                             long rowsProcessed, long elapsedMillis) {
+        this.filePath = filePath;
+        this.statementIndex = statementIndex;
+        this.statementCount = statementCount;
+        this.bytesConsumed = bytesConsumed;
+        this.totalBytes = totalBytes;
+        this.rowsProcessed = rowsProcessed;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * @return number of statements completed so far
+     */
+    public int getStatementIndex() {
+        return statementIndex;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getBytesConsumed() {
+        return bytesConsumed;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isComplete() {
+        return statementIndex >= statementCount;
+    }
+
+    /**
+     * @return fraction of the file consumed, between 0 and 1
+     */
+    public double getFraction() {
+        if (totalBytes > 0) {
+            return Math.min(1.0, (double) bytesConsumed / totalBytes);
+        }
+        return statementCount > 0 ? (double) statementIndex / statementCount : 1.0;
+    }
+}
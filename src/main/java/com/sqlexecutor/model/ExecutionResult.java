@@ -1,11 +1,34 @@
 package com.sqlexecutor.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of running one file. Per-statement detail is kept in a
+ * {@link StatementResults}; use {@code ResultFormatter} to render it.
+ */
 public class ExecutionResult {
+    // Warnings and notices kept per file; further ones are only counted
+    private static final int MAX_MESSAGES = 1000;
+
     private String fileName;
-    private boolean success;
+    private String target;
+    private ExecutionStatus status = ExecutionStatus.FAILED;
     private String message;
     private long executionTime;
-    private int rowsAffected;
+    private long throttledTime;
+    private long rowsAffected;
+    private String sqlState;
+    private int errorStatementIndex = -1;
+    private int errorLine;
+    private int errorColumn;
+    private StatementResults statementResults;
+    private final List<String> warnings = new ArrayList<>();
+    private final List<String> notices = new ArrayList<>();
+    private int droppedMessages;
+    private final List<QueryPlan> queryPlans = new ArrayList<>();
+    private final List<String> retries = new ArrayList<>();
+    private final List<ValidationIssue> validationIssues = new ArrayList<>();
 
     public ExecutionResult(String fileName) {
         this.fileName = fileName;
@@ -15,12 +38,31 @@ public class ExecutionResult {
         return fileName;
     }
 
+    /**
+     * @return the database the file ran against, when a batch has several targets
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
     public boolean isSuccess() {
-        return success;
+        return status == ExecutionStatus.SUCCESS;
     }
 
     public void setSuccess(boolean success) {
-        this.success = success;
+        this.status = success ? ExecutionStatus.SUCCESS : ExecutionStatus.FAILED;
+    }
+
+    public ExecutionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ExecutionStatus status) {
+        this.status = status;
     }
 
     public String getMessage() {
@@ -39,27 +81,143 @@ public class ExecutionResult {
         this.executionTime = executionTime;
     }
 
-    public int getRowsAffected() {
+    /**
+     * @return milliseconds of the execution time spent held back by the rate limit
+     */
+    public long getThrottledTime() {
+        return throttledTime;
+    }
+
+    public void setThrottledTime(long throttledTime) {
+        this.throttledTime = throttledTime;
+    }
+
+    public long getRowsAffected() {
         return rowsAffected;
     }
 
-    public void setRowsAffected(int rowsAffected) {
+    public void setRowsAffected(long rowsAffected) {
         this.rowsAffected = rowsAffected;
     }
 
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("File: ").append(fileName).append("\n");
-        sb.append("Status: ").append(success ? "Success" : "Failed").append("\n");
-        sb.append("Time: ").append(executionTime).append(" ms\n");
-        
-        if (success) {
-            sb.append("Rows affected: ").append(rowsAffected).append("\n");
+    /**
+     * @return SQLSTATE of the failure, or null
+     */
+    public String getSqlState() {
+        return sqlState;
+    }
+
+    public void setSqlState(String sqlState) {
+        this.sqlState = sqlState;
+    }
+
+    /**
+     * @return index of the statement that failed, or -1
+     */
+    public int getErrorStatementIndex() {
+        return errorStatementIndex;
+    }
+
+    /**
+     * @return line of the failure in the file, or 0
+     */
+    public int getErrorLine() {
+        return errorLine;
+    }
+
+    /**
+     * @return column of the failure when the server reported a position, or 0
+     */
+    public int getErrorColumn() {
+        return errorColumn;
+    }
+
+    public void setErrorLocation(int statementIndex, int line, int column) {
+        this.errorStatementIndex = statementIndex;
+        this.errorLine = line;
+        this.errorColumn = column;
+    }
+
+    /**
+     * @return per-statement outcomes, or null if the file did not start
+     */
+    public StatementResults getStatementResults() {
+        return statementResults;
+    }
+
+    public void setStatementResults(StatementResults statementResults) {
+        this.statementResults = statementResults;
+    }
+
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    public void addWarning(String warning) {
+        if (warnings.size() < MAX_MESSAGES) {
+            warnings.add(warning);
         } else {
-            sb.append("Error: ").append(message).append("\n");
+            droppedMessages++;
         }
-        
-        return sb.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * @return server notices such as RAISE NOTICE output, in arrival order
+     */
+    public List<String> getNotices() {
+        return notices;
+    }
+
+    public void addNotice(String notice) {
+        if (notices.size() < MAX_MESSAGES) {
+            notices.add(notice);
+        } else {
+            droppedMessages++;
+        }
+    }
+
+    /**
+     * @return warnings and notices not kept because the limit was reached
+     */
+    public int getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    /**
+     * @return plans captured in profiling mode, empty otherwise
+     */
+    public List<QueryPlan> getQueryPlans() {
+        return queryPlans;
+    }
+
+    public void addQueryPlan(QueryPlan queryPlan) {
+        queryPlans.add(queryPlan);
+    }
+
+    /**
+     * @return one description per retry made after a transient failure
+     */
+    public List<String> getRetries() {
+        return retries;
+    }
+
+    public void addRetry(String description) {
+        retries.add(description);
+    }
+
+    /**
+     * @return problems found in validation mode, empty otherwise
+     */
+    public List<ValidationIssue> getValidationIssues() {
+        return validationIssues;
+    }
+
+    public void addValidationIssue(ValidationIssue issue) {
+        validationIssues.add(issue);
+    }
+
+    @Override
+    public String toString() {
+        return fileName + ": " + status;
+    }
+}
@@ -0,0 +1,24 @@
+package com.sqlexecutor.model;
+
+/**
+ * Outcome of executing a file.
+ */
+public enum ExecutionStatus {
+    SUCCESS("Success"),
+    FAILED("Failed"),
+    /** A statement, lock wait or the whole run exceeded its time limit */
+    TIMED_OUT("Timed out"),
+    /** The run was stopped by the user, or a statement was cancelled from outside this tool */
+    CANCELLED("Cancelled");
+
+    private final String label;
+
+    ExecutionStatus(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
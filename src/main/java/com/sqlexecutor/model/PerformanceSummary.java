@@ -0,0 +1,116 @@
+package com.sqlexecutor.model;
+
+/**
+ * Historical timings of one file, or of one statement in it, against one
+ * target. Durations are in microseconds, -1 where the period has no runs.
+ */
+public class PerformanceSummary {
+    private final String target;
+    private final String filePath;
+    private final int lineNumber;
+    private final String statement;
+    private final long runs;
+    private final long allTimeP50;
+    private final long p50;
+    private final long p95;
+    private final long baselineP50;
+    private final long recentP50;
+    private final long[] weeklyP50;
+    private final boolean regression;
+
+    /**
+     * @param lineNumber line of the statement, 0 for the whole file
+     * @param statement  start of the statement text, null for the whole file
+     * @param weeklyP50  median of each of the last weeks, oldest first
+     */
+    public PerformanceSummary(String target, String filePath, int lineNumber, String statement, long runs,
+                              long allTimeP50, long p50, long p95, long baselineP50, long recentP50,
+                              long[] weeklyP50, boolean regression) {
+        this.target = target;
+        this.filePath = filePath;
+        this.lineNumber = lineNumber;
+        this.statement = statement;
+        this.runs = runs;
+        this.allTimeP50 = allTimeP50;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.baselineP50 = baselineP50;
+        this.recentP50 = recentP50;
+        this.weeklyP50 = weeklyP50;
+        this.regression = regression;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public boolean isFile() {
+        return statement == null;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return runs recorded over the whole history
+     */
+    public long getRuns() {
+        return runs;
+    }
+
+    public long getAllTimeP50() {
+        return allTimeP50;
+    }
+
+    /**
+     * @return median over the last 30 days
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * @return 95th percentile over the last 30 days
+     */
+    public long getP95() {
+        return p95;
+    }
+
+    /**
+     * @return median over the 30 days before the recent week
+     */
+    public long getBaselineP50() {
+        return baselineP50;
+    }
+
+    /**
+     * @return median over the last 7 days
+     */
+    public long getRecentP50() {
+        return recentP50;
+    }
+
+    public long[] getWeeklyP50() {
+        return weeklyP50;
+    }
+
+    /**
+     * @return recent median over baseline median, or NaN if either is missing
+     */
+    public double getChange() {
+        return baselineP50 > 0 && recentP50 >= 0 ? (double) recentP50 / baselineP50 : Double.NaN;
+    }
+
+    public boolean isRegression() {
+        return regression;
+    }
+}
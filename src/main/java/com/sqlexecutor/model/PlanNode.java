@@ -0,0 +1,119 @@
+package com.sqlexecutor.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One node of an EXPLAIN (ANALYZE, BUFFERS) plan tree. Times are in
+ * milliseconds and, like PostgreSQL, per loop unless noted otherwise.
+ */
+public class PlanNode {
+    private String nodeType;
+    private String relationName;
+    private double planRows;
+    private double actualRows;
+    private double actualTotalTime;
+    private double actualLoops;
+    private long sharedHitBlocks;
+    private long sharedReadBlocks;
+    private final List<PlanNode> children = new ArrayList<>();
+
+    public String getNodeType() {
+        return nodeType;
+    }
+
+    public void setNodeType(String nodeType) {
+        this.nodeType = nodeType;
+    }
+
+    public String getRelationName() {
+        return relationName;
+    }
+
+    public void setRelationName(String relationName) {
+        this.relationName = relationName;
+    }
+
+    public double getPlanRows() {
+        return planRows;
+    }
+
+    public void setPlanRows(double planRows) {
+        this.planRows = planRows;
+    }
+
+    public double getActualRows() {
+        return actualRows;
+    }
+
+    public void setActualRows(double actualRows) {
+        this.actualRows = actualRows;
+    }
+
+    public double getActualTotalTime() {
+        return actualTotalTime;
+    }
+
+    public void setActualTotalTime(double actualTotalTime) {
+        this.actualTotalTime = actualTotalTime;
+    }
+
+    public double getActualLoops() {
+        return actualLoops;
+    }
+
+    public void setActualLoops(double actualLoops) {
+        this.actualLoops = actualLoops;
+    }
+
+    public long getSharedHitBlocks() {
+        return sharedHitBlocks;
+    }
+
+    public void setSharedHitBlocks(long sharedHitBlocks) {
+        this.sharedHitBlocks = sharedHitBlocks;
+    }
+
+    public long getSharedReadBlocks() {
+        return sharedReadBlocks;
+    }
+
+    public void setSharedReadBlocks(long sharedReadBlocks) {
+        this.sharedReadBlocks = sharedReadBlocks;
+    }
+
+    public List<PlanNode> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return time spent in this node over all loops, including children
+     */
+    public double getInclusiveTime() {
+        return actualTotalTime * Math.max(actualLoops, 1);
+    }
+
+    /**
+     * @return time spent in this node over all loops, excluding children
+     */
+    public double getExclusiveTime() {
+        double time = getInclusiveTime();
+        for (PlanNode child : children) {
+            time -= child.getInclusiveTime();
+        }
+        return Math.max(time, 0);
+    }
+
+    /**
+     * @return how far off the planner's row estimate was, as a factor of at least 1
+     */
+    public double getEstimateError() {
+        double estimated = Math.max(planRows, 1);
+        double actual = Math.max(actualRows, 1);
+        return Math.max(estimated / actual, actual / estimated);
+    }
+
+    public String getLabel() {
+        return relationName != null ? nodeType + " on " + relationName : nodeType;
+    }
+}
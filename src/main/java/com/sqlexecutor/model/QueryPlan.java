@@ -0,0 +1,118 @@
+package com.sqlexecutor.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Captured EXPLAIN ANALYZE plan for one statement of a script.
+ */
+public class QueryPlan {
+    // Estimates off by more than this factor are reported as misses
+    private static final double ESTIMATE_MISS_FACTOR = 10.0;
+
+    private final int statementIndex;
+    private final int lineNumber;
+    private final PlanNode root;
+    private final double planningTime;
+    private final double executionTime;
+    private final boolean rolledBack;
+
+    public QueryPlan(int statementIndex, int lineNumber, PlanNode root,
+                     double planningTime, double executionTime, boolean rolledBack) {
+        this.statementIndex = statementIndex;
+        this.lineNumber = lineNumber;
+        this.root = root;
+        this.planningTime = planningTime;
+        this.executionTime = executionTime;
+        this.rolledBack = rolledBack;
+    }
+
+    public int getStatementIndex() {
+        return statementIndex;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public PlanNode getRoot() {
+        return root;
+    }
+
+    public double getPlanningTime() {
+        return planningTime;
+    }
+
+    public double getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * @return true if the statement modified data and its effects were rolled back
+     */
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    public List<PlanNode> getNodes() {
+        List<PlanNode> nodes = new ArrayList<>();
+        collect(root, nodes);
+        return nodes;
+    }
+
+    /**
+     * @return the nodes with the highest exclusive time, slowest first
+     */
+    public List<PlanNode> getHottestNodes(int limit) {
+        List<PlanNode> nodes = getNodes();
+        nodes.sort(Comparator.comparingDouble(PlanNode::getExclusiveTime).reversed());
+        return nodes.subList(0, Math.min(limit, nodes.size()));
+    }
+
+    public List<PlanNode> getEstimateMisses() {
+        List<PlanNode> misses = new ArrayList<>();
+        for (PlanNode node : getNodes()) {
+            if (node.getEstimateError() >= ESTIMATE_MISS_FACTOR) {
+                misses.add(node);
+            }
+        }
+        return misses;
+    }
+
+    public long getSharedReadBlocks() {
+        // Buffer counters in EXPLAIN are cumulative, so the root holds the total
+        return root != null ? root.getSharedReadBlocks() : 0;
+    }
+
+    public long getSharedHitBlocks() {
+        return root != null ? root.getSharedHitBlocks() : 0;
+    }
+
+    private static void collect(PlanNode node, List<PlanNode> nodes) {
+        if (node == null) {
+            return;
+        }
+        nodes.add(node);
+        for (PlanNode child : node.getChildren()) {
+            collect(child, nodes);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Statement #%d (line %d): %.2f ms execution, %.2f ms planning%s%n",
+                statementIndex + 1, lineNumber, executionTime, planningTime,
+                rolledBack ? ", rolled back" : ""));
+        sb.append(String.format("  Buffers: shared hit=%d read=%d%n", getSharedHitBlocks(), getSharedReadBlocks()));
+        for (PlanNode node : getHottestNodes(3)) {
+            sb.append(String.format("  Hot: %s %.2f ms%n", node.getLabel(), node.getExclusiveTime()));
+        }
+        for (PlanNode node : getEstimateMisses()) {
+            sb.append(String.format("  Estimate miss: %s planned %.0f rows, got %.0f%n",
+                    node.getLabel(), node.getPlanRows(), node.getActualRows()));
+        }
+        return sb.toString();
+    }
+}
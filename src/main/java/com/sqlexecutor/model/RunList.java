@@ -0,0 +1,129 @@
+package com.sqlexecutor.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A saved, named deployment: the scripts to run, already in dependency
+ * order, with per-file options and the content hash each file had when the
+ * list was saved.
+ */
+public class RunList {
+    public enum TransactionMode {
+        /** Every statement commits on its own, as the script's own BEGIN/COMMIT dictate */
+        AUTOCOMMIT,
+        /** The whole file runs in one transaction that is rolled back on failure */
+        SINGLE
+    }
+
+    private final String name;
+    private final long createdAt;
+    private final List<Entry> entries;
+
+    public RunList(String name, long createdAt, List<Entry> entries) {
+        this.name = name;
+        this.createdAt = createdAt;
+        this.entries = new ArrayList<>(entries);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return the entries in execution order
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public List<File> getFiles() {
+        List<File> files = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            files.add(entry.getFile());
+        }
+        return files;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * One script in a run list.
+     */
+    public static class Entry {
+        private final File file;
+        private final long length;
+        private final long lastModified;
+        private final String contentHash;
+        private TransactionMode transactionMode = TransactionMode.SINGLE;
+        private int timeout;
+        private String target = "";
+
+        /**
+         * @param length       file size when the hash was taken
+         * @param lastModified modification time when the hash was taken
+         * @param contentHash  SHA-256 of the file content, hex encoded
+         */
+        public Entry(File file, long length, long lastModified, String contentHash) {
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        public TransactionMode getTransactionMode() {
+            return transactionMode;
+        }
+
+        public void setTransactionMode(TransactionMode transactionMode) {
+            this.transactionMode = transactionMode;
+        }
+
+        /**
+         * @return the statement timeout for this file in seconds, 0 to use the profile's
+         */
+        public int getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(int timeout) {
+            this.timeout = timeout;
+        }
+
+        /**
+         * @return the JDBC URL to run this file against, or an empty string for the profile's
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        public void setTarget(String target) {
+            this.target = target == null ? "" : target.trim();
+        }
+    }
+}
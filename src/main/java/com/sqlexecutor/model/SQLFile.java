@@ -1,14 +1,34 @@
 package com.sqlexecutor.model;
 
+import com.sqlexecutor.util.MemoryBudget;
+import com.sqlexecutor.util.SQLStatementSplitter;
+import com.sqlexecutor.util.SplitPlanCache;
+
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 
 public class SQLFile {
     private File file;
     private boolean selected;
     private String content;
+    // Charset the content was decoded with, and should be written back in
+    private Charset charset = StandardCharsets.UTF_8;
+    private List<SQLStatement> statements;
+    // True while content is exactly what is on disk, so the split plan cache applies
+    private boolean contentFromDisk;
+    // Size and modification time of the file the content was read from
+    private long diskLength;
+    private long diskModified;
+    // Content size counted against the memory budget until this file is collected
+    private MemoryBudget.Reservation memory;
 
     public SQLFile(File file) {
         this.file = file;
@@ -18,10 +38,33 @@ public class SQLFile {
 
     private void loadContent() {
         try {
-            this.content = new String(Files.readAllBytes(Paths.get(file.getAbsolutePath())));
+            diskLength = file.length();
+            diskModified = file.lastModified();
+            this.content = decode(Files.readAllBytes(Paths.get(file.getAbsolutePath())));
+            // A save while reading could pair this content with the newer file's size and time
+            this.contentFromDisk = file.length() == diskLength && file.lastModified() == diskModified;
         } catch (IOException e) {
             this.content = "Error loading file: " + e.getMessage();
         }
+        memory = MemoryBudget.getInstance().track(this, MemoryBudget.Category.FILES, content.length() * 2L);
+    }
+
+    /**
+     * Decodes the file as UTF-8 when it is valid UTF-8, and otherwise with the
+     * platform charset, which is what older scripts, for example GBK ones on
+     * a Chinese Windows, were written in.
+     */
+    private String decode(byte[] bytes) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            charset = Charset.defaultCharset();
+            return new String(bytes, charset);
+        }
     }
 
     public File getFile() {
@@ -40,12 +83,36 @@ public class SQLFile {
         this.selected = selected;
     }
 
+    /**
+     * @return the charset the file was read with: UTF-8, or the platform
+     *         charset for a file that is not valid UTF-8
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
     public String getContent() {
         return content;
     }
 
-    public void setContent(String content) {
+    public synchronized void setContent(String content) {
         this.content = content;
+        this.statements = null;
+        memory.resize(content.length() * 2L);
+        this.contentFromDisk = false;
+    }
+
+    /**
+     * Splits the content into statements on first use and caches the result
+     * until the content changes.
+     */
+    public synchronized List<SQLStatement> getStatements() {
+        if (statements == null) {
+            statements = contentFromDisk
+                    ? SplitPlanCache.getInstance().getStatements(file, diskLength, diskModified, content)
+                    : SQLStatementSplitter.split(content);
+        }
+        return statements;
     }
 
     public String getAbsolutePath() {
@@ -0,0 +1,99 @@
+package com.sqlexecutor.model;
+
+import com.sqlexecutor.util.SQLStatementSplitter;
+
+import java.util.function.Supplier;
+
+/**
+ * A single statement split out of an {@link SQLFile}, together with its
+ * position in the original script.
+ */
+public class SQLStatement {
+    private final int index;
+    private String sql;
+    private Supplier<String> sqlLoader;
+    private final int lineNumber;
+    private final long startByte;
+    private final long endByte;
+    private StatementKind kind;
+    private Boolean batchable;
+
+    public SQLStatement(int index, String sql, int lineNumber, long startByte, long endByte) {
+        this.index = index;
+        this.sql = sql;
+        this.lineNumber = lineNumber;
+        this.startByte = startByte;
+        this.endByte = endByte;
+    }
+
+    /**
+     * Creates a statement from a previously computed split plan. The text is
+     * only produced by {@code sqlLoader} when first requested.
+     */
+    public SQLStatement(int index, int lineNumber, long startByte, long endByte,
+                        StatementKind kind, boolean batchable, Supplier<String> sqlLoader) {
+        this.index = index;
+        this.lineNumber = lineNumber;
+        this.startByte = startByte;
+        this.endByte = endByte;
+        this.kind = kind;
+        this.batchable = batchable;
+        this.sqlLoader = sqlLoader;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public synchronized String getSql() {
+        if (sql == null && sqlLoader != null) {
+            sql = sqlLoader.get();
+            sqlLoader = null;
+        }
+        return sql;
+    }
+
+    /**
+     * @return 1-based line of the first non-blank character of the statement
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return UTF-8 byte offset in the script where this statement starts
+     */
+    public long getStartByte() {
+        return startByte;
+    }
+
+    /**
+     * @return UTF-8 byte offset just past the statement terminator
+     */
+    public long getEndByte() {
+        return endByte;
+    }
+
+    public StatementKind getKind() {
+        if (kind == null) {
+            kind = SQLStatementSplitter.classify(getSql());
+        }
+        return kind;
+    }
+
+    /**
+     * @return true if the statement returns nothing but an update count, so it
+     *         can be sent together with its neighbours in a JDBC batch
+     */
+    public boolean isBatchable() {
+        if (batchable == null) {
+            batchable = SQLStatementSplitter.isBatchable(getSql(), getKind());
+        }
+        return batchable;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + (index + 1) + " (line " + lineNumber + ")";
+    }
+}
@@ -0,0 +1,16 @@
+package com.sqlexecutor.model;
+
+/**
+ * Coarse classification of a statement by its leading keyword.
+ */
+public enum StatementKind {
+    /** Returns rows: SELECT, WITH, VALUES, TABLE, SHOW */
+    QUERY,
+    /** Modifies rows: INSERT, UPDATE, DELETE, MERGE */
+    DML,
+    /** Changes schema: CREATE, ALTER, DROP, TRUNCATE, COMMENT, GRANT, REVOKE */
+    DDL,
+    /** Transaction control: BEGIN, COMMIT, ROLLBACK, SAVEPOINT ... */
+    TRANSACTION,
+    OTHER
+}
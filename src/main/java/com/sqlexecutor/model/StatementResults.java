@@ -0,0 +1,92 @@
+package com.sqlexecutor.model;
+
+/**
+ * Outcome of every statement in a file, stored column-wise in primitive
+ * arrays indexed by statement so that large scripts do not allocate an
+ * object per statement. Statements that never ran keep a null status.
+ */
+public class StatementResults {
+    private static final ExecutionStatus[] STATUSES = ExecutionStatus.values();
+
+    private final int[] lineNumbers;
+    private final long[] elapsedMicros;
+    private final long[] rows;
+    private final byte[] statuses;   // ExecutionStatus ordinal + 1, 0 when not run
+    private int executedCount;
+
+    public StatementResults(int statementCount) {
+        lineNumbers = new int[statementCount];
+        elapsedMicros = new long[statementCount];
+        rows = new long[statementCount];
+        statuses = new byte[statementCount];
+    }
+
+    /**
+     * Records the outcome of a statement. A statement that is run again, for
+     * example when a transaction is replayed, keeps its latest outcome.
+     */
+    public void record(int index, int lineNumber, long elapsedMicros, long rows, ExecutionStatus status) {
+        if (statuses[index] == 0) {
+            executedCount++;
+        }
+        this.lineNumbers[index] = lineNumber;
+        this.elapsedMicros[index] = elapsedMicros;
+        this.rows[index] = rows;
+        this.statuses[index] = (byte) (status.ordinal() + 1);
+    }
+
+    public int size() {
+        return statuses.length;
+    }
+
+    /**
+     * @return number of statements that ran, successfully or not
+     */
+    public int getExecutedCount() {
+        return executedCount;
+    }
+
+    public int getLineNumber(int index) {
+        return lineNumbers[index];
+    }
+
+    public long getElapsedMicros(int index) {
+        return elapsedMicros[index];
+    }
+
+    public long getRows(int index) {
+        return rows[index];
+    }
+
+    /**
+     * @return the outcome, or null if the statement did not run
+     */
+    public ExecutionStatus getStatus(int index) {
+        return statuses[index] == 0 ? null : STATUSES[statuses[index] - 1];
+    }
+
+    /**
+     * @return indexes of the {@code n} slowest statements, slowest first
+     */
+    public int[] getSlowest(int n) {
+        int[] slowest = new int[Math.min(n, executedCount)];
+        int found = 0;
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == 0) {
+                continue;
+            }
+            // Insertion into a small sorted array
+            int pos = found < slowest.length ? found++ : slowest.length;
+            while (pos > 0 && elapsedMicros[slowest[pos - 1]] < elapsedMicros[i]) {
+                if (pos < slowest.length) {
+                    slowest[pos] = slowest[pos - 1];
+                }
+                pos--;
+            }
+            if (pos < slowest.length) {
+                slowest[pos] = i;
+            }
+        }
+        return slowest;
+    }
+}
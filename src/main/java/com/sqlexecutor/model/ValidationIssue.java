@@ -0,0 +1,66 @@
+package com.sqlexecutor.model;
+
+/**
+ * A problem found while validating a script without executing it.
+ */
+public class ValidationIssue {
+    private final int statementIndex;
+    private final int lineNumber;
+    private final int column;
+    private final String sqlState;
+    private final String message;
+    private final boolean warning;
+
+    /**
+     * @param column   1-based column of the error, or 0 if the server did not report a position
+     * @param sqlState server error code, or null for issues raised locally
+     * @param warning  true if the statement could not be checked rather than failed
+     */
+    public ValidationIssue(int statementIndex, int lineNumber, int column, String sqlState,
+                           String message, boolean warning) {
+        this.statementIndex = statementIndex;
+        this.lineNumber = lineNumber;
+        this.column = column;
+        this.sqlState = sqlState;
+        this.message = message;
+        this.warning = warning;
+    }
+
+    public int getStatementIndex() {
+        return statementIndex;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getSqlState() {
+        return sqlState;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isWarning() {
+        return warning;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(warning ? "Warning" : "Error").append(" at line ").append(lineNumber);
+        if (column > 0) {
+            sb.append(':').append(column);
+        }
+        sb.append(" (statement ").append(statementIndex + 1).append(")");
+        if (sqlState != null) {
+            sb.append(" [").append(sqlState).append("]");
+        }
+        return sb.append(": ").append(message).toString();
+    }
+}
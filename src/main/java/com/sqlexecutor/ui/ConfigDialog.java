@@ -3,11 +3,15 @@ package com.sqlexecutor.ui;
 import com.sqlexecutor.model.DatabaseConfig;
 import com.sqlexecutor.ui.i18n.LanguageManager;
 import com.sqlexecutor.util.ConfigManager;
+import com.sqlexecutor.util.ConnectionProbe;
+import com.sqlexecutor.util.DatabaseManager;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.sql.SQLException;
+import java.util.List;
 
 public class ConfigDialog extends JDialog {
     private JTextField hostField;
@@ -15,19 +19,24 @@ public class ConfigDialog extends JDialog {
     private JTextField usernameField;
     private JPasswordField passwordField;
     private JTextField databaseNameField;
+    private JTextField statementTimeoutField;
+    private JTextField lockTimeoutField;
+    private JTextField runTimeoutField;
+    private JTextField connectTimeoutField;
+    private JTextField maxConnectionsField;
+    private JTextField maxBatchSizeField;
+    private JCheckBox adaptiveTuningCheckBox;
+    private JTextField driverField;
+    private JTextField urlField;
     private JCheckBox saveConfigCheckBox;
+    private JButton testButton;
+    private JLabel probeLabel;
     private boolean confirmed = false;
     private DatabaseConfig databaseConfig;
 
     public ConfigDialog(Frame owner, DatabaseConfig config) {
         super(owner, LanguageManager.getString("connection.title"), true);
-        this.databaseConfig = new DatabaseConfig(
-                config.getHost(),
-                config.getPort(),
-                config.getUsername(),
-                config.getPassword(),
-                config.getDatabaseName()
-        );
+        this.databaseConfig = new DatabaseConfig(config);
 
         initializeUI();
         pack();
@@ -94,27 +103,133 @@ public class ConfigDialog extends JDialog {
         databaseNameField = new JTextField(databaseConfig.getDatabaseName(), 20);
         panel.add(databaseNameField, gbc);
 
-        // Save configuration checkbox
+        // Statement timeout field
         gbc.gridx = 0;
         gbc.gridy = 5;
+        gbc.weightx = 0.0;
+        panel.add(new JLabel(LanguageManager.getString("connection.statement_timeout")), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        statementTimeoutField = new JTextField(String.valueOf(databaseConfig.getStatementTimeout()), 20);
+        panel.add(statementTimeoutField, gbc);
+
+        // Lock timeout field
+        gbc.gridx = 0;
+        gbc.gridy = 6;
+        gbc.weightx = 0.0;
+        panel.add(new JLabel(LanguageManager.getString("connection.lock_timeout")), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        lockTimeoutField = new JTextField(String.valueOf(databaseConfig.getLockTimeout()), 20);
+        panel.add(lockTimeoutField, gbc);
+
+        // Run timeout field
+        gbc.gridx = 0;
+        gbc.gridy = 7;
+        gbc.weightx = 0.0;
+        panel.add(new JLabel(LanguageManager.getString("connection.run_timeout")), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        runTimeoutField = new JTextField(String.valueOf(databaseConfig.getRunTimeout()), 20);
+        panel.add(runTimeoutField, gbc);
+
+        // Connect timeout field
+        gbc.gridx = 0;
+        gbc.gridy = 8;
+        gbc.weightx = 0.0;
+        panel.add(new JLabel(LanguageManager.getString("connection.connect_timeout")), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        connectTimeoutField = new JTextField(String.valueOf(databaseConfig.getConnectTimeout()), 20);
+        connectTimeoutField.setToolTipText("Limit on name lookup, TCP connect and login; 0 uses the driver's default");
+        panel.add(connectTimeoutField, gbc);
+
+        // Max connections field
+        gbc.gridx = 0;
+        gbc.gridy = 9;
+        gbc.weightx = 0.0;
+        panel.add(new JLabel(LanguageManager.getString("connection.max_connections")), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        maxConnectionsField = new JTextField(String.valueOf(databaseConfig.getMaxConnections()), 20);
+        panel.add(maxConnectionsField, gbc);
+
+        // Max batch size field
+        gbc.gridx = 0;
+        gbc.gridy = 10;
+        gbc.weightx = 0.0;
+        panel.add(new JLabel(LanguageManager.getString("connection.max_batch_size")), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        maxBatchSizeField = new JTextField(String.valueOf(databaseConfig.getMaxBatchSize()), 20);
+        panel.add(maxBatchSizeField, gbc);
+
+        // Adaptive tuning checkbox
+        gbc.gridx = 1;
+        gbc.gridy = 11;
+        adaptiveTuningCheckBox = new JCheckBox(LanguageManager.getString("connection.adaptive_tuning"),
+                databaseConfig.isAdaptiveTuning());
+        adaptiveTuningCheckBox.setToolTipText("Adjust batch size and concurrent files from measured latency, "
+                + "up to the max batch size and max connections");
+        panel.add(adaptiveTuningCheckBox, gbc);
+
+        // JDBC driver field
+        gbc.gridx = 0;
+        gbc.gridy = 12;
+        gbc.weightx = 0.0;
+        panel.add(new JLabel(LanguageManager.getString("connection.driver")), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        driverField = new JTextField(databaseConfig.getDriverClassName(), 20);
+        panel.add(driverField, gbc);
+
+        // JDBC URL override field, empty to build it from host, port and database
+        gbc.gridx = 0;
+        gbc.gridy = 13;
+        gbc.weightx = 0.0;
+        panel.add(new JLabel(LanguageManager.getString("connection.url")), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        urlField = new JTextField(databaseConfig.getJdbcUrlOverride(), 20);
+        urlField.setToolTipText("Leave empty to use host, port and database");
+        panel.add(urlField, gbc);
+
+        // Save configuration checkbox
+        gbc.gridx = 0;
+        gbc.gridy = 14;
         gbc.gridwidth = 2;
         saveConfigCheckBox = new JCheckBox("Save configuration for future sessions", true);
         panel.add(saveConfigCheckBox, gbc);
 
         // Test connection button
         gbc.gridx = 0;
-        gbc.gridy = 6;
+        gbc.gridy = 15;
         gbc.gridwidth = 1;
-        JButton testButton = new JButton(LanguageManager.getString("connection.test"));
+        testButton = new JButton(LanguageManager.getString("connection.test"));
         testButton.addActionListener(e -> testConnection());
         panel.add(testButton, gbc);
 
+        gbc.gridx = 1;
+        probeLabel = new JLabel(" ");
+        panel.add(probeLabel, gbc);
+
         // Buttons panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton saveButton = new JButton(LanguageManager.getString("mainwindow.save"));
         JButton cancelButton = new JButton(LanguageManager.getString("connection.cancel"));
 
         saveButton.addActionListener(e -> {
+            if (!validateFields()) {
+                return;
+            }
             updateDatabaseConfig();
             confirmed = true;
             if (saveConfigCheckBox.isSelected()) {
@@ -144,54 +259,148 @@ public class ConfigDialog extends JDialog {
         databaseConfig.setUsername(usernameField.getText());
         databaseConfig.setPassword(new String(passwordField.getPassword()));
         databaseConfig.setDatabaseName(databaseNameField.getText());
+        databaseConfig.setStatementTimeout(parseNonNegative(statementTimeoutField));
+        databaseConfig.setLockTimeout(parseNonNegative(lockTimeoutField));
+        databaseConfig.setRunTimeout(parseNonNegative(runTimeoutField));
+        databaseConfig.setConnectTimeout(parseNonNegative(connectTimeoutField));
+        databaseConfig.setMaxConnections(Math.max(parseNonNegative(maxConnectionsField), 1));
+        databaseConfig.setMaxBatchSize(parseNonNegative(maxBatchSizeField));
+        databaseConfig.setAdaptiveTuning(adaptiveTuningCheckBox.isSelected());
+        databaseConfig.setDriverClassName(driverField.getText());
+        databaseConfig.setJdbcUrlOverride(urlField.getText());
     }
 
+    private static int parseNonNegative(JTextField field) {
+        try {
+            return Math.max(Integer.parseInt(field.getText().trim()), 0);
+        } catch (NumberFormatException e) {
+            return 0; // Treat invalid input as 0
+        }
+    }
+
+    /**
+     * Checks the fields that would otherwise be silently replaced by defaults.
+     *
+     * @return true if they are valid; otherwise the problem has been shown
+     */
+    private boolean validateFields() {
+        String problem = null;
+        if (urlField.getText().trim().isEmpty() && hostField.getText().trim().isEmpty()) {
+            problem = LanguageManager.getString("connection.invalid_host");
+        } else if (!isInRange(portField, 1, 65535)) {
+            problem = LanguageManager.getString("connection.invalid_port");
+        } else {
+            JTextField[] fields = {statementTimeoutField, lockTimeoutField, runTimeoutField, connectTimeoutField,
+                    maxConnectionsField, maxBatchSizeField};
+            String[] labels = {"connection.statement_timeout", "connection.lock_timeout", "connection.run_timeout",
+                    "connection.connect_timeout", "connection.max_connections", "connection.max_batch_size"};
+            for (int i = 0; i < fields.length && problem == null; i++) {
+                if (!isInRange(fields[i], 0, Integer.MAX_VALUE)) {
+                    problem = String.format(LanguageManager.getString("connection.invalid_number"),
+                            LanguageManager.getString(labels[i]).replace(":", "").trim());
+                }
+            }
+        }
+        if (problem != null) {
+            JOptionPane.showMessageDialog(this, problem, LanguageManager.getString("general.error"),
+                    JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isInRange(JTextField field, int min, int max) {
+        try {
+            int value = Integer.parseInt(field.getText().trim());
+            return value >= min && value <= max;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Probes the connection phase by phase off the event thread, showing each
+     * phase as it completes, and warms the profile's pool when it succeeds.
+     */
     private void testConnection() {
+        if (!validateFields()) {
+            return;
+        }
         updateDatabaseConfig();
+        DatabaseConfig probed = new DatabaseConfig(databaseConfig);
+        testButton.setEnabled(false);
+        probeLabel.setText(LanguageManager.getString("connection.probing"));
 
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            private String errorMessage;
+        SwingWorker<List<ConnectionProbe.Step>, ConnectionProbe.Step> worker =
+                new SwingWorker<List<ConnectionProbe.Step>, ConnectionProbe.Step>() {
+            private final StringBuilder progress = new StringBuilder();
 
             @Override
-            protected Boolean doInBackground() throws Exception {
-                try {
-                    com.sqlexecutor.util.DatabaseManager manager =
-                            new com.sqlexecutor.util.DatabaseManager(databaseConfig);
-                    manager.testConnection();
-                    return true;
-                } catch (Exception e) {
-                    errorMessage = e.getMessage();
-                    return false;
+            protected List<ConnectionProbe.Step> doInBackground() {
+                return new DatabaseManager(probed).testConnection(this::publish);
+            }
+
+            @Override
+            protected void process(List<ConnectionProbe.Step> steps) {
+                for (ConnectionProbe.Step step : steps) {
+                    progress.append(progress.length() > 0 ? ", " : "").append(describe(step));
                 }
+                probeLabel.setText(progress.toString());
             }
 
             @Override
             protected void done() {
+                testButton.setEnabled(true);
+                List<ConnectionProbe.Step> steps;
                 try {
-                    boolean success = get();
-                    if (success) {
-                        JOptionPane.showMessageDialog(ConfigDialog.this,
-                                LanguageManager.getString("connection.connection_success"),
-                                LanguageManager.getString("connection.test"),
-                                JOptionPane.INFORMATION_MESSAGE);
-                    } else {
-                        JOptionPane.showMessageDialog(ConfigDialog.this,
-                                LanguageManager.getString("connection.connection_failed") + errorMessage,
-                                LanguageManager.getString("connection.test"),
-                                JOptionPane.ERROR_MESSAGE);
-                    }
+                    steps = get();
                 } catch (Exception e) {
+                    probeLabel.setText(" ");
                     JOptionPane.showMessageDialog(ConfigDialog.this,
                             "Error: " + e.getMessage(),
                             LanguageManager.getString("connection.test"),
                             JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                boolean success = ConnectionProbe.succeeded(steps);
+                StringBuilder message = new StringBuilder(LanguageManager.getString(success
+                        ? "connection.connection_success" : "connection.connection_failed"));
+                for (ConnectionProbe.Step step : steps) {
+                    message.append('\n').append(describe(step)).append(": ").append(step.getMessage());
+                }
+                if (success) {
+                    prewarm(probed);
                 }
+                JOptionPane.showMessageDialog(ConfigDialog.this, message.toString(),
+                        LanguageManager.getString("connection.test"),
+                        success ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.ERROR_MESSAGE);
             }
         };
 
         worker.execute();
     }
 
+    private static String describe(ConnectionProbe.Step step) {
+        return LanguageManager.getString("probe." + step.getPhase().name().toLowerCase()) + " "
+                + (step.isSuccess() ? step.getElapsedMillis() + " ms" : LanguageManager.getString("probe.failed"));
+    }
+
+    /**
+     * Opens the profile's first connections in the background, so the first
+     * Execute does not pay for connection setup.
+     */
+    private static void prewarm(DatabaseConfig config) {
+        Thread thread = new Thread(() -> {
+            try {
+                new DatabaseManager(config).prewarm();
+            } catch (SQLException e) {
+                System.err.println("Failed to pre-warm connections: " + e.getMessage());
+            }
+        }, "sql-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     public boolean isConfirmed() {
         return confirmed;
     }
@@ -0,0 +1,117 @@
+package com.sqlexecutor.ui;
+
+import com.sqlexecutor.util.MemoryBudget;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Keeps the editors of recently viewed files loaded, so switching back to
+ * one shows it at once with its highlighting, folds, caret and undo history
+ * intact, while bounding how much text stays in memory.
+ *
+ * <p>Entries are kept in least-recently-viewed order. When the loaded text
+ * exceeds the limit, the least recently viewed entries are unloaded until it
+ * fits; modified entries and the one being viewed are never unloaded. The
+ * limit defaults to {@link #DEFAULT_MAX_CHARS} characters and can be set with
+ * {@code -Dsqlexecutor.editorCacheChars=N}. When the {@link MemoryBudget}
+ * runs short, everything that may be unloaded is. Call only on the event
+ * thread.
+ */
+public class DocumentCache {
+    private static final long DEFAULT_MAX_CHARS = 8_000_000;
+    // A document takes about twice its text: the text itself plus line elements and token state
+    private static final long BYTES_PER_CHAR = 4;
+
+    /**
+     * Something the cache can unload and that can load itself again.
+     */
+    public interface Entry {
+        /**
+         * @return characters currently loaded, 0 when unloaded
+         */
+        int getLoadedChars();
+
+        /**
+         * @return true if unloading would lose changes
+         */
+        boolean isDirty();
+
+        void unload();
+    }
+
+    private final long maxChars;
+    // Access order: least recently viewed first
+    private final LinkedHashSet<Entry> entries = new LinkedHashSet<>();
+    private final MemoryBudget.Reservation memory =
+            MemoryBudget.getInstance().reserve(MemoryBudget.Category.CACHE, 0);
+
+    public DocumentCache() {
+        this(Long.getLong("sqlexecutor.editorCacheChars", DEFAULT_MAX_CHARS));
+    }
+
+    public DocumentCache(long maxChars) {
+        this.maxChars = maxChars;
+        MemoryBudget.getInstance().register(() -> {
+            // Called from whichever thread hit the budget; the editors belong to the event thread
+            long bytes = memory.getBytes();
+            SwingUtilities.invokeLater(() -> trim(0));
+            return bytes;
+        });
+    }
+
+    /**
+     * Records that an entry is being viewed, and unloads others if the cache
+     * is now over its limit.
+     */
+    public void viewed(Entry entry) {
+        entries.remove(entry);
+        entries.add(entry);
+        trim(maxChars);
+    }
+
+    /**
+     * Forgets an entry, for example when its tab is closed.
+     */
+    public void remove(Entry entry) {
+        entries.remove(entry);
+        updateMemory();
+    }
+
+    /**
+     * @return characters loaded across all entries
+     */
+    public long getLoadedChars() {
+        long chars = 0;
+        for (Entry entry : entries) {
+            chars += entry.getLoadedChars();
+        }
+        return chars;
+    }
+
+    private void trim(long limit) {
+        long chars = getLoadedChars();
+        if (chars > limit && entries.size() > 1) {
+            List<Entry> candidates = new ArrayList<>(entries);
+            // The most recent entry is the one on screen
+            candidates.remove(candidates.size() - 1);
+            for (Entry entry : candidates) {
+                if (chars <= limit) {
+                    break;
+                }
+                if (!entry.isDirty()) {
+                    chars -= entry.getLoadedChars();
+                    entry.unload();
+                    entries.remove(entry);
+                }
+            }
+        }
+        memory.resize(chars * BYTES_PER_CHAR);
+    }
+
+    private void updateMemory() {
+        memory.resize(getLoadedChars() * BYTES_PER_CHAR);
+    }
+}
@@ -1,18 +1,50 @@
 package com.sqlexecutor.ui;
 
+import com.sqlexecutor.model.ExecutionProgress;
 import com.sqlexecutor.ui.i18n.LanguageManager;
+import com.sqlexecutor.util.BatchProgressTracker;
+import com.sqlexecutor.util.MemoryBudget;
+import com.sqlexecutor.util.NoticeMonitor;
 
 import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ExecutionPanel extends JPanel {
     private JTextArea textArea;
     private JScrollPane scrollPane;
+    private JProgressBar fileProgressBar;
+    private JProgressBar batchProgressBar;
+    private JLabel etaLabel;
+    private BatchProgressTracker progressTracker;
+    private long lastProgressUpdate;
+    private NoticeMonitor noticeMonitor;
+    private Timer noticeTimer;
+    private final List<String> pendingNotices = new ArrayList<>();
+    private final MemoryBudget.Reservation logMemory =
+            MemoryBudget.getInstance().reserve(MemoryBudget.Category.LOG, 0);
+
+    // Minimum interval between progress bar repaints
+    private static final long PROGRESS_INTERVAL_MS = 100;
+
+    // How often server notices are moved from the monitor into the log
+    private static final int NOTICE_INTERVAL_MS = 100;
+
+    // Longest log kept; older output is dropped beyond this or under memory pressure
+    private static final int MAX_LOG_CHARS = 4 * 1024 * 1024;
     
     public ExecutionPanel() {
         setLayout(new BorderLayout());
         initializeUI();
+        MemoryBudget.getInstance().register(() -> {
+            long bytes = logMemory.getBytes() / 2;
+            SwingUtilities.invokeLater(() -> trimLog(textArea.getDocument().getLength() / 2));
+            return bytes;
+        });
     }
     
     private void initializeUI() {
@@ -37,20 +69,171 @@ public class ExecutionPanel extends JPanel {
         clearButton.addActionListener(e -> clear());
         clearButton.setMnemonic(KeyEvent.VK_C); // Alt + C
         toolbar.add(clearButton);
+        toolbar.addSeparator();
+
+        // Progress bars for the current file and the whole batch
+        fileProgressBar = new JProgressBar(0, 1000);
+        fileProgressBar.setStringPainted(true);
+        fileProgressBar.setString(LanguageManager.getString("progress.file"));
+        batchProgressBar = new JProgressBar(0, 1000);
+        batchProgressBar.setStringPainted(true);
+        batchProgressBar.setString(LanguageManager.getString("progress.batch"));
+        etaLabel = new JLabel(" ");
+        etaLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
+
+        toolbar.add(fileProgressBar);
+        toolbar.add(Box.createHorizontalStrut(5));
+        toolbar.add(batchProgressBar);
+        toolbar.add(etaLabel);
         
         // Add components to panel
         add(titleLabel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         add(toolbar, BorderLayout.SOUTH);
     }
+
+    /**
+     * Resets the progress bars for a new batch.
+     */
+    public void startBatch(BatchProgressTracker tracker) {
+        this.progressTracker = tracker;
+        this.lastProgressUpdate = 0;
+        fileProgressBar.setValue(0);
+        batchProgressBar.setValue(0);
+        updateProgress(true);
+    }
+
+    /**
+     * Refreshes the progress bars from the current tracker state. Calls more
+     * frequent than {@link #PROGRESS_INTERVAL_MS} are ignored unless forced.
+     */
+    public void updateProgress(boolean force) {
+        if (progressTracker == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (!force && now - lastProgressUpdate < PROGRESS_INTERVAL_MS) {
+            return;
+        }
+        lastProgressUpdate = now;
+
+        ExecutionProgress current = progressTracker.getCurrent();
+        if (current != null) {
+            fileProgressBar.setValue((int) (current.getFraction() * 1000));
+            fileProgressBar.setString(String.format("%d / %d  (%d %s)",
+                    current.getStatementIndex(), current.getStatementCount(),
+                    current.getRowsProcessed(), LanguageManager.getString("progress.rows")));
+        } else {
+            fileProgressBar.setValue(progressTracker.getCompletedFiles() > 0 ? 1000 : 0);
+            fileProgressBar.setString(LanguageManager.getString("progress.file"));
+        }
+
+        batchProgressBar.setValue((int) (progressTracker.getBatchFraction() * 1000));
+        batchProgressBar.setString(String.format("%d / %d %s",
+                progressTracker.getCompletedFiles(), progressTracker.getTotalFiles(),
+                LanguageManager.getString("progress.files")));
+
+        etaLabel.setText(LanguageManager.getString("progress.eta")
+                + formatDuration(progressTracker.estimateFileRemaining()) + " / "
+                + formatDuration(progressTracker.estimateBatchRemaining()));
+    }
+
+    /**
+     * Shows notices from the given monitor in the log as they arrive, until
+     * {@link #finishBatch()} is called.
+     */
+    public void setNoticeMonitor(NoticeMonitor noticeMonitor) {
+        stopNotices();
+        this.noticeMonitor = noticeMonitor;
+        if (noticeMonitor != null) {
+            noticeTimer = new Timer(NOTICE_INTERVAL_MS, e -> drainNotices());
+            noticeTimer.start();
+        }
+    }
+
+    private void drainNotices() {
+        if (noticeMonitor == null || noticeMonitor.drainTo(pendingNotices) == 0) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (String notice : pendingNotices) {
+            text.append("  ").append(notice).append('\n');
+        }
+        pendingNotices.clear();
+        appendText(text.toString());
+    }
+
+    private void stopNotices() {
+        drainNotices();
+        if (noticeTimer != null) {
+            noticeTimer.stop();
+            noticeTimer = null;
+        }
+        noticeMonitor = null;
+    }
+
+    public void finishBatch() {
+        stopNotices();
+        updateProgress(true);
+        progressTracker = null;
+        etaLabel.setText(" ");
+    }
+
+    private static String formatDuration(long millis) {
+        if (millis < 0) {
+            return "?";
+        }
+        long seconds = millis / 1000;
+        if (seconds >= 3600) {
+            return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+        }
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
     
     public void appendText(String text) {
         textArea.append(text);
+        int length = textArea.getDocument().getLength();
+        int limit = maxLogChars();
+        if (length > limit) {
+            trimLog(limit / 2);
+        } else {
+            logMemory.resize(length * 2L);
+        }
         // Scroll to bottom
         textArea.setCaretPosition(textArea.getDocument().getLength());
     }
-    
+
+    private static int maxLogChars() {
+        MemoryBudget budget = MemoryBudget.getInstance();
+        int limit = (int) Math.min(MAX_LOG_CHARS, budget.getBudget() / 16);
+        return budget.isCritical() ? limit / 4 : limit;
+    }
+
+    /**
+     * Drops the oldest output, keeping roughly the last {@code keepChars}
+     * characters from a line boundary on.
+     */
+    private void trimLog(int keepChars) {
+        Document document = textArea.getDocument();
+        int length = document.getLength();
+        if (length <= keepChars) {
+            return;
+        }
+        try {
+            int cut = length - keepChars;
+            String head = document.getText(cut, Math.min(keepChars, 4096));
+            int newline = head.indexOf('\n');
+            cut += newline >= 0 ? newline + 1 : 0;
+            document.remove(0, cut);
+            document.insertString(0, "[... earlier output trimmed ...]\n", null);
+        } catch (BadLocationException e) {
+            textArea.setText("");
+        }
+        logMemory.resize(document.getLength() * 2L);
+    }
+
     public void clear() {
         textArea.setText("");
+        logMemory.resize(0);
     }
 }
\ No newline at end of file
@@ -8,9 +8,8 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
-import java.io.FileFilter;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.Consumer;
@@ -20,6 +19,7 @@ public class FileTreePanel extends JPanel {
     private DefaultTreeModel treeModel;
     private DefaultMutableTreeNode rootNode;
     private File currentFolder;
+    private SelectionModel selectionModel = new SelectionModel();
     private List<Consumer<File>> fileSelectionListeners = new ArrayList<>();
 
     public FileTreePanel() {
@@ -49,7 +49,7 @@ public class FileTreePanel extends JPanel {
                     File file = fileNode.getFile();
 
                     // Notify listeners only for file selections (not directories)
-                    if (!file.isDirectory()) {
+                    if (!fileNode.isDirectory()) {
                         for (Consumer<File> listener : fileSelectionListeners) {
                             listener.accept(file);
                         }
@@ -72,12 +72,8 @@ public class FileTreePanel extends JPanel {
                     DefaultMutableTreeNode node = (DefaultMutableTreeNode)path.getLastPathComponent();
                     if (node.getUserObject() instanceof FileNode) {
                         FileNode fileNode = (FileNode)node.getUserObject();
-                        fileNode.setSelected(!fileNode.isSelected());
-
-                        // 如果是目录，递归设置所有子项的选择状态
-                        if (fileNode.getFile().isDirectory()) {
-                            toggleChildren(node, fileNode.isSelected());
-                        }
+                        // 目录会同时选中或取消其下所有文件
+                        selectionModel.toggle(fileNode);
 
                         // 重绘树以显示更新后的复选框状态
                         fileTree.repaint();
@@ -98,23 +94,35 @@ public class FileTreePanel extends JPanel {
         if (folder == null || !folder.exists() || !folder.isDirectory()) {
             return false;
         }
+        showFolder(folder, scanFolder(folder));
+        return true;
+    }
+
+    /**
+     * Reads a folder's SQL files into a detached tree. Touches only the file
+     * system, so it can run off the EDT; pass the result to {@link #showFolder}.
+     */
+    public static DefaultMutableTreeNode scanFolder(File folder) {
+        DefaultMutableTreeNode folderNode = new DefaultMutableTreeNode(
+                new FileNode(folder, true));
+        loadFilesIntoNode(folder, folderNode);
+        return folderNode;
+    }
 
+    /**
+     * Displays a tree built by {@link #scanFolder}.
+     */
+    public void showFolder(File folder, DefaultMutableTreeNode folderNode) {
         this.currentFolder = folder;
+        this.selectionModel = new SelectionModel(folderNode);
         rootNode.removeAllChildren();
-
-        DefaultMutableTreeNode folderNode = new DefaultMutableTreeNode(
-                new FileNode(folder, false, true));
         rootNode.add(folderNode);
 
-        loadFilesIntoNode(folder, folderNode);
-
         // 展开树以显示结构
         treeModel.reload();
         for (int i = 0; i < fileTree.getRowCount(); i++) {
             fileTree.expandRow(i);
         }
-
-        return true;
     }
 
     /**
@@ -131,74 +139,39 @@ public class FileTreePanel extends JPanel {
         return loadFolder(folder);
     }
 
-    private void loadFilesIntoNode(File folder, DefaultMutableTreeNode node) {
-        File[] files = folder.listFiles(file ->
-                file.isDirectory() || file.getName().toLowerCase().endsWith(".sql"));
+    private static void loadFilesIntoNode(File folder, DefaultMutableTreeNode node) {
+        File[] entries = folder.listFiles();
 
-        if (files == null) return;
+        if (entries == null) return;
 
-        // 排序文件：目录优先，然后按字母顺序
-        Arrays.sort(files, new Comparator<File>() {
-            @Override
-            public int compare(File f1, File f2) {
-                if (f1.isDirectory() && !f2.isDirectory()) {
-                    return -1;
-                } else if (!f1.isDirectory() && f2.isDirectory()) {
-                    return 1;
-                } else {
-                    return f1.getName().compareToIgnoreCase(f2.getName());
-                }
-            }
-        });
-
-        for (File file : files) {
-            FileNode fileNode = new FileNode(file, false, file.isDirectory());
-            DefaultMutableTreeNode fileTreeNode = new DefaultMutableTreeNode(fileNode);
-            node.add(fileTreeNode);
-
-            if (file.isDirectory()) {
-                loadFilesIntoNode(file, fileTreeNode);
+        // 每个条目只查询一次 isDirectory，排序时不再重复访问文件系统
+        List<File> directories = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        for (File entry : entries) {
+            if (entry.isDirectory()) {
+                directories.add(entry);
+            } else if (entry.getName().toLowerCase().endsWith(".sql")) {
+                files.add(entry);
             }
         }
-    }
-
-    private void toggleChildren(DefaultMutableTreeNode node, boolean selected) {
-        for (int i = 0; i < node.getChildCount(); i++) {
-            DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.getChildAt(i);
-            if (child.getUserObject() instanceof FileNode) {
-                FileNode childFileNode = (FileNode) child.getUserObject();
-                childFileNode.setSelected(selected);
 
-                // 递归设置所有子项
-                if (childFileNode.getFile().isDirectory()) {
-                    toggleChildren(child, selected);
-                }
-            }
+        // 排序文件：目录优先，然后按字母顺序
+        Comparator<File> byName = (f1, f2) -> f1.getName().compareToIgnoreCase(f2.getName());
+        directories.sort(byName);
+        files.sort(byName);
+
+        for (File directory : directories) {
+            DefaultMutableTreeNode directoryNode = new DefaultMutableTreeNode(new FileNode(directory, true));
+            node.add(directoryNode);
+            loadFilesIntoNode(directory, directoryNode);
+        }
+        for (File file : files) {
+            node.add(new DefaultMutableTreeNode(new FileNode(file, false)));
         }
     }
 
     public List<File> getSelectedFiles() {
-        List<File> selectedFiles = new ArrayList<>();
-        collectSelectedFiles(rootNode, selectedFiles);
-        return selectedFiles;
-    }
-
-    private void collectSelectedFiles(DefaultMutableTreeNode node, List<File> selectedFiles) {
-        int childCount = node.getChildCount();
-
-        for (int i = 0; i < childCount; i++) {
-            DefaultMutableTreeNode childNode = (DefaultMutableTreeNode) node.getChildAt(i);
-            Object userObject = childNode.getUserObject();
-
-            if (userObject instanceof FileNode) {
-                FileNode fileNode = (FileNode) userObject;
-                if (fileNode.isSelected() && !fileNode.getFile().isDirectory()) {
-                    selectedFiles.add(fileNode.getFile());
-                }
-            }
-
-            collectSelectedFiles(childNode, selectedFiles);
-        }
+        return selectionModel.getSelectedFiles();
     }
 
     public void addFileSelectionListener(Consumer<File> listener) {
@@ -221,15 +194,23 @@ public class FileTreePanel extends JPanel {
         return currentFolder != null ? currentFolder.getAbsolutePath() : null;
     }
 
-    // 保存文件数据和选择状态的类
+    // 保存文件数据的类；选择状态由 SelectionModel 维护
     private static class FileNode {
-        private File file;
-        private boolean selected;
-        private boolean isDirectory;
-
-        public FileNode(File file, boolean selected, boolean isDirectory) {
+        private final File file;
+        private final boolean isDirectory;
+
+        // Assigned by SelectionModel. A file covers the single bit [first, end);
+        // a directory covers the bits of every file beneath it, which are
+        // contiguous because ordinals are handed out depth first.
+        private int first;
+        private int end;
+        private int dirIndex;
+        private int dirEnd;
+        private FileNode parent;
+        private int selectedCount;
+
+        public FileNode(File file, boolean isDirectory) {
             this.file = file;
-            this.selected = selected;
             this.isDirectory = isDirectory;
         }
 
@@ -237,24 +218,101 @@ public class FileTreePanel extends JPanel {
             return file;
         }
 
-        public boolean isSelected() {
-            return selected;
-        }
-
-        public void setSelected(boolean selected) {
-            this.selected = selected;
-        }
-
         public boolean isDirectory() {
             return isDirectory;
         }
 
+        int getFileCount() {
+            return end - first;
+        }
+
         @Override
         public String toString() {
             return file.getName();
         }
     }
 
+    /**
+     * Checkbox state of every file in the tree, kept as one bit per file.
+     * Files are numbered depth first so each directory owns a contiguous
+     * range of bits and a contiguous range of descendant directories, and
+     * every directory keeps a count of its selected files for the tri-state
+     * checkbox. Toggling touches only the affected range, the directories
+     * beneath it and its ancestors; listing the selection visits only set bits.
+     */
+    private static class SelectionModel {
+        private final BitSet selected = new BitSet();
+        private final List<File> files = new ArrayList<>();
+        private final List<FileNode> directories = new ArrayList<>();
+
+        SelectionModel() {
+        }
+
+        SelectionModel(DefaultMutableTreeNode folderNode) {
+            index(folderNode, null);
+        }
+
+        private void index(DefaultMutableTreeNode treeNode, FileNode parent) {
+            FileNode node = (FileNode) treeNode.getUserObject();
+            node.parent = parent;
+            node.first = files.size();
+            if (!node.isDirectory()) {
+                files.add(node.getFile());
+                node.end = files.size();
+                return;
+            }
+            node.dirIndex = directories.size();
+            directories.add(node);
+            for (int i = 0; i < treeNode.getChildCount(); i++) {
+                index((DefaultMutableTreeNode) treeNode.getChildAt(i), node);
+            }
+            node.end = files.size();
+            node.dirEnd = directories.size();
+        }
+
+        int getSelectedCount(FileNode node) {
+            if (node.isDirectory()) {
+                return node.selectedCount;
+            }
+            return selected.get(node.first) ? 1 : 0;
+        }
+
+        /**
+         * Selects a file, or a directory's whole contents; clears it instead
+         * if it is already fully selected.
+         */
+        void toggle(FileNode node) {
+            setSelected(node, getSelectedCount(node) < node.getFileCount());
+        }
+
+        void setSelected(FileNode node, boolean select) {
+            int before = getSelectedCount(node);
+            int after = select ? node.getFileCount() : 0;
+            if (before == after) {
+                return;
+            }
+            selected.set(node.first, node.end, select);
+            if (node.isDirectory()) {
+                for (int i = node.dirIndex; i < node.dirEnd; i++) {
+                    FileNode directory = directories.get(i);
+                    directory.selectedCount = select ? directory.getFileCount() : 0;
+                }
+            }
+            for (FileNode ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+                ancestor.selectedCount += after - before;
+            }
+        }
+
+        List<File> getSelectedFiles() {
+            int count = directories.isEmpty() ? 0 : directories.get(0).selectedCount;
+            List<File> result = new ArrayList<>(count);
+            for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+                result.add(files.get(i));
+            }
+            return result;
+        }
+    }
+
     // 自定义的树节点渲染器，用于显示复选框
     private class CheckboxTreeCellRenderer extends DefaultTreeCellRenderer {
         private final JPanel panel = new JPanel();
@@ -286,8 +344,12 @@ public class FileTreePanel extends JPanel {
                 if (userObject instanceof FileNode) {
                     FileNode fileNode = (FileNode) userObject;
 
-                    // 设置复选框状态
-                    checkbox.setSelected(fileNode.isSelected());
+                    // 设置复选框状态：全选、未选，或部分选中时显示为按下的灰色
+                    int selectedCount = selectionModel.getSelectedCount(fileNode);
+                    boolean partial = selectedCount > 0 && selectedCount < fileNode.getFileCount();
+                    checkbox.setSelected(selectedCount > 0 && !partial);
+                    checkbox.getModel().setArmed(partial);
+                    checkbox.getModel().setPressed(partial);
 
                     // 设置文件名标签
                     label.setText(fileNode.getFile().getName());
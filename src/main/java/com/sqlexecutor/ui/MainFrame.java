@@ -2,19 +2,44 @@ package com.sqlexecutor.ui;
 
 import com.sqlexecutor.model.DatabaseConfig;
 import com.sqlexecutor.model.ExecutionResult;
-import com.sqlexecutor.model.SQLFile;
+import com.sqlexecutor.model.RunList;
+import com.sqlexecutor.model.SQLStatement;
+import com.sqlexecutor.model.StatementKind;
 import com.sqlexecutor.ui.i18n.LanguageManager;
+import com.sqlexecutor.util.AdaptiveController;
+import com.sqlexecutor.util.BatchProgressTracker;
+import com.sqlexecutor.util.CheckpointJournal;
 import com.sqlexecutor.util.ConfigManager;
 import com.sqlexecutor.util.DatabaseManager;
+import com.sqlexecutor.util.ExecutionBackend;
+import com.sqlexecutor.util.ExecutionPipeline;
 import com.sqlexecutor.util.FileScanner;
+import com.sqlexecutor.util.MemoryBudget;
+import com.sqlexecutor.util.MetadataCache;
+import com.sqlexecutor.util.NoticeMonitor;
+import com.sqlexecutor.util.ParallelExecutor;
+import com.sqlexecutor.util.RateLimiter;
+import com.sqlexecutor.util.ResultFormatter;
+import com.sqlexecutor.util.RunListExecutor;
+import com.sqlexecutor.util.RunCancellation;
+import com.sqlexecutor.util.RunListStore;
 import com.sqlexecutor.util.SQLExecutor;
+import com.sqlexecutor.util.SQLStatementSplitter;
+import com.sqlexecutor.util.export.ResultExporter;
 
 import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.sql.Connection;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class MainFrame extends JFrame {
     private DatabaseConfig databaseConfig;
@@ -23,22 +48,112 @@ public class MainFrame extends JFrame {
     private ExecutionPanel executionPanel;
     private JButton executeButton;
     private JButton configButton;
+    private JButton validateButton;
+    private JButton runListsButton;
+    private JButton stopButton;
+    private JLabel statusLabel;
+    private JLabel memoryLabel;
+    private Runnable firstPaintListener;
+    private JCheckBox profileCheckBox;
+    private JCheckBox parallelCheckBox;
+    private JCheckBox changedOnlyCheckBox;
+    private JCheckBox commitEachCheckBox;
+    private JComboBox<RateLimiter.Mode> rateLimitModeBox;
+    private JSpinner rateLimitSpinner;
+    private boolean updatingRateLimit;
+    // Limiters of the run in progress, so the limit can be changed while it runs
+    private RateLimiter.Group activeRateLimits;
+    private RunCancellation activeCancellation;
 
     public MainFrame() {
-        // Load saved configuration on startup
-        this.databaseConfig = ConfigManager.loadConfig();
+        // Start from defaults so the window paints at once; the saved settings
+        // and the last folder are read in the background
+        this.databaseConfig = new DatabaseConfig();
         initializeUI();
+        loadSettingsInBackground();
+    }
 
-        // Load the last opened folder if available
-        String lastFolderPath = ConfigManager.getLastFolderPath();
-        if (lastFolderPath != null) {
-            File lastFolder = new File(lastFolderPath);
-            if (lastFolder.exists() && lastFolder.isDirectory()) {
-                SwingUtilities.invokeLater(() -> fileTreePanel.loadFolder(lastFolder));
-            }
+    /**
+     * Registers a callback run once, right after the window is first painted.
+     */
+    public void setFirstPaintListener(Runnable firstPaintListener) {
+        this.firstPaintListener = firstPaintListener;
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (firstPaintListener != null) {
+            Runnable listener = firstPaintListener;
+            firstPaintListener = null;
+            SwingUtilities.invokeLater(listener);
         }
     }
 
+    private void loadSettingsInBackground() {
+        configButton.setEnabled(false);
+        executeButton.setEnabled(false);
+        validateButton.setEnabled(false);
+        runListsButton.setEnabled(false);
+        // Changing the limit saves the profile, which must not happen before it is loaded
+        rateLimitModeBox.setEnabled(false);
+        rateLimitSpinner.setEnabled(false);
+
+        SwingWorker<DefaultMutableTreeNode, Void> worker = new SwingWorker<DefaultMutableTreeNode, Void>() {
+            private DatabaseConfig config;
+            private File lastFolder;
+            private CheckpointJournal interrupted;
+
+            @Override
+            protected DefaultMutableTreeNode doInBackground() throws Exception {
+                // One read of the settings file serves both values
+                Properties settings = ConfigManager.readSettings();
+                interrupted = CheckpointJournal.findInterrupted();
+                config = ConfigManager.loadConfig(settings);
+                String lastFolderPath = ConfigManager.getLastFolderPath(settings);
+                DefaultMutableTreeNode folderNode = null;
+                if (lastFolderPath != null) {
+                    File folder = new File(lastFolderPath);
+                    if (folder.isDirectory()) {
+                        lastFolder = folder;
+                        folderNode = FileTreePanel.scanFolder(folder);
+                    }
+                }
+
+                // Load the editor classes now so opening the first file is quick
+                Class.forName("org.fife.ui.rsyntaxtextarea.RSyntaxTextArea");
+                return folderNode;
+            }
+
+            @Override
+            protected void done() {
+                if (config != null) {
+                    databaseConfig = config;
+                }
+                rateLimitModeBox.setEnabled(true);
+                showRateLimit();
+                attachMetadataCache();
+                configButton.setEnabled(true);
+                executeButton.setEnabled(true);
+                validateButton.setEnabled(true);
+                runListsButton.setEnabled(true);
+                try {
+                    DefaultMutableTreeNode folderNode = get();
+                    if (folderNode != null) {
+                        fileTreePanel.showFolder(lastFolder, folderNode);
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("Failed to load startup settings: " + cause.getMessage());
+                }
+                if (interrupted != null) {
+                    offerResume(interrupted);
+                }
+            }
+        };
+        worker.execute();
+    }
+
     private void initializeUI() {
         setTitle(LanguageManager.getString("mainwindow.title"));
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -53,16 +168,8 @@ public class MainFrame extends JFrame {
         fileTreePanel = new FileTreePanel();
         fileTreePanel.addFileSelectionListener(file -> {
             if (file != null && file.exists() && !file.isDirectory()) {
-                // Check for unsaved changes before loading a new file
-                if (editorPanel.getCurrentFile() != null) {
-                    if (editorPanel.checkUnsavedChanges()) {
-                        SQLFile sqlFile = new SQLFile(file);
-                        editorPanel.setSqlFile(sqlFile);
-                    }
-                } else {
-                    SQLFile sqlFile = new SQLFile(file);
-                    editorPanel.setSqlFile(sqlFile);
-                }
+                // Unsaved changes stay in their own tab
+                editorPanel.openFile(file);
             }
         });
 
@@ -110,10 +217,99 @@ public class MainFrame extends JFrame {
         executeButton.addActionListener(e -> executeSelectedFiles());
         toolbar.add(executeButton);
 
+// Validate Selected Button
+        validateButton = new JButton(LanguageManager.getString("mainwindow.validateButton"));
+        validateButton.setIcon(UIManager.getIcon("FileChooser.listViewIcon"));
+        validateButton.setMnemonic(KeyEvent.VK_V); // Alt + V
+        validateButton.setToolTipText("Check selected files for errors without applying any changes (Alt+V)");
+        validateButton.addActionListener(e -> validateSelectedFiles());
+        toolbar.add(validateButton);
+
+// Stop Run Button
+        stopButton = new JButton(LanguageManager.getString("mainwindow.stopButton"));
+        stopButton.setIcon(UIManager.getIcon("InternalFrame.closeIcon"));
+        stopButton.setMnemonic(KeyEvent.VK_T); // Alt + T
+        stopButton.setToolTipText("Stop the running files and start no more; committed work stays and the run "
+                + "can be resumed (Alt+T)");
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(e -> stopRun());
+        toolbar.add(stopButton);
+
+// Run Lists Button
+        runListsButton = new JButton(LanguageManager.getString("mainwindow.runListsButton"));
+        runListsButton.setIcon(UIManager.getIcon("FileChooser.detailsViewIcon"));
+        runListsButton.setMnemonic(KeyEvent.VK_R); // Alt + R
+        runListsButton.setToolTipText("Save the selected files as a named run list, or run a saved one (Alt+R)");
+        runListsButton.addActionListener(e -> showRunListDialog());
+        toolbar.add(runListsButton);
+
+// Export Query Button
+        JButton exportButton = new JButton(LanguageManager.getString("mainwindow.exportButton"));
+        exportButton.setIcon(UIManager.getIcon("FileView.floppyDriveIcon"));
+        exportButton.setMnemonic(KeyEvent.VK_X); // Alt + X
+        exportButton.setToolTipText("Export the selected query, or the last query in the editor, to CSV/JSONL/columnar (Alt+X)");
+        exportButton.addActionListener(e -> exportQuery());
+        toolbar.add(exportButton);
+
+// Performance Report Button
+        JButton reportButton = new JButton(LanguageManager.getString("mainwindow.reportButton"));
+        reportButton.setIcon(UIManager.getIcon("FileChooser.detailsViewIcon"));
+        reportButton.setMnemonic(KeyEvent.VK_P); // Alt + P
+        reportButton.setToolTipText("Compare timings of files and statements across past runs (Alt+P)");
+        reportButton.addActionListener(e -> new PerformanceReportDialog(this).setVisible(true));
+        toolbar.add(reportButton);
+
+// Profile Plans Toggle
+        profileCheckBox = new JCheckBox(LanguageManager.getString("mainwindow.profileCheckBox"));
+        profileCheckBox.setToolTipText("Capture EXPLAIN ANALYZE plans; data changes are rolled back");
+        toolbar.add(profileCheckBox);
+
+// Parallel Execution Toggle
+        parallelCheckBox = new JCheckBox(LanguageManager.getString("mainwindow.parallelCheckBox"));
+        parallelCheckBox.setToolTipText("Run selected files concurrently, up to the profile's connection limit. "
+                + "Only for scripts that do not depend on each other.");
+        toolbar.add(parallelCheckBox);
+
+// Changed Statements Only Toggle
+        changedOnlyCheckBox = new JCheckBox(LanguageManager.getString("mainwindow.changedOnlyCheckBox"));
+        changedOnlyCheckBox.setToolTipText("Run only statements changed since each file was last applied to this "
+                + "database, plus the definitions that depend on them");
+        toolbar.add(changedOnlyCheckBox);
+
+// Per-Statement Commit Toggle
+        commitEachCheckBox = new JCheckBox(LanguageManager.getString("mainwindow.commitEachCheckBox"));
+        commitEachCheckBox.setToolTipText("Commit every statement on its own instead of running each file as one "
+                + "transaction. A failure then leaves the statements before it applied.");
+        toolbar.add(commitEachCheckBox);
+
+// Rate Limit
+        toolbar.addSeparator();
+        toolbar.add(new JLabel(LanguageManager.getString("mainwindow.rateLimit")));
+        rateLimitModeBox = new JComboBox<>(RateLimiter.Mode.values());
+        rateLimitModeBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                String key = "ratelimit." + ((RateLimiter.Mode) value).name().toLowerCase();
+                return super.getListCellRendererComponent(list, LanguageManager.getString(key), index,
+                        isSelected, cellHasFocus);
+            }
+        });
+        rateLimitModeBox.setMaximumSize(rateLimitModeBox.getPreferredSize());
+        rateLimitModeBox.setToolTipText("Cap the load each run puts on its database; can be changed while running");
+        rateLimitModeBox.addActionListener(e -> rateLimitChanged());
+        toolbar.add(rateLimitModeBox);
+        rateLimitSpinner = new JSpinner(new SpinnerNumberModel(100.0, 1.0, 1_000_000.0, 10.0));
+        rateLimitSpinner.setMaximumSize(new Dimension(90, rateLimitModeBox.getPreferredSize().height));
+        rateLimitSpinner.addChangeListener(e -> rateLimitChanged());
+        toolbar.add(rateLimitSpinner);
+        showRateLimit();
+
         // Add components to the frame
         getContentPane().setLayout(new BorderLayout());
         getContentPane().add(toolbar, BorderLayout.NORTH);
         getContentPane().add(mainSplitPane, BorderLayout.CENTER);
+        getContentPane().add(createStatusBar(), BorderLayout.SOUTH);
 
         // Add window listener for checking unsaved changes on exit
         addWindowListener(new java.awt.event.WindowAdapter() {
@@ -128,6 +324,66 @@ public class MainFrame extends JFrame {
         });
     }
 
+    private JPanel createStatusBar() {
+        JPanel statusBar = new JPanel(new BorderLayout());
+        statusBar.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+        statusLabel = new JLabel(LanguageManager.getString("statusbar.ready"));
+        memoryLabel = new JLabel();
+        statusBar.add(statusLabel, BorderLayout.WEST);
+        statusBar.add(memoryLabel, BorderLayout.EAST);
+
+        updateMemoryStatus();
+        new Timer(1000, e -> updateMemoryStatus()).start();
+        return statusBar;
+    }
+
+    private void updateMemoryStatus() {
+        MemoryBudget budget = MemoryBudget.getInstance();
+        long mb = 1024 * 1024;
+        Runtime runtime = Runtime.getRuntime();
+        memoryLabel.setText(String.format("%s%d / %d MB (files %d, fetch %d, log %d, cache %d) \u00b7 heap %d / %d MB",
+                LanguageManager.getString("statusbar.memory"),
+                budget.getUsed() / mb, budget.getBudget() / mb,
+                budget.getUsed(MemoryBudget.Category.FILES) / mb, budget.getUsed(MemoryBudget.Category.FETCH) / mb,
+                budget.getUsed(MemoryBudget.Category.LOG) / mb, budget.getUsed(MemoryBudget.Category.CACHE) / mb,
+                (runtime.totalMemory() - runtime.freeMemory()) / mb, runtime.maxMemory() / mb));
+        memoryLabel.setForeground(budget.isCritical() ? Color.RED : UIManager.getColor("Label.foreground"));
+    }
+
+    private void showRateLimit() {
+        updatingRateLimit = true;
+        rateLimitModeBox.setSelectedItem(databaseConfig.getRateLimitMode());
+        if (databaseConfig.getRateLimit() >= 1) {
+            rateLimitSpinner.setValue(databaseConfig.getRateLimit());
+        }
+        rateLimitSpinner.setEnabled(databaseConfig.getRateLimitMode() != RateLimiter.Mode.OFF);
+        updatingRateLimit = false;
+    }
+
+    /**
+     * Applies the toolbar's rate limit to the profile and to the run in
+     * progress, if any.
+     */
+    private void rateLimitChanged() {
+        if (updatingRateLimit) {
+            return;
+        }
+        RateLimiter.Mode mode = (RateLimiter.Mode) rateLimitModeBox.getSelectedItem();
+        double limit = ((Number) rateLimitSpinner.getValue()).doubleValue();
+        if (mode == RateLimiter.Mode.BUSY_PERCENT && limit > 100) {
+            // Also fires this listener again with the clamped value
+            rateLimitSpinner.setValue(100.0);
+            return;
+        }
+        rateLimitSpinner.setEnabled(mode != RateLimiter.Mode.OFF);
+        databaseConfig.setRateLimit(mode, limit);
+        ConfigManager.saveConfig(databaseConfig);
+        if (activeRateLimits != null) {
+            activeRateLimits.setLimit(mode, limit);
+            executionPanel.appendText("\nRate limit changed to " + RateLimiter.describe(mode, limit) + "\n");
+        }
+    }
+
     private void openFolder() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
@@ -152,6 +408,18 @@ public class MainFrame extends JFrame {
     }
 
     private void executeSelectedFiles() {
+        runSelectedFiles(false);
+    }
+
+    /**
+     * Validates the selected files in parallel; every statement is checked
+     * and all changes are rolled back.
+     */
+    private void validateSelectedFiles() {
+        runSelectedFiles(true);
+    }
+
+    private void runSelectedFiles(boolean validateOnly) {
         List<File> selectedFiles = fileTreePanel.getSelectedFiles();
 
         if (selectedFiles.isEmpty()) {
@@ -159,30 +427,334 @@ public class MainFrame extends JFrame {
                     "No files selected", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
+        if (!validateOnly && offerPendingResume()) {
+            return;
+        }
+        startRun(selectedFiles, validateOnly, null, null);
+    }
 
-        try {
-            DatabaseManager dbManager = new DatabaseManager(databaseConfig);
-            SQLExecutor executor = new SQLExecutor(dbManager);
+    private void showRunListDialog() {
+        RunListDialog dialog = new RunListDialog(this, fileTreePanel::getSelectedFiles);
+        dialog.setVisible(true);
+
+        RunList runList = dialog.getRunListToRun();
+        if (runList != null && !offerPendingResume()) {
+            // Saved order and options are used as they are; nothing is scanned or sorted
+            startRun(runList.getFiles(), false, runList, null);
+        }
+    }
+
+    /**
+     * Offers to resume a failed or stopped run before a new run replaces its
+     * journal.
+     *
+     * @return true if the new run should not start
+     */
+    private boolean offerPendingResume() {
+        CheckpointJournal interrupted = CheckpointJournal.findInterrupted();
+        return interrupted != null && offerResume(interrupted);
+    }
+
+    /**
+     * Asks whether to continue a run that was interrupted, from the last
+     * statement its journal shows as committed.
+     *
+     * @return true if the run was resumed or the question dismissed, false if
+     * there was nothing to resume or the checkpoint was discarded
+     */
+    private boolean offerResume(CheckpointJournal journal) {
+        List<File> remaining = journal.getRemainingFiles();
+        if (remaining.isEmpty()) {
+            CheckpointJournal.discard();
+            return false;
+        }
+        File next = remaining.get(0);
+        StringBuilder message = new StringBuilder(String.format(LanguageManager.getString("resume.prompt"),
+                journal.getFiles().size() - remaining.size(), journal.getFiles().size(), next.getName(),
+                journal.getStartIndex(next.getAbsolutePath()) + 1));
+        List<String> changed = new ArrayList<>();
+        for (File file : remaining) {
+            if (journal.isChanged(file)) {
+                changed.add(file.getName());
+            }
+        }
+        if (!changed.isEmpty()) {
+            message.append(LanguageManager.getString("resume.changed")).append('\n').append(String.join(", ", changed));
+        }
+
+        int choice = JOptionPane.showConfirmDialog(this, message.toString(),
+                LanguageManager.getString("resume.title"), JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (choice == JOptionPane.NO_OPTION) {
+            CheckpointJournal.discard();
+            return false;
+        }
+        if (choice != JOptionPane.YES_OPTION) {
+            return true;
+        }
+
+        RunList runList = null;
+        if (journal.getRunListName() != null) {
+            try {
+                RunList saved = RunListStore.load(journal.getRunListName());
+                if (saved != null) {
+                    List<RunList.Entry> entries = new ArrayList<>();
+                    for (RunList.Entry entry : saved.getEntries()) {
+                        if (remaining.contains(entry.getFile())) {
+                            entries.add(entry);
+                        }
+                    }
+                    runList = new RunList(saved.getName(), saved.getCreatedAt(), entries);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to load run list " + journal.getRunListName() + ": " + e.getMessage());
+            }
+        }
+        parallelCheckBox.setSelected(journal.isParallel());
+        startRun(runList != null ? runList.getFiles() : remaining, false, runList, journal);
+        return true;
+    }
+
+    private void stopRun() {
+        if (activeCancellation != null) {
+            activeCancellation.cancel();
+            stopButton.setEnabled(false);
+            executionPanel.appendText("\nStopping...\n");
+        }
+    }
 
-            executionPanel.clear();
-            executionPanel.appendText("Starting SQL execution...\n");
+    /**
+     * @param runList       when not null, the files are run in its order with its per-file options
+     * @param resumeJournal when not null, the journal of the interrupted run being continued
+     */
+    private void startRun(List<File> selectedFiles, boolean validateOnly, RunList runList,
+                          CheckpointJournal resumeJournal) {
+        NoticeMonitor noticeMonitor = new NoticeMonitor();
+        long runDeadline = databaseConfig.getRunTimeout() > 0
+                ? System.currentTimeMillis() + databaseConfig.getRunTimeout() * 1000L : 0;
+        BatchProgressTracker tracker = new BatchProgressTracker(selectedFiles);
+        AdaptiveController adaptiveController = databaseConfig.isAdaptiveTuning() && !validateOnly
+                ? new AdaptiveController(1, databaseConfig.getMaxBatchSize(), 1, databaseConfig.getMaxConnections())
+                : null;
+        RateLimiter.Group rateLimits = validateOnly ? null
+                : new RateLimiter.Group(databaseConfig.getRateLimitMode(), databaseConfig.getRateLimit());
+        activeRateLimits = rateLimits;
+        RunCancellation cancellation = new RunCancellation();
+        activeCancellation = cancellation;
+        // Options are read once here on the EDT; executors are set up later on worker threads
+        DatabaseConfig config = databaseConfig;
+        boolean profile = profileCheckBox.isSelected() && !validateOnly;
+        boolean changedOnly = changedOnlyCheckBox.isSelected() && !validateOnly;
+        boolean commitEach = commitEachCheckBox.isSelected();
+        // Validation has no side effects, so files can always be checked concurrently
+        boolean parallel = runList == null && (validateOnly || parallelCheckBox.isSelected());
+        // Profiled changes are rolled back, so like validation there is nothing to resume
+        CheckpointJournal journal = validateOnly || profile ? null
+                : openJournal(selectedFiles, runList, parallel, resumeJournal);
+        // Coalesce progress events so at most one repaint is queued on the EDT
+        AtomicBoolean refreshQueued = new AtomicBoolean();
+        Consumer<SQLExecutor> executorSetup = executor -> {
+            executor.setProfilingEnabled(profile);
+            executor.setValidateOnly(validateOnly);
+            executor.setNoticeMonitor(noticeMonitor);
+            executor.setRunDeadline(runDeadline);
+            executor.setAdaptiveController(adaptiveController);
+            executor.setRateLimits(rateLimits);
+            executor.setCheckpointJournal(journal);
+            executor.setCancellation(cancellation);
+            executor.setChangedOnly(changedOnly);
+            if (runList == null) {
+                // Run list entries keep their own transaction mode
+                executor.setSingleTransaction(!commitEach);
+            }
+            executor.setProgressListener(progress -> {
+                tracker.update(progress);
+                if (progress.isComplete() || refreshQueued.compareAndSet(false, true)) {
+                    SwingUtilities.invokeLater(() -> {
+                        refreshQueued.set(false);
+                        executionPanel.updateProgress(progress.isComplete());
+                    });
+                }
+            });
+        };
+        if (parallel) {
+            tracker.setParallelism(databaseConfig.getMaxConnections());
+        }
 
-            List<SQLFile> sqlFiles = selectedFiles.stream()
-                    .map(SQLFile::new)
-                    .collect(Collectors.toList());
+        executionPanel.clear();
+        executionPanel.appendText(validateOnly ? "Starting SQL validation...\n" : "Starting SQL execution...\n");
+        if (runList != null) {
+            executionPanel.appendText("Running run list \"" + runList.getName() + "\"\n");
+        }
+        if (resumeJournal != null) {
+            executionPanel.appendText("Resuming the interrupted run with " + selectedFiles.size() + " files left\n");
+        }
+        if (parallel) {
+            executionPanel.appendText("Running in parallel on " + ExecutionBackend.best().getName() + "\n");
+        }
+        if (rateLimits != null && databaseConfig.getRateLimitMode() != RateLimiter.Mode.OFF) {
+            executionPanel.appendText("Rate limit: " + RateLimiter.describe(databaseConfig.getRateLimitMode(),
+                    databaseConfig.getRateLimit()) + " per target\n");
+        }
+        executionPanel.startBatch(tracker);
+        executionPanel.setNoticeMonitor(noticeMonitor);
+        executeButton.setEnabled(false);
+        validateButton.setEnabled(false);
+        runListsButton.setEnabled(false);
+        stopButton.setEnabled(true);
+        statusLabel.setText(LanguageManager.getString("statusbar.executing"));
+
+        // Run off the EDT so the progress bars can repaint while statements execute
+        SwingWorker<Boolean, ExecutionResult> worker = new SwingWorker<Boolean, ExecutionResult>() {
+            /**
+             * @return true if every file ran and succeeded
+             */
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                List<ExecutionResult> results;
+                if (runList != null) {
+                    results = new RunListExecutor(config, executorSetup)
+                            .execute(runList, result -> publish(result));
+                } else {
+                    SQLExecutor executor = new SQLExecutor(new DatabaseManager(config));
+                    executorSetup.accept(executor);
+                    if (parallel) {
+                        ParallelExecutor parallelExecutor = new ParallelExecutor(ExecutionBackend.best(),
+                                target -> executor);
+                        results = parallelExecutor.execute(selectedFiles, Collections.singletonList(config),
+                                result -> publish(result));
+                    } else {
+                        // Read and split upcoming files while the current one executes
+                        ExecutionPipeline pipeline = new ExecutionPipeline(executor);
+                        results = pipeline.execute(selectedFiles, result -> publish(result));
+                    }
+                }
+                for (ExecutionResult result : results) {
+                    if (!result.isSuccess()) {
+                        return false;
+                    }
+                }
+                return results.size() == selectedFiles.size() && !cancellation.isCancelled();
+            }
+
+            @Override
+            protected void process(List<ExecutionResult> results) {
+                StringBuilder text = new StringBuilder();
+                for (ExecutionResult result : results) {
+                    text.append('\n');
+                    ResultFormatter.appendTo(text, result);
+                }
+                executionPanel.appendText(text.toString());
+            }
 
-            for (SQLFile sqlFile : sqlFiles) {
-                ExecutionResult result = executor.execute(sqlFile);
-                executionPanel.appendText("\n" + result.toString() + "\n");
+            @Override
+            protected void done() {
+                executionPanel.finishBatch();
+                noticeMonitor.close();
+                activeRateLimits = null;
+                activeCancellation = null;
+                executeButton.setEnabled(true);
+                validateButton.setEnabled(true);
+                runListsButton.setEnabled(true);
+                stopButton.setEnabled(false);
+                statusLabel.setText(LanguageManager.getString("statusbar.ready"));
+                boolean succeeded = false;
+                try {
+                    succeeded = get();
+                    if (adaptiveController != null) {
+                        executionPanel.appendText("\nAdaptive tuning: " + adaptiveController);
+                    }
+                    if (rateLimits != null && rateLimits.getWaitedMillis() > 0) {
+                        executionPanel.appendText("\nRate limit held statements back for "
+                                + rateLimits.getWaitedMillis() + " ms");
+                    }
+                    executionPanel.appendText(cancellation.isCancelled() ? "\nExecution stopped."
+                            : validateOnly ? "\nValidation completed." : "\nExecution completed.");
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Error: " + cause.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
+                    executionPanel.appendText("\nError: " + cause.getMessage());
+                }
+                if (journal != null) {
+                    if (succeeded) {
+                        // Every file finished, so there is nothing to resume
+                        journal.finish();
+                    } else {
+                        journal.close();
+                        executionPanel.appendText("\nThe checkpoint was kept; the next run offers to resume "
+                                + "from where this one stopped.");
+                    }
+                }
             }
+        };
+
+        worker.execute();
+    }
 
-            executionPanel.appendText("\nExecution completed.");
+    private static CheckpointJournal openJournal(List<File> files, RunList runList, boolean parallel,
+                                                 CheckpointJournal resumeJournal) {
+        try {
+            if (resumeJournal != null) {
+                resumeJournal.resume();
+                return resumeJournal;
+            }
+            return CheckpointJournal.start(files, runList != null ? runList.getName() : null, parallel);
+        } catch (IOException e) {
+            System.err.println("Failed to open checkpoint journal: " + e.getMessage());
+            return null;
+        }
+    }
 
-        } catch (Exception e) {
+    private void exportQuery() {
+        String query = editorPanel.getTextArea().getSelectedText();
+        if (query == null || query.trim().isEmpty()) {
+            // Fall back to the last query in the editor
+            query = null;
+            for (SQLStatement statement : SQLStatementSplitter.split(editorPanel.getTextArea().getText())) {
+                if (statement.getKind() == StatementKind.QUERY) {
+                    query = statement.getSql();
+                }
+            }
+        }
+        if (query == null) {
             JOptionPane.showMessageDialog(this,
-                    "Error: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
-            executionPanel.appendText("\nError: " + e.getMessage());
+                    "No query to export", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle(LanguageManager.getString("mainwindow.exportButton"));
+        fileChooser.setSelectedFile(new File("export.csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File target = fileChooser.getSelectedFile();
+        String exportQuery = query;
+
+        executionPanel.appendText("\nExporting to " + target.getAbsolutePath() + "...\n");
+        SwingWorker<Long, Void> worker = new SwingWorker<Long, Void>() {
+            private final long startTime = System.currentTimeMillis();
+
+            @Override
+            protected Long doInBackground() throws Exception {
+                try (Connection conn = new DatabaseManager(databaseConfig).getConnection()) {
+                    return new ResultExporter().export(conn, exportQuery, target);
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    long rows = get();
+                    executionPanel.appendText("Export completed" + (rows >= 0 ? ": " + rows + " rows" : "")
+                            + " in " + (System.currentTimeMillis() - startTime) + " ms\n");
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    executionPanel.appendText("Export failed: " + cause.getMessage() + "\n");
+                }
+            }
+        };
+        worker.execute();
     }
 
     private void showConfigDialog() {
@@ -193,6 +765,17 @@ public class MainFrame extends JFrame {
             this.databaseConfig = dialog.getDatabaseConfig();
             // Save the configuration whenever it's updated
             ConfigManager.saveConfig(this.databaseConfig);
+            attachMetadataCache();
         }
     }
+
+    /**
+     * Points editor completion at the current profile and refreshes its
+     * schema metadata in the background.
+     */
+    private void attachMetadataCache() {
+        MetadataCache metadataCache = MetadataCache.forConfig(databaseConfig);
+        editorPanel.setMetadataCache(metadataCache);
+        metadataCache.refreshAsync();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.sqlexecutor.ui;
+
+import com.sqlexecutor.model.PerformanceSummary;
+import com.sqlexecutor.ui.i18n.LanguageManager;
+import com.sqlexecutor.util.PerformanceHistory;
+import com.sqlexecutor.util.ResultFormatter;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows how recurring scripts have performed across runs: percentiles over
+ * the last 30 days, the recent week against the baseline before it, a weekly
+ * trend, and regressions highlighted.
+ */
+public class PerformanceReportDialog extends JDialog {
+    private final ReportTableModel model = new ReportTableModel();
+    private final JTable table = new JTable(model);
+    private final JCheckBox statementsCheckBox = new JCheckBox(LanguageManager.getString("report.statements"));
+    private final JCheckBox regressionsCheckBox = new JCheckBox(LanguageManager.getString("report.regressionsOnly"));
+    private final JLabel summaryLabel = new JLabel(LanguageManager.getString("report.loading"));
+    private List<PerformanceSummary> summaries = new ArrayList<>();
+
+    public PerformanceReportDialog(Frame owner) {
+        super(owner, LanguageManager.getString("report.title"), true);
+
+        initializeUI();
+        load();
+        setSize(1000, 500);
+        setLocationRelativeTo(owner);
+    }
+
+    private void initializeUI() {
+        table.getColumnModel().getColumn(0).setPreferredWidth(220);
+        table.getColumnModel().getColumn(1).setPreferredWidth(360);
+        DefaultTableCellRenderer renderer = new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                           boolean hasFocus, int row, int column) {
+                Component component = super.getTableCellRendererComponent(table, value, isSelected, hasFocus,
+                        row, column);
+                PerformanceSummary summary = model.rows.get(table.convertRowIndexToModel(row));
+                if (!isSelected) {
+                    component.setForeground(summary.isRegression() ? Color.RED : table.getForeground());
+                }
+                return component;
+            }
+        };
+        table.setDefaultRenderer(Object.class, renderer);
+        table.setDefaultRenderer(Long.class, renderer);
+
+        statementsCheckBox.addActionListener(e -> model.filter());
+        regressionsCheckBox.addActionListener(e -> model.filter());
+        JButton refreshButton = new JButton(LanguageManager.getString("report.refresh"));
+        refreshButton.addActionListener(e -> load());
+        JButton closeButton = new JButton(LanguageManager.getString("runlist.close"));
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        optionsPanel.add(statementsCheckBox);
+        optionsPanel.add(regressionsCheckBox);
+        optionsPanel.add(summaryLabel);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(refreshButton);
+        buttonPanel.add(closeButton);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(optionsPanel, BorderLayout.NORTH);
+        getContentPane().add(new JScrollPane(table), BorderLayout.CENTER);
+        getContentPane().add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Reads the history off the event thread; statements are always loaded
+     * so the filters apply without reading it again.
+     */
+    private void load() {
+        new SwingWorker<List<PerformanceSummary>, Void>() {
+            @Override
+            protected List<PerformanceSummary> doInBackground() {
+                return PerformanceHistory.report(true);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    summaries = get();
+                } catch (Exception e) {
+                    summaries = new ArrayList<>();
+                    System.err.println("Failed to load performance history: " + e.getMessage());
+                }
+                model.filter();
+            }
+        }.execute();
+    }
+
+    private class ReportTableModel extends AbstractTableModel {
+        private final String[] columns = {
+                LanguageManager.getString("report.column.target"),
+                LanguageManager.getString("report.column.name"),
+                LanguageManager.getString("report.column.runs"),
+                "p50",
+                "p95",
+                LanguageManager.getString("report.column.baseline"),
+                LanguageManager.getString("report.column.recent"),
+                LanguageManager.getString("report.column.change"),
+                LanguageManager.getString("report.column.trend")
+        };
+        private List<PerformanceSummary> rows = new ArrayList<>();
+
+        void filter() {
+            List<PerformanceSummary> shown = new ArrayList<>();
+            int regressions = 0;
+            for (PerformanceSummary summary : summaries) {
+                regressions += summary.isRegression() ? 1 : 0;
+                if ((summary.isFile() || statementsCheckBox.isSelected())
+                        && (summary.isRegression() || !regressionsCheckBox.isSelected())) {
+                    shown.add(summary);
+                }
+            }
+            rows = shown;
+            summaryLabel.setText(String.format(LanguageManager.getString("report.summary"),
+                    summaries.size(), regressions));
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 2 ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            PerformanceSummary summary = rows.get(row);
+            switch (column) {
+                case 0:
+                    return summary.getTarget();
+                case 1:
+                    return summary.isFile() ? summary.getFilePath()
+                            : "    " + summary.getLineNumber() + ": " + summary.getStatement();
+                case 2:
+                    return summary.getRuns();
+                case 3:
+                    return ResultFormatter.formatMicros(summary.getP50());
+                case 4:
+                    return ResultFormatter.formatMicros(summary.getP95());
+                case 5:
+                    return ResultFormatter.formatMicros(summary.getBaselineP50());
+                case 6:
+                    return ResultFormatter.formatMicros(summary.getRecentP50());
+                case 7:
+                    return ResultFormatter.formatChange(summary.getChange());
+                default:
+                    return ResultFormatter.formatTrend(summary.getWeeklyP50());
+            }
+        }
+    }
+}
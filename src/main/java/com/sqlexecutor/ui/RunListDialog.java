@@ -0,0 +1,240 @@
+package com.sqlexecutor.ui;
+
+import com.sqlexecutor.model.RunList;
+import com.sqlexecutor.ui.i18n.LanguageManager;
+import com.sqlexecutor.util.RunListStore;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Lists saved run lists, lets per-file options be edited, and creates new
+ * lists from the files checked in the tree.
+ */
+public class RunListDialog extends JDialog {
+    private final Supplier<List<File>> selectedFiles;
+    private final DefaultListModel<String> namesModel = new DefaultListModel<>();
+    private final JList<String> namesList = new JList<>(namesModel);
+    private final EntryTableModel entryModel = new EntryTableModel();
+    private final JTable entryTable = new JTable(entryModel);
+    private RunList current;
+    private RunList runListToRun;
+
+    /**
+     * @param selectedFiles supplies the files checked in the tree, for new lists
+     */
+    public RunListDialog(Frame owner, Supplier<List<File>> selectedFiles) {
+        super(owner, LanguageManager.getString("runlist.title"), true);
+        this.selectedFiles = selectedFiles;
+
+        initializeUI();
+        reloadNames(null);
+        setSize(800, 450);
+        setLocationRelativeTo(owner);
+    }
+
+    private void initializeUI() {
+        namesList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        namesList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showRunList(namesList.getSelectedValue());
+            }
+        });
+
+        JComboBox<RunList.TransactionMode> modeBox = new JComboBox<>(RunList.TransactionMode.values());
+        entryTable.getColumnModel().getColumn(2).setCellEditor(new DefaultCellEditor(modeBox));
+        entryTable.getColumnModel().getColumn(0).setMaxWidth(40);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(namesList), new JScrollPane(entryTable));
+        splitPane.setDividerLocation(180);
+
+        JButton newButton = new JButton(LanguageManager.getString("runlist.new"));
+        newButton.addActionListener(e -> createFromSelection());
+        JButton saveButton = new JButton(LanguageManager.getString("runlist.save"));
+        saveButton.addActionListener(e -> saveCurrent());
+        JButton deleteButton = new JButton(LanguageManager.getString("runlist.delete"));
+        deleteButton.addActionListener(e -> deleteCurrent());
+        JButton runButton = new JButton(LanguageManager.getString("runlist.run"));
+        runButton.addActionListener(e -> runCurrent());
+        JButton closeButton = new JButton(LanguageManager.getString("runlist.close"));
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(newButton);
+        buttonPanel.add(saveButton);
+        buttonPanel.add(deleteButton);
+        buttonPanel.add(runButton);
+        buttonPanel.add(closeButton);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(splitPane, BorderLayout.CENTER);
+        getContentPane().add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * @return the run list the user chose to run, or null if the dialog was closed
+     */
+    public RunList getRunListToRun() {
+        return runListToRun;
+    }
+
+    private void reloadNames(String select) {
+        namesModel.clear();
+        for (String name : RunListStore.list()) {
+            namesModel.addElement(name);
+        }
+        if (select != null) {
+            namesList.setSelectedValue(select, true);
+        } else if (!namesModel.isEmpty()) {
+            namesList.setSelectedIndex(0);
+        }
+    }
+
+    private void showRunList(String name) {
+        current = null;
+        if (name != null) {
+            try {
+                current = RunListStore.load(name);
+            } catch (IOException e) {
+                showError(e.getMessage());
+            }
+        }
+        entryModel.fireTableDataChanged();
+    }
+
+    private void createFromSelection() {
+        List<File> files = selectedFiles.get();
+        if (files.isEmpty()) {
+            showError("No files selected");
+            return;
+        }
+        String name = JOptionPane.showInputDialog(this, LanguageManager.getString("runlist.name_prompt"));
+        if (name == null || name.trim().isEmpty()) {
+            return;
+        }
+        try {
+            RunListStore.save(RunListStore.create(name.trim(), files));
+            reloadNames(name.trim());
+        } catch (IOException | IllegalArgumentException e) {
+            showError(e.getMessage());
+        }
+    }
+
+    private void saveCurrent() {
+        if (current == null) {
+            return;
+        }
+        if (entryTable.isEditing()) {
+            entryTable.getCellEditor().stopCellEditing();
+        }
+        try {
+            RunListStore.save(current);
+        } catch (IOException e) {
+            showError(e.getMessage());
+        }
+    }
+
+    private void deleteCurrent() {
+        if (current == null) {
+            return;
+        }
+        int choice = JOptionPane.showConfirmDialog(this,
+                "Delete run list \"" + current.getName() + "\"?", "Confirm", JOptionPane.YES_NO_OPTION);
+        if (choice == JOptionPane.YES_OPTION) {
+            RunListStore.delete(current.getName());
+            reloadNames(null);
+        }
+    }
+
+    private void runCurrent() {
+        if (current == null) {
+            return;
+        }
+        saveCurrent();
+        runListToRun = current;
+        dispose();
+    }
+
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(this, message,
+                LanguageManager.getString("general.error"), JOptionPane.ERROR_MESSAGE);
+    }
+
+    private class EntryTableModel extends AbstractTableModel {
+        private final String[] columns = {
+                "#",
+                LanguageManager.getString("runlist.column.file"),
+                LanguageManager.getString("runlist.column.transaction"),
+                LanguageManager.getString("runlist.column.timeout"),
+                LanguageManager.getString("runlist.column.target")
+        };
+
+        @Override
+        public int getRowCount() {
+            return current == null ? 0 : current.getEntries().size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 0:
+                case 3:
+                    return Integer.class;
+                case 2:
+                    return RunList.TransactionMode.class;
+                default:
+                    return String.class;
+            }
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column >= 2;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            RunList.Entry entry = current.getEntries().get(row);
+            switch (column) {
+                case 0:
+                    return row + 1;
+                case 1:
+                    return entry.getFile().getPath();
+                case 2:
+                    return entry.getTransactionMode();
+                case 3:
+                    return entry.getTimeout();
+                default:
+                    return entry.getTarget();
+            }
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            RunList.Entry entry = current.getEntries().get(row);
+            if (column == 2 && value instanceof RunList.TransactionMode) {
+                entry.setTransactionMode((RunList.TransactionMode) value);
+            } else if (column == 3 && value instanceof Integer) {
+                entry.setTimeout(Math.max((Integer) value, 0));
+            } else if (column == 4) {
+                entry.setTarget(value == null ? "" : value.toString());
+            }
+        }
+    }
+}
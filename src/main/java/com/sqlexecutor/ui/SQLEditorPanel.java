@@ -2,6 +2,7 @@ package com.sqlexecutor.ui;
 
 import com.sqlexecutor.model.SQLFile;
 import com.sqlexecutor.ui.i18n.LanguageManager;
+import com.sqlexecutor.util.MetadataCache;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
 import org.fife.ui.rtextarea.RTextScrollPane;
@@ -9,20 +10,37 @@ import org.fife.ui.rtextarea.RTextScrollPane;
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultEditorKit;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
-
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Tabbed SQL editor. Every opened file gets a tab with its own editor, so
+ * switching between files keeps each one's text, highlighting, caret and
+ * undo history. Loaded editors are bounded by a {@link DocumentCache}: the
+ * least recently viewed unmodified tabs are unloaded and read again from
+ * disk when selected.
+ */
 public class SQLEditorPanel extends JPanel {
-    private RSyntaxTextArea textArea;
+    private JTabbedPane tabs;
     private JLabel fileNameLabel;
-    private SQLFile currentFile;
-    private boolean modified = false;
     private JButton saveButton;
+    private JLabel placeholder;
+    private MetadataCache metadataCache;
+    private final DocumentCache documentCache = new DocumentCache();
+    // Returned by getTextArea while no file is open
+    private RSyntaxTextArea emptyTextArea;
+
+    // Candidates shown in the completion popup
+    private static final int MAX_COMPLETIONS = 50;
 
     public SQLEditorPanel() {
         setLayout(new BorderLayout());
@@ -35,48 +53,6 @@ public class SQLEditorPanel extends JPanel {
         fileNameLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         fileNameLabel.setFont(fileNameLabel.getFont().deriveFont(Font.BOLD));
 
-        // Create RSyntaxTextArea for SQL syntax highlighting
-        textArea = new RSyntaxTextArea(20, 60);
-        textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_SQL);
-        textArea.setCodeFoldingEnabled(true);
-        textArea.setAntiAliasingEnabled(true);
-        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        textArea.setTabSize(2);
-
-        // Add SQL-specific enhancements
-        textArea.setMarkOccurrences(true);
-        textArea.setMarkOccurrencesDelay(500);
-        textArea.setPaintTabLines(true);
-        textArea.setAutoIndentEnabled(true);
-
-        // Add document listener to track modifications
-        textArea.getDocument().addDocumentListener(new DocumentListener() {
-            @Override
-            public void insertUpdate(DocumentEvent e) {
-                setModified(true);
-            }
-
-            @Override
-            public void removeUpdate(DocumentEvent e) {
-                setModified(true);
-            }
-
-            @Override
-            public void changedUpdate(DocumentEvent e) {
-                setModified(true);
-            }
-        });
-
-        // Allow editing
-        textArea.setEditable(true);
-
-        // Add keyboard shortcuts for common operations
-        addEditorShortcuts();
-
-        // Create a RTextScrollPane for the editor (special scrollpane for RSyntaxTextArea)
-        RTextScrollPane scrollPane = new RTextScrollPane(textArea);
-        scrollPane.setFoldIndicatorEnabled(true);
-
         // Build a simple toolbar with buttons
         JToolBar toolbar = new JToolBar();
         toolbar.setFloatable(false);
@@ -100,7 +76,8 @@ public class SQLEditorPanel extends JPanel {
         JButton wrapButton = new JButton(LanguageManager.getString("mainwindow.wrap"));
         wrapButton.setIcon(UIManager.getIcon("FileChooser.detailsViewIcon"));
         wrapButton.setMnemonic(KeyEvent.VK_W); // Alt + W
-        wrapButton.addActionListener(e -> textArea.setLineWrap(!textArea.getLineWrap()));
+        wrapButton.addActionListener(e -> getTextArea().setLineWrap(!getTextArea().getLineWrap()));
+        wrapButton.setToolTipText("Toggle line wrap in the current tab");
 
 //        toolbar.add(copyButton);
         // Add separator
@@ -112,12 +89,123 @@ public class SQLEditorPanel extends JPanel {
         topPanel.add(fileNameLabel, BorderLayout.CENTER);
         topPanel.add(toolbar, BorderLayout.EAST);
 
+        // The editors are created when files are opened
+        placeholder = new JLabel(LanguageManager.getString("sqleditor.placeholder"), SwingConstants.CENTER);
+        placeholder.setEnabled(false);
+
+        tabs = new JTabbedPane(JTabbedPane.TOP, JTabbedPane.SCROLL_TAB_LAYOUT);
+        tabs.addChangeListener(e -> tabSelected());
+
         // Add components to panel
         add(topPanel, BorderLayout.NORTH);
-        add(scrollPane, BorderLayout.CENTER);
+        add(placeholder, BorderLayout.CENTER);
+    }
+
+    /**
+     * Shows a file, in its existing tab if it has one. Files are only read
+     * from disk when not already loaded, or when they changed on disk and
+     * have no unsaved edits.
+     */
+    public void openFile(File file) {
+        File absolute = file.getAbsoluteFile();
+        for (int i = 0; i < tabs.getTabCount(); i++) {
+            if (((EditorTab) tabs.getComponentAt(i)).file.equals(absolute)) {
+                tabs.setSelectedIndex(i);
+                return;
+            }
+        }
+        EditorTab tab = new EditorTab(absolute);
+        if (tabs.getTabCount() == 0) {
+            remove(placeholder);
+            add(tabs, BorderLayout.CENTER);
+            revalidate();
+            repaint();
+        }
+        tabs.addTab(absolute.getName(), tab);
+        int index = tabs.indexOfComponent(tab);
+        tabs.setToolTipTextAt(index, absolute.getPath());
+        tabs.setTabComponentAt(index, createTabHeader(tab));
+        tabs.setSelectedIndex(index);
+    }
+
+    private JComponent createTabHeader(EditorTab tab) {
+        JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        header.setOpaque(false);
+        header.add(tab.titleLabel);
+        JButton closeButton = new JButton("\u00d7");
+        closeButton.setToolTipText("Close (Ctrl+W)");
+        closeButton.setBorder(BorderFactory.createEmptyBorder(0, 6, 0, 0));
+        closeButton.setContentAreaFilled(false);
+        closeButton.setFocusable(false);
+        closeButton.addActionListener(e -> closeTab(tab));
+        header.add(closeButton);
+        return header;
+    }
+
+    private void tabSelected() {
+        EditorTab tab = currentTab();
+        if (tab == null) {
+            fileNameLabel.setText("No file selected");
+            saveButton.setEnabled(false);
+            return;
+        }
+        if (!tab.isLoaded() || (!tab.modified && tab.changedOnDisk())) {
+            tab.load();
+        }
+        documentCache.viewed(tab);
+        updateTitle(tab);
+        saveButton.setEnabled(tab.modified);
+    }
+
+    /**
+     * Closes a tab, asking first if it has unsaved changes.
+     *
+     * @return false if the user cancelled
+     */
+    private boolean closeTab(EditorTab tab) {
+        if (tab.modified) {
+            tabs.setSelectedComponent(tab);
+            if (!confirmDiscard(tab)) {
+                return false;
+            }
+        }
+        documentCache.remove(tab);
+        tab.unload();
+        tabs.remove(tab);
+        if (tabs.getTabCount() == 0) {
+            remove(tabs);
+            add(placeholder, BorderLayout.CENTER);
+            revalidate();
+            repaint();
+        }
+        return true;
+    }
+
+    private EditorTab currentTab() {
+        return (EditorTab) tabs.getSelectedComponent();
+    }
+
+    private static RSyntaxTextArea createTextArea() {
+        // Create RSyntaxTextArea for SQL syntax highlighting
+        RSyntaxTextArea textArea = new RSyntaxTextArea(20, 60);
+        textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_SQL);
+        textArea.setCodeFoldingEnabled(true);
+        textArea.setAntiAliasingEnabled(true);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        textArea.setTabSize(2);
+
+        // Add SQL-specific enhancements
+        textArea.setMarkOccurrences(true);
+        textArea.setMarkOccurrencesDelay(500);
+        textArea.setPaintTabLines(true);
+        textArea.setAutoIndentEnabled(true);
+
+        // Allow editing
+        textArea.setEditable(true);
+        return textArea;
     }
 
-    private void addEditorShortcuts() {
+    private void addEditorShortcuts(RSyntaxTextArea textArea) {
         InputMap inputMap = textArea.getInputMap();
         ActionMap actionMap = textArea.getActionMap();
 
@@ -126,7 +214,7 @@ public class SQLEditorPanel extends JPanel {
         Action saveAction = new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (isModified() && currentFile != null) {
+                if (isModified()) {
                     saveCurrentFile();
                 }
             }
@@ -181,60 +269,158 @@ public class SQLEditorPanel extends JPanel {
         };
         inputMap.put(keyStroke, "find");
         actionMap.put("find", findAction);
+
+        // Add Ctrl+Space (Complete identifier)
+        keyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, InputEvent.CTRL_DOWN_MASK);
+        Action completeAction = new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showCompletions();
+            }
+        };
+        inputMap.put(keyStroke, "complete");
+        actionMap.put("complete", completeAction);
+
+        // Add Ctrl+W (Close tab)
+        keyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_W, InputEvent.CTRL_DOWN_MASK);
+        Action closeAction = new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                EditorTab tab = currentTab();
+                if (tab != null) {
+                    closeTab(tab);
+                }
+            }
+        };
+        inputMap.put(keyStroke, "closeTab");
+        actionMap.put("closeTab", closeAction);
     }
 
-    public void setSqlFile(SQLFile sqlFile) {
-        if (checkUnsavedChanges()) {
-            this.currentFile = sqlFile;
-
-            if (sqlFile != null) {
-                fileNameLabel.setText(sqlFile.getAbsolutePath());
-                textArea.setText(sqlFile.getContent());
-                textArea.setCaretPosition(0);
-                setModified(false);
-            } else {
-                fileNameLabel.setText("No file selected");
-                textArea.setText("");
-                setModified(false);
+    /**
+     * Sets the schema metadata used for completion. Lookups only read the
+     * cache, which is loaded in the background.
+     */
+    public void setMetadataCache(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    private void showCompletions() {
+        if (metadataCache == null || currentTab() == null) {
+            return;
+        }
+        RSyntaxTextArea textArea = currentTab().textArea;
+
+        // Walk back over the identifier (and qualifier) under the caret
+        int caret = textArea.getCaretPosition();
+        String text;
+        int start = Math.max(caret - 256, 0);
+        try {
+            text = textArea.getText(start, caret - start);
+        } catch (BadLocationException e) {
+            return;
+        }
+        int wordStart = text.length();
+        while (wordStart > 0 && isIdentifierPart(text.charAt(wordStart - 1))) {
+            wordStart--;
+        }
+        String prefix = text.substring(wordStart);
+        String qualifier = null;
+        if (wordStart > 0 && text.charAt(wordStart - 1) == '.') {
+            int qualifierStart = wordStart - 1;
+            while (qualifierStart > 0 && isIdentifierPart(text.charAt(qualifierStart - 1))) {
+                qualifierStart--;
+            }
+            qualifier = text.substring(qualifierStart, wordStart - 1);
+        }
+
+        List<MetadataCache.Completion> completions = metadataCache.complete(qualifier, prefix, MAX_COMPLETIONS);
+        if (!metadataCache.isLoaded()) {
+            // Never loaded, dropped under memory pressure, or the last refresh failed
+            metadataCache.refreshAsync();
+        }
+        JPopupMenu popup = new JPopupMenu();
+        if (completions.isEmpty()) {
+            JMenuItem item = new JMenuItem(LanguageManager.getString(metadataCache.isLoaded()
+                    ? "sqleditor.completion.none" : "sqleditor.completion.loading"));
+            item.setEnabled(false);
+            popup.add(item);
+        }
+        int replaceFrom = start + wordStart;
+        for (MetadataCache.Completion completion : completions) {
+            JMenuItem item = new JMenuItem(completion.toString());
+            item.addActionListener(e -> {
+                textArea.replaceRange(completion.getName(), replaceFrom, textArea.getCaretPosition());
+                textArea.requestFocusInWindow();
+            });
+            popup.add(item);
+        }
+
+        try {
+            Rectangle location = textArea.modelToView2D(caret).getBounds();
+            popup.show(textArea, location.x, location.y + location.height);
+            if (!completions.isEmpty()) {
+                MenuSelectionManager.defaultManager().setSelectedPath(
+                        new MenuElement[]{popup, (MenuElement) popup.getComponent(0)});
             }
+        } catch (BadLocationException e) {
+            // caret moved away; nothing to show
         }
     }
 
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
     /**
-     * Checks if there are unsaved changes and prompts the user if needed.
+     * Checks every tab for unsaved changes and prompts the user if needed.
      * @return true if it's safe to continue (user saved or chose to discard changes),
      *         false if the operation should be cancelled
      */
     public boolean checkUnsavedChanges() {
-        if (isModified() && currentFile != null) {
-            int choice = JOptionPane.showConfirmDialog(
-                    this,
-                    "The file '" + currentFile.getName() + "' has been modified. Save changes?",
-                    "Unsaved Changes",
-                    JOptionPane.YES_NO_CANCEL_OPTION,
-                    JOptionPane.WARNING_MESSAGE
-            );
-
-            if (choice == JOptionPane.YES_OPTION) {
-                return saveCurrentFile();
-            } else return choice != JOptionPane.CANCEL_OPTION;
+        for (int i = 0; i < tabs.getTabCount(); i++) {
+            EditorTab tab = (EditorTab) tabs.getComponentAt(i);
+            if (tab.modified) {
+                tabs.setSelectedIndex(i);
+                if (!confirmDiscard(tab)) {
+                    return false;
+                }
+            }
         }
         return true;
     }
 
+    private boolean confirmDiscard(EditorTab tab) {
+        int choice = JOptionPane.showConfirmDialog(
+                this,
+                "The file '" + tab.file.getName() + "' has been modified. Save changes?",
+                "Unsaved Changes",
+                JOptionPane.YES_NO_CANCEL_OPTION,
+                JOptionPane.WARNING_MESSAGE
+        );
+
+        if (choice == JOptionPane.YES_OPTION) {
+            return saveCurrentFile();
+        } else return choice != JOptionPane.CANCEL_OPTION;
+    }
+
     /**
-     * Saves the current file
+     * Saves the file in the current tab
      * @return true if save was successful, false otherwise
      */
     public boolean saveCurrentFile() {
-        if (currentFile == null) return false;
+        EditorTab tab = currentTab();
+        if (tab == null) return false;
 
-        try (FileWriter writer = new FileWriter(currentFile.getFile())) {
-            String content = textArea.getText();
+        // Written back in the charset it was read with, so a legacy-encoded script stays readable to other tools
+        try (Writer writer = Files.newBufferedWriter(tab.file.toPath(), tab.sqlFile.getCharset())) {
+            String content = tab.textArea.getText();
             writer.write(content);
+            // Flushed now so the modification time read below is final
+            writer.flush();
 
             // Update content in the SQLFile object
-            currentFile.setContent(content);
+            tab.sqlFile.setContent(content);
+            tab.loadedModified = tab.file.lastModified();
 
             setModified(false);
             return true;
@@ -250,29 +436,133 @@ public class SQLEditorPanel extends JPanel {
     }
 
     public void setModified(boolean modified) {
-        this.modified = modified;
-        saveButton.setEnabled(modified);
-
-        // Update UI to show modified status (optional)
-        if (currentFile != null) {
-            String title = currentFile.getAbsolutePath();
-            if (modified) {
-                title += " *";
-            }
-            fileNameLabel.setText(title);
+        EditorTab tab = currentTab();
+        if (tab != null) {
+            tab.setModified(modified);
+        }
+    }
+
+    private void updateTitle(EditorTab tab) {
+        tab.titleLabel.setText(tab.file.getName() + (tab.modified ? " *" : ""));
+        if (tab == currentTab()) {
+            fileNameLabel.setText(tab.file.getPath() + (tab.modified ? " *" : ""));
+            saveButton.setEnabled(tab.modified);
         }
     }
 
     public boolean isModified() {
-        return modified;
+        EditorTab tab = currentTab();
+        return tab != null && tab.modified;
     }
 
     public SQLFile getCurrentFile() {
-        return currentFile;
+        EditorTab tab = currentTab();
+        return tab != null ? tab.sqlFile : null;
     }
 
-    // Getter for the text area - can be useful if you need to access it from outside
+    /**
+     * @return the editor of the current tab, or an empty one if no file is open
+     */
     public RSyntaxTextArea getTextArea() {
-        return textArea;
+        EditorTab tab = currentTab();
+        if (tab != null) {
+            return tab.textArea;
+        }
+        if (emptyTextArea == null) {
+            emptyTextArea = createTextArea();
+        }
+        return emptyTextArea;
+    }
+
+    /**
+     * One open file. Its editor may be unloaded by the document cache while
+     * the tab stays open; selecting the tab loads it again.
+     */
+    private class EditorTab extends JPanel implements DocumentCache.Entry {
+        private final File file;
+        private final JLabel titleLabel;
+        private SQLFile sqlFile;
+        private RSyntaxTextArea textArea;
+        private boolean modified;
+        // Modification time of the file when it was loaded or saved
+        private long loadedModified;
+
+        EditorTab(File file) {
+            super(new BorderLayout());
+            this.file = file;
+            this.titleLabel = new JLabel(file.getName());
+        }
+
+        boolean isLoaded() {
+            return textArea != null;
+        }
+
+        boolean changedOnDisk() {
+            return file.lastModified() != loadedModified;
+        }
+
+        void load() {
+            removeAll();
+            loadedModified = file.lastModified();
+            sqlFile = new SQLFile(file);
+            textArea = createTextArea();
+            textArea.setText(sqlFile.getContent());
+            textArea.setCaretPosition(0);
+            textArea.discardAllEdits();
+            modified = false;
+
+            // Add document listener to track modifications
+            textArea.getDocument().addDocumentListener(new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent e) {
+                    setModified(true);
+                }
+
+                @Override
+                public void removeUpdate(DocumentEvent e) {
+                    setModified(true);
+                }
+
+                @Override
+                public void changedUpdate(DocumentEvent e) {
+                    setModified(true);
+                }
+            });
+
+            // Add keyboard shortcuts for common operations
+            addEditorShortcuts(textArea);
+
+            // Create a RTextScrollPane for the editor (special scrollpane for RSyntaxTextArea)
+            RTextScrollPane scrollPane = new RTextScrollPane(textArea);
+            scrollPane.setFoldIndicatorEnabled(true);
+            add(scrollPane, BorderLayout.CENTER);
+            revalidate();
+        }
+
+        void setModified(boolean modified) {
+            if (this.modified != modified) {
+                this.modified = modified;
+                updateTitle(this);
+            }
+        }
+
+        @Override
+        public int getLoadedChars() {
+            return textArea == null ? 0 : textArea.getDocument().getLength();
+        }
+
+        @Override
+        public boolean isDirty() {
+            return modified;
+        }
+
+        @Override
+        public void unload() {
+            removeAll();
+            textArea = null;
+            sqlFile = null;
+            modified = false;
+            revalidate();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package com.sqlexecutor.util;
+
+import java.sql.SQLException;
+
+/**
+ * Tunes the JDBC batch size and the number of files executing at once from
+ * what the database is actually delivering, so the same settings work on a
+ * laptop and on a loaded production cluster.
+ *
+ * <p>Both limits are tuned by hill climbing with AIMD steps. The batch size
+ * is judged by the cost per statement of full batches, averaged over a few
+ * batches at each size; concurrency by the statements completed per second
+ * across all files, measured over short windows. While a step makes things
+ * better the next step goes the same way; when it makes them worse the
+ * direction flips. Steps up are additive ({@code sqrt(limit)}) and steps
+ * down multiplicative, so the limits back off quickly and probe upward
+ * carefully. Errors that signal overload (timeouts, serialization failures,
+ * resource exhaustion) halve both limits, at most once per measurement
+ * window so a burst of errors is one signal, and a batch that takes longer than
+ * {@link #MAX_BATCH_MILLIS} is halved so cancellation and progress stay
+ * responsive. Limits never leave the configured bounds.
+ *
+ * <p>One controller is shared by all executors of a run against a target.
+ */
+public class AdaptiveController {
+    // Full batches measured at one size before it is judged
+    private static final int BATCHES_PER_STEP = 4;
+    // Length of a throughput measurement window for concurrency
+    private static final long WINDOW_NANOS = 500_000_000L;
+    // Changes smaller than this are treated as noise, i.e. as no improvement
+    private static final double MIN_IMPROVEMENT = 0.03;
+    private static final double DECREASE = 0.75;
+    private static final long MAX_BATCH_MILLIS = 1000;
+
+    private final Climber batch;
+    private final Climber concurrency;
+    private int inFlight;
+
+    // Current batch size step: full batches seen and their cost per statement
+    private int stepBatches;
+    private double stepNanos;
+
+    // Current concurrency window
+    private long windowStart = System.nanoTime();
+    private long windowStatements;
+    private boolean windowSaturated;
+
+    private long samples;
+    private long overloads;
+    private long lastBackOff = System.nanoTime() - WINDOW_NANOS;
+
+    /**
+     * @param maxBatchSize   largest batch to send; 1 disables batching
+     * @param maxConcurrency most files to execute at once
+     */
+    public AdaptiveController(int minBatchSize, int maxBatchSize, int minConcurrency, int maxConcurrency) {
+        minBatchSize = Math.max(minBatchSize, 1);
+        maxBatchSize = Math.max(maxBatchSize, minBatchSize);
+        minConcurrency = Math.max(minConcurrency, 1);
+        maxConcurrency = Math.max(maxConcurrency, minConcurrency);
+        // Start low and let the measurements raise the limits
+        this.batch = new Climber(Math.min(Math.max(8, minBatchSize), maxBatchSize), minBatchSize, maxBatchSize);
+        this.concurrency = new Climber(Math.min(Math.max(2, minConcurrency), maxConcurrency),
+                minConcurrency, maxConcurrency);
+    }
+
+    /**
+     * @return how many consecutive batchable statements to send together
+     */
+    public synchronized int getBatchSize() {
+        return batch.get();
+    }
+
+    /**
+     * @return how many files may execute at once
+     */
+    public synchronized int getConcurrency() {
+        return concurrency.get();
+    }
+
+    /**
+     * Waits until another file may start executing.
+     *
+     * @return false if interrupted while waiting
+     */
+    public synchronized boolean acquire() {
+        try {
+            while (inFlight >= concurrency.get()) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Records a completed statement or batch.
+     *
+     * @param statements how many statements were sent together
+     * @param nanos      wall time of the round trip
+     */
+    public synchronized void record(int statements, long nanos) {
+        samples++;
+        if (statements > 1 && statements >= batch.get()) {
+            if (nanos > MAX_BATCH_MILLIS * 1_000_000L) {
+                batch.backOff(batch.value / 2);
+                stepBatches = 0;
+                stepNanos = 0;
+            } else {
+                stepNanos += (double) nanos / statements;
+                if (++stepBatches == BATCHES_PER_STEP) {
+                    // Lower cost per statement is better
+                    batch.step(-stepNanos / stepBatches);
+                    stepBatches = 0;
+                    stepNanos = 0;
+                }
+            }
+        }
+
+        windowStatements += statements;
+        windowSaturated |= inFlight >= concurrency.get();
+        long now = System.nanoTime();
+        if (now - windowStart >= WINDOW_NANOS) {
+            // A window where the limit was never reached says nothing about raising it
+            if (windowSaturated || concurrency.direction < 0) {
+                concurrency.step(windowStatements * 1e9 / (now - windowStart));
+                notifyAll();
+            }
+            windowStart = now;
+            windowStatements = 0;
+            windowSaturated = false;
+        }
+    }
+
+    /**
+     * Records a failure; limits are cut only if it indicates overload.
+     */
+    public synchronized void recordFailure(SQLException e) {
+        if (!isOverload(e)) {
+            return;
+        }
+        overloads++;
+        long now = System.nanoTime();
+        if (now - lastBackOff < WINDOW_NANOS) {
+            return;
+        }
+        lastBackOff = now;
+        batch.backOff(batch.value / 2);
+        concurrency.backOff(concurrency.value / 2);
+    }
+
+    static boolean isOverload(SQLException e) {
+        String sqlState = e.getSQLState();
+        if (sqlState == null) {
+            return false;
+        }
+        // 53xxx insufficient resources, 57014 query cancelled (timeouts),
+        // 55P03 lock not available, 40001/40P01 serialization failure and deadlock
+        return sqlState.startsWith("53") || sqlState.equals("57014") || sqlState.equals("55P03")
+                || sqlState.equals("40001") || sqlState.equals("40P01");
+    }
+
+    /**
+     * One limit tuned by hill climbing on a score where higher is better.
+     */
+    private static class Climber {
+        private final int min;
+        private final int max;
+        private double value;
+        private int direction = 1;
+        private double lastScore = Double.NaN;
+
+        Climber(double value, int min, int max) {
+            this.min = min;
+            this.max = max;
+            this.value = value;
+        }
+
+        int get() {
+            return (int) value;
+        }
+
+        /**
+         * Drops to a lower value and probes upward again from there.
+         */
+        void backOff(double newValue) {
+            value = Math.max(min, Math.min(max, newValue));
+            direction = 1;
+            lastScore = Double.NaN;
+        }
+
+        void step(double score) {
+            if (!Double.isNaN(lastScore) && score < lastScore + Math.abs(lastScore) * MIN_IMPROVEMENT) {
+                direction = -direction;
+            }
+            lastScore = score;
+            double next = direction > 0 ? value + Math.sqrt(value) : value * DECREASE;
+            value = Math.max(min, Math.min(max, next));
+            // Pinned at a bound, the only useful probe is away from it
+            if (value <= min) {
+                direction = 1;
+            } else if (value >= max) {
+                direction = -1;
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("batch size %d, %d concurrent files, %d samples, %d overload errors",
+                batch.get(), concurrency.get(), samples, overloads);
+    }
+}
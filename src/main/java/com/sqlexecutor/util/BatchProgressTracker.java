@@ -0,0 +1,157 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.ExecutionProgress;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates per-file progress events into batch progress and estimates the
+ * remaining time. Files that have run before are estimated from
+ * {@link ExecutionHistory}; others are extrapolated from the throughput
+ * observed so far in this batch. Files may complete in any order, so the
+ * tracker also serves parallel runs.
+ */
+public class BatchProgressTracker {
+    private final String[] paths;
+    private final long[] sizes;
+    private final long totalBytes;
+    private final Map<String, Integer> indexByPath = new HashMap<>();
+    private final boolean[] completed;
+    private final ExecutionProgress[] running;
+    private int completedFiles;
+    private long completedBytes;
+    private long completedMillis;
+    private long inFlightBytes;
+    private long inFlightMillis;
+    private int parallelism = 1;
+    private ExecutionProgress current;
+
+    public BatchProgressTracker(List<File> files) {
+        this.paths = new String[files.size()];
+        this.sizes = new long[files.size()];
+        this.completed = new boolean[files.size()];
+        this.running = new ExecutionProgress[files.size()];
+        long total = 0;
+        for (int i = 0; i < files.size(); i++) {
+            paths[i] = files.get(i).getAbsolutePath();
+            sizes[i] = files.get(i).length();
+            indexByPath.putIfAbsent(paths[i], i);
+            total += sizes[i];
+        }
+        this.totalBytes = total;
+    }
+
+    /**
+     * @param parallelism how many files run at once, used to scale the batch estimate
+     */
+    public synchronized void setParallelism(int parallelism) {
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    public synchronized void update(ExecutionProgress progress) {
+        Integer index = indexByPath.get(progress.getFilePath());
+        if (index == null || completed[index]) {
+            return;
+        }
+
+        ExecutionProgress previous = running[index];
+        if (previous != null) {
+            inFlightBytes -= previous.getBytesConsumed();
+            inFlightMillis -= previous.getElapsedMillis();
+        }
+
+        if (progress.isComplete()) {
+            running[index] = null;
+            completed[index] = true;
+            completedFiles++;
+            completedBytes += sizes[index];
+            completedMillis += progress.getElapsedMillis();
+            if (current != null && current.getFilePath().equals(progress.getFilePath())) {
+                current = null;
+            }
+        } else {
+            running[index] = progress;
+            inFlightBytes += progress.getBytesConsumed();
+            inFlightMillis += progress.getElapsedMillis();
+            current = progress;
+        }
+    }
+
+    /**
+     * @return the most recently updated file that is still running, or null
+     */
+    public synchronized ExecutionProgress getCurrent() {
+        return current;
+    }
+
+    public synchronized int getCompletedFiles() {
+        return completedFiles;
+    }
+
+    public int getTotalFiles() {
+        return paths.length;
+    }
+
+    public synchronized double getBatchFraction() {
+        if (totalBytes == 0) {
+            return paths.length == 0 ? 1.0 : (double) completedFiles / paths.length;
+        }
+        return Math.min(1.0, (double) (completedBytes + inFlightBytes) / totalBytes);
+    }
+
+    /**
+     * @return estimated milliseconds left in the current file, or -1 if unknown
+     */
+    public synchronized long estimateFileRemaining() {
+        return current == null ? 0 : estimateRemaining(current);
+    }
+
+    /**
+     * @return estimated milliseconds left in the whole batch, or -1 if unknown
+     */
+    public synchronized long estimateBatchRemaining() {
+        long observedBytes = completedBytes + inFlightBytes;
+        long observedMillis = completedMillis + inFlightMillis;
+        double millisPerByte = observedBytes > 0 ? (double) observedMillis / observedBytes : -1;
+
+        long remaining = 0;
+        for (int i = 0; i < paths.length; i++) {
+            if (completed[i]) {
+                continue;
+            }
+            if (running[i] != null) {
+                long estimate = estimateRemaining(running[i]);
+                if (estimate < 0) {
+                    return -1;
+                }
+                remaining += estimate;
+                continue;
+            }
+            long expected = ExecutionHistory.getExpectedDuration(paths[i]);
+            if (expected >= 0) {
+                remaining += expected;
+            } else if (millisPerByte >= 0) {
+                remaining += Math.round(sizes[i] * millisPerByte);
+            } else {
+                return -1;
+            }
+        }
+        return remaining / parallelism;
+    }
+
+    private static long estimateRemaining(ExecutionProgress progress) {
+        long elapsed = progress.getElapsedMillis();
+        long expected = ExecutionHistory.getExpectedDuration(progress.getFilePath());
+        if (expected > elapsed) {
+            return expected - elapsed;
+        }
+        double fraction = progress.getFraction();
+        if (fraction < 0.01) {
+            return -1;
+        }
+        return Math.round(elapsed * (1 - fraction) / fraction);
+    }
+}
@@ -0,0 +1,397 @@
+package com.sqlexecutor.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Durable record of how far a run has got, so a run that dies halfway
+ * (crash, kill, power loss, the window closed mid-run) can continue where it
+ * stopped instead of re-running work that is already applied.
+ *
+ * <p>The journal is an append-only file at {@code ~/.sqlexecutor/journal.log}.
+ * A run starts it with the list of files, then records every committed
+ * statement and every finished file, and deletes it once every file has
+ * succeeded. A run that failed or was stopped keeps it, so a journal found
+ * later belongs to a run that can be resumed.
+ *
+ * <p>Records are framed as length, payload, CRC-32, so a record torn by a
+ * crash is recognised and everything from it on is ignored. Callers wait for
+ * their record to reach the disk before going on, but the fsync is done by one
+ * writer thread for everything appended since the last one (group commit):
+ * files running in parallel share fsyncs, and a statement never waits for more
+ * than the sync already in progress plus its own.
+ */
+public class CheckpointJournal implements AutoCloseable {
+    private static final File JOURNAL_FILE = new File(ConfigManager.getConfigDir(), "journal.log");
+
+    private static final byte START = 1;
+    private static final byte STATEMENT = 2;
+    private static final byte FILE_DONE = 3;
+
+    private final String runListName;
+    private final boolean parallel;
+    private final List<File> files;
+    // Per file: length and modification time when the run started
+    private final long[] lengths;
+    private final long[] lastModified;
+    private final Map<String, Integer> indexByPath = new HashMap<>();
+    // Statements committed per file, and whether the file finished
+    private final int[] completed;
+    private final boolean[] finished;
+    // End of the last intact record, where a resumed run continues writing
+    private long validLength;
+
+    private FileChannel channel;
+    private Thread writer;
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appendedRecords;
+    private long durableRecords;
+    private IOException writeFailure;
+    private boolean closed;
+
+    private CheckpointJournal(String runListName, boolean parallel, List<File> files, long[] lengths,
+                              long[] lastModified) {
+        this.runListName = runListName;
+        this.parallel = parallel;
+        this.files = files;
+        this.lengths = lengths;
+        this.lastModified = lastModified;
+        this.completed = new int[files.size()];
+        this.finished = new boolean[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            indexByPath.put(files.get(i).getAbsolutePath(), i);
+        }
+    }
+
+    /**
+     * Starts the journal of a new run, replacing any previous one.
+     *
+     * @param runListName the run list being run, or null for a plain selection
+     */
+    public static CheckpointJournal start(List<File> files, String runListName, boolean parallel) throws IOException {
+        List<File> absolute = new ArrayList<>(files.size());
+        long[] lengths = new long[files.size()];
+        long[] lastModified = new long[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i).getAbsoluteFile();
+            absolute.add(file);
+            lengths[i] = file.length();
+            lastModified[i] = file.lastModified();
+        }
+        CheckpointJournal journal = new CheckpointJournal(runListName, parallel, absolute, lengths, lastModified);
+        JOURNAL_FILE.getParentFile().mkdirs();
+        journal.open(true);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(START);
+        out.writeUTF(runListName == null ? "" : runListName);
+        out.writeBoolean(parallel);
+        out.writeInt(absolute.size());
+        for (int i = 0; i < absolute.size(); i++) {
+            out.writeUTF(absolute.get(i).getPath());
+            out.writeLong(lengths[i]);
+            out.writeLong(lastModified[i]);
+        }
+        journal.append(bytes.toByteArray());
+        return journal;
+    }
+
+    /**
+     * @return the journal of a run that did not finish, or null if the last run finished
+     */
+    public static CheckpointJournal findInterrupted() {
+        if (!JOURNAL_FILE.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(JOURNAL_FILE)))) {
+            byte[] payload = readRecord(in);
+            if (payload == null) {
+                return null;
+            }
+            DataInputStream start = new DataInputStream(new ByteArrayInputStream(payload));
+            if (start.readByte() != START) {
+                return null;
+            }
+            String runListName = start.readUTF();
+            boolean parallel = start.readBoolean();
+            int count = start.readInt();
+            List<File> files = new ArrayList<>(count);
+            long[] lengths = new long[count];
+            long[] lastModified = new long[count];
+            for (int i = 0; i < count; i++) {
+                files.add(new File(start.readUTF()));
+                lengths[i] = start.readLong();
+                lastModified[i] = start.readLong();
+            }
+            CheckpointJournal journal = new CheckpointJournal(runListName.isEmpty() ? null : runListName,
+                    parallel, files, lengths, lastModified);
+            journal.validLength = payload.length + 8;
+
+            while ((payload = readRecord(in)) != null) {
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                byte type = record.readByte();
+                int file = record.readInt();
+                if (file < 0 || file >= count) {
+                    break;
+                }
+                journal.validLength += payload.length + 8;
+                if (type == STATEMENT) {
+                    journal.completed[file] = Math.max(journal.completed[file], record.readInt());
+                } else if (type == FILE_DONE) {
+                    journal.finished[file] = true;
+                }
+            }
+            return journal;
+        } catch (IOException e) {
+            System.err.println("Failed to read checkpoint journal: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Forgets an interrupted run.
+     */
+    public static void discard() {
+        JOURNAL_FILE.delete();
+    }
+
+    /**
+     * Continues an interrupted run's journal, appending to what is there.
+     */
+    public void resume() throws IOException {
+        open(false);
+    }
+
+    /**
+     * @return the run list the interrupted run was running, or null
+     */
+    public String getRunListName() {
+        return runListName;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public List<File> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * @return the files that had not finished, in run order
+     */
+    public List<File> getRemainingFiles() {
+        List<File> remaining = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (!finished[i]) {
+                remaining.add(files.get(i));
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * @return how many leading statements of the file are already committed,
+     *         0 if the file changed since the run started
+     */
+    public synchronized int getStartIndex(String path) {
+        Integer index = indexByPath.get(path);
+        if (index == null || finished[index] || isChanged(index)) {
+            return 0;
+        }
+        return completed[index];
+    }
+
+    /**
+     * @return true if the file was partly run and has been edited since
+     */
+    public boolean isChanged(File file) {
+        Integer index = indexByPath.get(file.getAbsolutePath());
+        return index != null && completed[index] > 0 && isChanged(index);
+    }
+
+    private boolean isChanged(int index) {
+        File file = files.get(index);
+        return file.length() != lengths[index] || file.lastModified() != lastModified[index];
+    }
+
+    /**
+     * Records that the first {@code count} statements of a file are
+     * committed, and waits until that is on disk.
+     */
+    public void statementsCommitted(String path, int count) throws IOException {
+        Integer index = indexByPath.get(path);
+        if (index == null) {
+            return;
+        }
+        synchronized (this) {
+            completed[index] = Math.max(completed[index], count);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(STATEMENT);
+        out.writeInt(index);
+        out.writeInt(count);
+        append(bytes.toByteArray());
+    }
+
+    public void fileFinished(String path) throws IOException {
+        Integer index = indexByPath.get(path);
+        if (index == null) {
+            return;
+        }
+        synchronized (this) {
+            finished[index] = true;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(5);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FILE_DONE);
+        out.writeInt(index);
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * Ends a run whose files all succeeded: the journal is removed, since
+     * nothing is left to resume.
+     */
+    public void finish() {
+        close();
+        JOURNAL_FILE.delete();
+    }
+
+    /**
+     * Stops writing, keeping the journal on disk.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            if (writer != null) {
+                writer.join();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Failed to close checkpoint journal: " + e.getMessage());
+        }
+    }
+
+    private void open(boolean truncate) throws IOException {
+        channel = FileChannel.open(JOURNAL_FILE.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // A torn record left by the crash would hide everything written after it
+        channel.truncate(truncate ? 0 : validLength);
+        channel.position(channel.size());
+        writer = new Thread(this::writeLoop, "sql-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a record and waits until the writer has synced it.
+     */
+    private synchronized void append(byte[] payload) throws IOException {
+        if (closed) {
+            throw new IOException("Checkpoint journal is closed");
+        }
+        DataOutputStream out = new DataOutputStream(pending);
+        out.writeInt(payload.length);
+        out.write(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        out.writeInt((int) crc.getValue());
+        long record = ++appendedRecords;
+        notifyAll();
+        try {
+            while (durableRecords < record && writeFailure == null) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing checkpoint");
+        }
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            byte[] batch;
+            long batchEnd;
+            synchronized (this) {
+                try {
+                    while (pending.size() == 0 && !closed) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                // Everything appended while the previous sync ran goes out in this one
+                batch = pending.toByteArray();
+                batchEnd = appendedRecords;
+                pending = new ByteArrayOutputStream();
+            }
+            IOException failure = null;
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+            }
+            synchronized (this) {
+                if (failure != null) {
+                    writeFailure = failure;
+                } else {
+                    durableRecords = batchEnd;
+                }
+                notifyAll();
+            }
+            if (failure != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the record's payload, or null at the end of the journal or at a torn record
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > 1 << 24) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return in.readInt() == (int) crc.getValue() ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
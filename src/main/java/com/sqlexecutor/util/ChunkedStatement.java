@@ -0,0 +1,426 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.SQLStatement;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a large UPDATE or DELETE as a series of small transactions instead of
+ * one, so it neither holds locks for minutes nor builds up WAL and bloat in
+ * one go. A statement opts in with a header comment:
+ *
+ * <pre>
+ * -- chunk-by: id, size: 10000
+ * UPDATE orders SET status = 'archived' WHERE created_at &lt; '2020-01-01';
+ * </pre>
+ *
+ * <p>The key column is walked in order (keyset pagination, so each chunk is
+ * an index range scan rather than an ever-growing OFFSET): the upper bound of
+ * the next chunk is the key {@code size} rows further on, and the statement
+ * runs with its WHERE clause narrowed to that key range and commits. The key
+ * should be unique and indexed. Bounds are found with {@code ORDER BY ...
+ * LIMIT} rather than min/max, which PostgreSQL lacks for types such as uuid.
+ *
+ * <p>After every chunk the last committed key is saved under
+ * {@code ~/.sqlexecutor/chunks}. If the run is interrupted, or a chunk fails,
+ * running the same statement of the same file again continues after that key.
+ * The state is removed once the last chunk commits.
+ */
+public class ChunkedStatement {
+    private static final Pattern DIRECTIVE = Pattern.compile("^--\\s*chunk-by\\s*:(.*)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ARGUMENTS = Pattern.compile("^\\s*(\\S+?)\\s*,\\s*size\\s*:\\s*(\\d{1,9})\\s*$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*|\"(?:[^\"]|\"\")+\"");
+    private static final String STATE_DIR = ConfigManager.getConfigDir() + File.separator + "chunks";
+
+    /**
+     * Told after each committed chunk.
+     */
+    public interface Listener {
+        /**
+         * @param rows     rows affected so far by this run of the statement
+         * @param fraction estimated share of the key range done, or -1 if the key is not numeric
+         */
+        void onChunk(int chunks, long rows, double fraction);
+    }
+
+    private final String key;
+    private final int size;
+    private final String table;
+    private final String qualifiedKey;
+    // Statement text up to the point the key range is appended
+    private final String head;
+    private final File stateFile;
+
+    private ChunkedStatement(String key, int size, String table, String qualifiedKey, String head,
+                             File stateFile) {
+        this.key = key;
+        this.size = size;
+        this.table = table;
+        this.qualifiedKey = qualifiedKey;
+        this.head = head;
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * @return true if the statement carries a chunk-by header, valid or not
+     */
+    public static boolean hasDirective(String sql) {
+        return directive(sql) != null;
+    }
+
+    /**
+     * @param scriptPath the file the statement belongs to, to keep resume state apart
+     * @return the chunked form of the statement, or null if it has no chunk-by header
+     * @throws SQLException if the header is present but the statement cannot be chunked
+     */
+    public static ChunkedStatement parse(SQLStatement statement, String scriptPath) throws SQLException {
+        String sql = statement.getSql();
+        Matcher directive = directive(sql);
+        if (directive == null) {
+            return null;
+        }
+        Matcher arguments = ARGUMENTS.matcher(directive.group(1));
+        String key = arguments.matches() ? arguments.group(1) : "";
+        int size = arguments.matches() ? Integer.parseInt(arguments.group(2)) : 0;
+        if (!IDENTIFIER.matcher(key).matches() || size <= 0) {
+            throw invalid("chunk-by needs a column name and a positive size, e.g. -- chunk-by: id, size: 10000");
+        }
+
+        List<Word> words = topLevelWords(sql);
+        int i = 1;
+        String verb = words.isEmpty() ? "" : words.get(0).upper();
+        if (verb.equals("DELETE")) {
+            if (words.size() < 2 || !words.get(1).upper().equals("FROM")) {
+                throw invalid("chunk-by: expected DELETE FROM");
+            }
+            i = 2;
+        } else if (!verb.equals("UPDATE")) {
+            throw invalid("chunk-by applies only to UPDATE and DELETE statements");
+        }
+        boolean only = i < words.size() && words.get(i).upper().equals("ONLY");
+        if (only) {
+            i++;
+        }
+        if (i >= words.size()) {
+            throw invalid("chunk-by: no table found");
+        }
+        String tableName = words.get(i).text;
+        String alias = null;
+        if (i + 1 < words.size()) {
+            String next = words.get(i + 1).upper();
+            if (next.equals("AS") && i + 2 < words.size()) {
+                alias = words.get(i + 2).text;
+            } else if (!next.equals("SET") && !next.equals("USING") && !next.equals("WHERE")) {
+                alias = words.get(i + 1).text;
+            }
+        }
+
+        Word where = null;
+        for (Word word : words) {
+            String upper = word.upper();
+            if (upper.equals("RETURNING")) {
+                throw invalid("chunk-by cannot be combined with RETURNING");
+            }
+            if (where == null && upper.equals("WHERE")) {
+                where = word;
+            }
+        }
+
+        String qualifiedKey = (alias != null ? alias : tableName) + "." + key;
+        String head;
+        if (where != null) {
+            String condition = sql.substring(where.end).trim();
+            if (condition.toUpperCase(Locale.ROOT).startsWith("CURRENT OF")) {
+                throw invalid("chunk-by cannot be combined with WHERE CURRENT OF");
+            }
+            // The newline keeps a trailing line comment from swallowing the parenthesis
+            head = sql.substring(0, where.end) + " (" + condition + "\n) AND ";
+        } else {
+            head = sql + "\nWHERE ";
+        }
+
+        String stateKey = scriptPath + "\n" + statement.getIndex() + "\n" + sql;
+        File stateFile = new File(STATE_DIR,
+                SplitPlanCache.sha256(stateKey.getBytes(StandardCharsets.UTF_8)) + ".properties");
+        return new ChunkedStatement(key, size, (only ? "ONLY " : "") + tableName, qualifiedKey, head, stateFile);
+    }
+
+    /**
+     * Runs the statement chunk by chunk, each in its own transaction. The
+     * connection must be in autocommit mode.
+     *
+     * @param limiter  throttles chunks, may be null
+     * @param deadline epoch millis after which no new chunk is started, 0 for none
+     * @return rows affected by the chunks run now
+     */
+    public long execute(Statement stmt, ExecutionResult result, RateLimiter limiter, long deadline,
+                        Listener listener) throws SQLException {
+        Connection conn = stmt.getConnection();
+        if (!conn.getAutoCommit()) {
+            throw new SQLException("chunk-by cannot be used inside a transaction", "25001");
+        }
+        int queryTimeout = stmt.getQueryTimeout();
+
+        Properties state = loadState();
+        String type;
+        String lower;
+        boolean inclusive;
+        int chunks = 0;
+        BigDecimal min = null;
+        BigDecimal max = null;
+        if (state != null) {
+            type = state.getProperty("type");
+            lower = state.getProperty("lastKey");
+            inclusive = false;
+            min = decimal(state.getProperty("min"));
+            max = decimal(state.getProperty("max"));
+            result.addWarning(String.format("Resumed chunked statement after %s = %s, %s chunks (%s rows) done before",
+                    key, lower, state.getProperty("chunks"), state.getProperty("rows")));
+        } else {
+            String nonNull = "SELECT " + key + " FROM " + table + " WHERE " + key + " IS NOT NULL ORDER BY " + key;
+            try (ResultSet rs = stmt.executeQuery("SELECT (" + nonNull + " LIMIT 1), (" + nonNull + " DESC LIMIT 1)")) {
+                rs.next();
+                lower = rs.getString(1);
+                if (lower == null) {
+                    return 0;
+                }
+                type = rs.getMetaData().getColumnTypeName(1);
+                if (isNumeric(rs.getMetaData().getColumnType(1))) {
+                    min = rs.getBigDecimal(1);
+                    max = rs.getBigDecimal(2);
+                }
+            }
+            inclusive = true;
+            state = new Properties();
+            state.setProperty("type", type);
+            if (min != null) {
+                state.setProperty("min", min.toString());
+                state.setProperty("max", max.toString());
+            }
+        }
+        long previousRows = Long.parseLong(state.getProperty("rows", "0"));
+        int previousChunks = Integer.parseInt(state.getProperty("chunks", "0"));
+
+        long rows = 0;
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new SQLException("Chunked statement cancelled after " + chunks + " chunks", "57014");
+            }
+            if (deadline > 0 && System.currentTimeMillis() >= deadline) {
+                throw new SQLException("Run timeout reached after " + chunks + " chunks", "57014");
+            }
+
+            String op = inclusive ? " >= " : " > ";
+            String after = "SELECT " + key + " FROM " + table + " WHERE " + key + op + "CAST(? AS " + type + ")"
+                    + " ORDER BY " + key;
+            String upper = queryKey(conn, after + " OFFSET " + (size - 1) + " LIMIT 1", lower, queryTimeout);
+            if (upper == null) {
+                // Fewer than size rows left: the last chunk ends at the last key
+                upper = queryKey(conn, after + " DESC LIMIT 1", lower, queryTimeout);
+            }
+            if (upper == null) {
+                break;
+            }
+
+            if (limiter != null && limiter.acquire(1) < 0) {
+                throw new SQLException("Interrupted while waiting for the rate limit", "57014");
+            }
+            long chunkStart = System.nanoTime();
+            long chunkRows;
+            try (PreparedStatement update = conn.prepareStatement(head + qualifiedKey + op + "CAST(? AS " + type
+                    + ") AND " + qualifiedKey + " <= CAST(? AS " + type + ")")) {
+                update.setQueryTimeout(queryTimeout);
+                update.setString(1, lower);
+                update.setString(2, upper);
+                chunkRows = Math.max(update.executeUpdate(), 0);
+            }
+            if (limiter != null) {
+                limiter.completed(chunkRows, System.nanoTime() - chunkStart);
+            }
+
+            rows += chunkRows;
+            chunks++;
+            lower = upper;
+            inclusive = false;
+            state.setProperty("lastKey", lower);
+            state.setProperty("chunks", String.valueOf(previousChunks + chunks));
+            state.setProperty("rows", String.valueOf(previousRows + rows));
+            saveState(state);
+            if (listener != null) {
+                listener.onChunk(chunks, rows, fraction(min, max, lower));
+            }
+        }
+
+        stateFile.delete();
+        result.addNotice(String.format("Chunked by %s in %d chunks of up to %d rows, %d rows affected",
+                key, previousChunks + chunks, size, previousRows + rows));
+        return rows;
+    }
+
+    /**
+     * @return the key the query selects, or null if it finds no row
+     */
+    private static String queryKey(Connection conn, String sql, String lower, int queryTimeout) throws SQLException {
+        try (PreparedStatement bound = conn.prepareStatement(sql)) {
+            bound.setQueryTimeout(queryTimeout);
+            bound.setString(1, lower);
+            try (ResultSet rs = bound.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private static Matcher directive(String sql) {
+        // Only the comment lines ahead of the statement are searched
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            int end = sql.indexOf('\n', i);
+            end = end < 0 ? length : end;
+            String line = sql.substring(i, end).trim();
+            if (!line.isEmpty()) {
+                if (!line.startsWith("--")) {
+                    return null;
+                }
+                Matcher matcher = DIRECTIVE.matcher(line);
+                if (matcher.matches()) {
+                    return matcher;
+                }
+            }
+            i = end + 1;
+        }
+        return null;
+    }
+
+    private static SQLException invalid(String message) {
+        return new SQLException(message, "42601");
+    }
+
+    private static double fraction(BigDecimal min, BigDecimal max, String current) {
+        if (min == null || max == null || max.compareTo(min) <= 0) {
+            return -1;
+        }
+        BigDecimal done = new BigDecimal(current).subtract(min);
+        return Math.min(1.0, done.doubleValue() / max.subtract(min).doubleValue());
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Properties loadState() {
+        if (!stateFile.exists()) {
+            return null;
+        }
+        Properties state = new Properties();
+        try (InputStream in = new FileInputStream(stateFile)) {
+            state.load(in);
+        } catch (IOException e) {
+            System.err.println("Failed to read chunk state " + stateFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+        return state.getProperty("lastKey") != null && state.getProperty("type") != null ? state : null;
+    }
+
+    private void saveState(Properties state) {
+        new File(STATE_DIR).mkdirs();
+        File temp = new File(stateFile.getPath() + ".tmp");
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                state.store(out, "Chunked statement progress");
+            }
+            Files.move(temp.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // The chunk is committed either way; only resuming is affected
+            System.err.println("Failed to save chunk state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Words outside parentheses, strings and comments, with dotted and
+     * quoted names kept together.
+     */
+    private static List<Word> topLevelWords(String sql) {
+        List<Word> words = new ArrayList<>();
+        int depth = 0;
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                i = SQLStatementSplitter.skipBlockComment(sql, i);
+            } else if (c == '\'') {
+                i = SQLStatementSplitter.skipQuoted(sql, i, '\'', false);
+            } else if (c == '$') {
+                i = SQLStatementSplitter.skipDollarQuoted(sql, i);
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if (Character.isLetter(c) || c == '_' || c == '"') {
+                int start = i;
+                while (i < length) {
+                    char ch = sql.charAt(i);
+                    if (ch == '"') {
+                        i = SQLStatementSplitter.skipQuoted(sql, i, '"', false);
+                    } else if (Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '.') {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (depth == 0) {
+                    words.add(new Word(sql.substring(start, i), i));
+                }
+            } else {
+                i++;
+            }
+        }
+        return words;
+    }
+
+    private static class Word {
+        private final String text;
+        private final int end;
+
+        Word(String text, int end) {
+            this.text = text;
+            this.end = end;
+        }
+
+        String upper() {
+            return text.toUpperCase(Locale.ROOT);
+        }
+    }
+}
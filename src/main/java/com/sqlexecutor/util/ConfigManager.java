@@ -18,6 +18,13 @@ public class ConfigManager {
         }
     }
 
+    /**
+     * @return the per-user directory holding configuration and local state
+     */
+    public static String getConfigDir() {
+        return CONFIG_DIR;
+    }
+
     public static void saveConfig(DatabaseConfig config, String folderPath) {
         Properties props = new Properties();
         props.setProperty("host", config.getHost());
@@ -25,6 +32,17 @@ public class ConfigManager {
         props.setProperty("username", config.getUsername());
         props.setProperty("password", config.getPassword());
         props.setProperty("databaseName", config.getDatabaseName());
+        props.setProperty("statementTimeout", String.valueOf(config.getStatementTimeout()));
+        props.setProperty("lockTimeout", String.valueOf(config.getLockTimeout()));
+        props.setProperty("runTimeout", String.valueOf(config.getRunTimeout()));
+        props.setProperty("connectTimeout", String.valueOf(config.getConnectTimeout()));
+        props.setProperty("maxConnections", String.valueOf(config.getMaxConnections()));
+        props.setProperty("adaptiveTuning", String.valueOf(config.isAdaptiveTuning()));
+        props.setProperty("maxBatchSize", String.valueOf(config.getMaxBatchSize()));
+        props.setProperty("rateLimitMode", config.getRateLimitMode().name());
+        props.setProperty("rateLimit", String.valueOf(config.getRateLimit()));
+        props.setProperty("driverClassName", config.getDriverClassName());
+        props.setProperty("jdbcUrl", config.getJdbcUrlOverride());
 
         // Save folder path if not null
         if (folderPath != null) {
@@ -50,41 +68,77 @@ public class ConfigManager {
     }
 
     public static DatabaseConfig loadConfig() {
+        return loadConfig(readSettings());
+    }
+
+    /**
+     * Reads the settings file once so that the connection settings and the
+     * last folder can both be taken from it.
+     *
+     * @return the stored settings, empty if there are none or they cannot be read
+     */
+    public static Properties readSettings() {
+        Properties props = new Properties();
         File configFile = new File(CONFIG_PATH);
         if (!configFile.exists()) {
-            return new DatabaseConfig(); // Return default config if file doesn't exist
+            return props;
         }
-
-        Properties props = new Properties();
         try (InputStream in = new FileInputStream(configFile)) {
             props.load(in);
+        } catch (IOException e) {
+            System.err.println("Failed to load configuration: " + e.getMessage());
+        }
+        return props;
+    }
+
+    public static DatabaseConfig loadConfig(Properties props) {
+        if (props.isEmpty()) {
+            return new DatabaseConfig(); // Return default config if nothing is stored
+        }
 
+        try {
             String host = props.getProperty("host", "localhost");
             int port = Integer.parseInt(props.getProperty("port", "5432"));
             String username = props.getProperty("username", "postgres");
             String password = props.getProperty("password", "");
             String databaseName = props.getProperty("databaseName", "postgres");
 
-            return new DatabaseConfig(host, port, username, password, databaseName);
-        } catch (IOException | NumberFormatException e) {
+            DatabaseConfig config = new DatabaseConfig(host, port, username, password, databaseName);
+            config.setStatementTimeout(Integer.parseInt(props.getProperty("statementTimeout", "0")));
+            config.setLockTimeout(Integer.parseInt(props.getProperty("lockTimeout", "0")));
+            config.setRunTimeout(Integer.parseInt(props.getProperty("runTimeout", "0")));
+            config.setConnectTimeout(Integer.parseInt(props.getProperty("connectTimeout", "10")));
+            config.setMaxConnections(Integer.parseInt(props.getProperty("maxConnections", "8")));
+            config.setAdaptiveTuning(Boolean.parseBoolean(props.getProperty("adaptiveTuning", "false")));
+            config.setMaxBatchSize(Integer.parseInt(props.getProperty("maxBatchSize", "500")));
+            config.setRateLimit(parseRateLimitMode(props.getProperty("rateLimitMode")),
+                    Double.parseDouble(props.getProperty("rateLimit", "0")));
+            config.setDriverClassName(props.getProperty("driverClassName", DatabaseConfig.DEFAULT_DRIVER));
+            config.setJdbcUrlOverride(props.getProperty("jdbcUrl", ""));
+            return config;
+        } catch (NumberFormatException e) {
             System.err.println("Failed to load configuration: " + e.getMessage());
             return new DatabaseConfig(); // Return default config on error
         }
     }
 
-    public static String getLastFolderPath() {
-        File configFile = new File(CONFIG_PATH);
-        if (!configFile.exists()) {
-            return null;
+    private static RateLimiter.Mode parseRateLimitMode(String name) {
+        if (name == null) {
+            return RateLimiter.Mode.OFF;
         }
-
-        Properties props = new Properties();
-        try (InputStream in = new FileInputStream(configFile)) {
-            props.load(in);
-            return props.getProperty("lastFolderPath");
-        } catch (IOException e) {
-            System.err.println("Failed to load last folder path: " + e.getMessage());
-            return null;
+        try {
+            return RateLimiter.Mode.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown rate limit mode " + name + ", rate limiting disabled");
+            return RateLimiter.Mode.OFF;
         }
     }
-}
\ No newline at end of file
+
+    public static String getLastFolderPath() {
+        return getLastFolderPath(readSettings());
+    }
+
+    public static String getLastFolderPath(Properties props) {
+        return props.getProperty("lastFolderPath");
+    }
+}
@@ -0,0 +1,256 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Small connection pool shared by everything that talks to the same database
+ * profile. A semaphore caps the number of connections handed out at once, so
+ * callers on any number of threads block until one is free. Connections
+ * returned by {@link #acquire} go back to the pool when closed.
+ *
+ * <p>A returned connection is reset before it is reused: {@code DISCARD ALL}
+ * drops whatever {@code SET}, {@code SET ROLE}, temporary tables or prepared
+ * statements the last caller left behind, and the profile's statement and
+ * lock timeouts are applied again. A connection that cannot be reset is
+ * closed instead.
+ */
+public class ConnectionPool {
+    private static final long VALIDATE_AFTER_IDLE_MS = 30000;
+    private static final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+    private final int maxConnections;
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    // Profile settings applied after DISCARD ALL, or null
+    private final String sessionSql;
+
+    /**
+     * Opens a new physical connection when the pool has none idle.
+     */
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private ConnectionPool(int maxConnections, String sessionSql) {
+        this.maxConnections = maxConnections;
+        this.sessionSql = sessionSql;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * @return the pool for the given profile, created on first use
+     */
+    public static ConnectionPool forConfig(DatabaseConfig config) {
+        String key = config.getDriverClassName() + "|" + config.getJdbcUrl() + "|" + config.getUsername() + "|" + config.getPassword().hashCode()
+                + "|" + config.getStatementTimeout() + "|" + config.getLockTimeout() + "|" + config.getMaxConnections();
+        return pools.computeIfAbsent(key, k -> new ConnectionPool(Math.max(config.getMaxConnections(), 1),
+                DatabaseManager.sessionTimeoutSql(config)));
+    }
+
+    /**
+     * Marks a pooled connection as broken so it is closed instead of reused.
+     */
+    public static void invalidate(Connection conn) {
+        if (Proxy.isProxyClass(conn.getClass()) && Proxy.getInvocationHandler(conn) instanceof PooledConnection) {
+            ((PooledConnection) Proxy.getInvocationHandler(conn)).broken = true;
+        }
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return connections that can be acquired right now without blocking
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public Connection acquire(ConnectionFactory factory) throws SQLException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            Connection physical = takeIdle();
+            if (physical == null) {
+                physical = factory.open();
+            }
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new PooledConnection(physical));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens connections until {@code count} are idle. Only free permits are
+     * used, so this never waits for, or holds back, a connection in use.
+     *
+     * @return connections opened
+     */
+    public int prewarm(ConnectionFactory factory, int count) throws SQLException {
+        int opened = 0;
+        while (idleCount() < count && permits.tryAcquire()) {
+            try {
+                Connection physical = factory.open();
+                synchronized (idle) {
+                    idle.addLast(new IdleConnection(physical));
+                }
+                opened++;
+            } finally {
+                permits.release();
+            }
+        }
+        return opened;
+    }
+
+    private int idleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    private Connection takeIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - candidate.since < VALIDATE_AFTER_IDLE_MS || isValid(candidate.connection)) {
+                return candidate.connection;
+            }
+            closeQuietly(candidate.connection);
+        }
+    }
+
+    private void release(Connection physical, boolean broken) {
+        try {
+            if (broken || physical.isClosed()) {
+                closeQuietly(physical);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            } else if (DatabaseManager.inOpenTransaction(physical)) {
+                // A script issued BEGIN itself and never finished it
+                try (Statement stmt = physical.createStatement()) {
+                    stmt.execute("ROLLBACK");
+                }
+            }
+            resetSession(physical);
+            physical.clearWarnings();
+            synchronized (idle) {
+                idle.addFirst(new IdleConnection(physical));
+            }
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Puts the session back the way a freshly opened connection starts, so
+     * settings one script changed do not leak into the next user.
+     */
+    private void resetSession(Connection physical) throws SQLException {
+        try (Statement stmt = physical.createStatement()) {
+            // Must run on its own: it is refused inside the implicit transaction of a multi-command string
+            stmt.execute("DISCARD ALL");
+            if (sessionSql != null) {
+                stmt.execute(sessionSql);
+            }
+        }
+    }
+
+    private static boolean isValid(Connection conn) {
+        try {
+            return conn.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // already unusable
+        }
+    }
+
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long since = System.currentTimeMillis();
+
+        IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Hands every call through to the physical connection, except close,
+     * which returns it to the pool.
+     */
+    private class PooledConnection implements InvocationHandler {
+        private final Connection physical;
+        private volatile boolean closed;
+        private volatile boolean broken;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(physical, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physical;
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
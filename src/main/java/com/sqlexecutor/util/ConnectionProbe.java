@@ -0,0 +1,291 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks a connection profile one phase at a time: resolving the host name,
+ * the TCP connect, opening and authenticating the JDBC connection, and a
+ * {@code SELECT 1}. A failure says which phase failed and a slow connection
+ * shows which phase is slow.
+ *
+ * <p>Every phase is bounded by the profile's connect timeout. Name lookup and
+ * login are raced against it on a separate thread, since neither can be
+ * interrupted, so an unreachable host fails within seconds instead of waiting
+ * out the operating system's TCP timeout. The probe still blocks its caller
+ * for up to that long per phase and must not run on the event thread.
+ *
+ * <p>Host and port come from the profile, or from a {@code jdbc:postgresql:}
+ * URL override. For other URLs the name lookup and TCP phases are skipped and
+ * left to the driver.
+ */
+public class ConnectionProbe {
+    public enum Phase {
+        DNS,
+        TCP,
+        LOGIN,
+        QUERY
+    }
+
+    private static final int DEFAULT_TIMEOUT_SECONDS = 10;
+    private static final Pattern POSTGRES_URL = Pattern.compile(
+            "^jdbc:postgresql://(\\[[^\\]]+\\]|[^/:?,]+)(?::(\\d+))?(?:[/?].*)?$");
+
+    /**
+     * Outcome of one phase.
+     */
+    public static class Step {
+        private final Phase phase;
+        private final boolean success;
+        private final long elapsedMillis;
+        private final String message;
+
+        Step(Phase phase, boolean success, long elapsedMillis, String message) {
+            this.phase = phase;
+            this.success = success;
+            this.elapsedMillis = elapsedMillis;
+            this.message = message;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return what the phase found, or why it failed
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final DatabaseConfig config;
+    private final long timeoutMillis;
+    private final List<Step> steps = new ArrayList<>();
+    private final Consumer<Step> listener;
+
+    /**
+     * @param listener told about each phase as it finishes, on the probing thread; may be null
+     */
+    public ConnectionProbe(DatabaseConfig config, Consumer<Step> listener) {
+        this.config = config;
+        this.listener = listener;
+        int timeout = config.getConnectTimeout() > 0 ? config.getConnectTimeout() : DEFAULT_TIMEOUT_SECONDS;
+        this.timeoutMillis = timeout * 1000L;
+    }
+
+    /**
+     * Runs the phases in order, stopping at the first that fails.
+     *
+     * @return the phases that ran, see {@link #succeeded}
+     */
+    public List<Step> run() {
+        String url = config.getJdbcUrl();
+        Matcher matcher = POSTGRES_URL.matcher(url);
+        if (matcher.matches()) {
+            String host = matcher.group(1).replace("[", "").replace("]", "");
+            int port = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 5432;
+            InetAddress[] addresses = resolve(host);
+            if (addresses == null || !connectTcp(addresses, port)) {
+                return steps;
+            }
+        }
+        Connection conn = login(url);
+        if (conn != null) {
+            try {
+                query(conn);
+            } finally {
+                closeQuietly(conn);
+            }
+        }
+        return steps;
+    }
+
+    public static boolean succeeded(List<Step> steps) {
+        return !steps.isEmpty() && steps.get(steps.size() - 1).isSuccess()
+                && steps.get(steps.size() - 1).getPhase() == Phase.QUERY;
+    }
+
+    private InetAddress[] resolve(String host) {
+        long start = System.nanoTime();
+        try {
+            InetAddress[] addresses = withTimeout(() -> InetAddress.getAllByName(host), "sql-probe-dns");
+            String found = addresses[0].getHostAddress()
+                    + (addresses.length > 1 ? " (+" + (addresses.length - 1) + " more)" : "");
+            finish(Phase.DNS, true, start, host + " resolved to " + found);
+            return addresses;
+        } catch (Exception e) {
+            finish(Phase.DNS, false, start, "Cannot resolve " + host + ": " + describe(e));
+            return null;
+        }
+    }
+
+    private boolean connectTcp(InetAddress[] addresses, int port) {
+        long start = System.nanoTime();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        IOException failure = null;
+        for (InetAddress address : addresses) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(address, port), (int) remaining);
+                finish(Phase.TCP, true, start, "Connected to " + address.getHostAddress() + ":" + port);
+                return true;
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        finish(Phase.TCP, false, start, "Cannot connect to port " + port + ": "
+                + (failure != null ? describe(failure) : "no answer within " + timeoutMillis / 1000 + " s"));
+        return false;
+    }
+
+    private Connection login(String url) {
+        long start = System.nanoTime();
+        Properties props = config.getConnectionProperties();
+        if (url.startsWith("jdbc:postgresql:")) {
+            // Bound the probe's reads too, so a server that accepts but never answers cannot hang it
+            props.setProperty("socketTimeout", String.valueOf(timeoutMillis / 1000));
+        }
+        LoginTask task = new LoginTask(url, props);
+        Connection conn;
+        try {
+            conn = withTimeout(task, "sql-probe-login");
+        } catch (Exception e) {
+            task.abandon();
+            finish(Phase.LOGIN, false, start, "Login failed: " + describe(e));
+            return null;
+        }
+        String server = "the server";
+        try {
+            DatabaseMetaData metaData = conn.getMetaData();
+            if (metaData != null) {
+                server = metaData.getDatabaseProductName() + " " + metaData.getDatabaseProductVersion();
+            }
+        } catch (SQLException e) {
+            // only used in the message
+        }
+        finish(Phase.LOGIN, true, start, "Logged in as " + config.getUsername() + " to " + server);
+        return conn;
+    }
+
+    private void query(Connection conn) {
+        long start = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout((int) (timeoutMillis / 1000));
+            stmt.execute("SELECT 1");
+            finish(Phase.QUERY, true, start, "SELECT 1 answered");
+        } catch (SQLException e) {
+            finish(Phase.QUERY, false, start, "SELECT 1 failed: " + describe(e));
+        }
+    }
+
+    private void finish(Phase phase, boolean success, long startNanos, String message) {
+        Step step = new Step(phase, success, (System.nanoTime() - startNanos) / 1_000_000, message);
+        steps.add(step);
+        if (listener != null) {
+            listener.accept(step);
+        }
+    }
+
+    /**
+     * Runs a call that cannot be interrupted on its own daemon thread, giving
+     * up on it after the timeout.
+     */
+    private <T> T withTimeout(Callable<T> call, String threadName) throws Exception {
+        FutureTask<T> task = new FutureTask<>(call);
+        Thread thread = new Thread(task, threadName);
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            return task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            throw new TimeoutException("no answer within " + timeoutMillis / 1000 + " s");
+        }
+    }
+
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // nothing more to check
+        }
+    }
+
+    /**
+     * Opens the connection; one that arrives after the probe gave up is closed.
+     */
+    private class LoginTask implements Callable<Connection> {
+        private final String url;
+        private final Properties props;
+        private Connection conn;
+        private boolean abandoned;
+
+        LoginTask(String url, Properties props) {
+            this.url = url;
+            this.props = props;
+        }
+
+        @Override
+        public Connection call() throws Exception {
+            try {
+                Class.forName(config.getDriverClassName());
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("JDBC Driver not found: " + config.getDriverClassName(), e);
+            }
+            Connection opened = DriverManager.getConnection(url, props);
+            synchronized (this) {
+                if (abandoned) {
+                    closeQuietly(opened);
+                } else {
+                    conn = opened;
+                }
+            }
+            return opened;
+        }
+
+        synchronized void abandon() {
+            abandoned = true;
+            if (conn != null) {
+                closeQuietly(conn);
+            }
+        }
+    }
+}
@@ -1,39 +1,151 @@
 package com.sqlexecutor.util;
 
 import com.sqlexecutor.model.DatabaseConfig;
+import org.postgresql.PGConnection;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
 
 public class DatabaseManager {
+    // Enough for a sequential run and a few parallel files; more are opened on demand
+    private static final int PREWARM_CONNECTIONS = 4;
+    // Bounds a backend cancel when the profile sets no connect timeout
+    private static final int CANCEL_TIMEOUT_SECONDS = 10;
+
     private DatabaseConfig config;
     
     public DatabaseManager(DatabaseConfig config) {
         this.config = config;
     }
     
+    /**
+     * Borrows a connection from the profile's {@link ConnectionPool}, blocking
+     * while all of its connections are in use. Closing the connection returns it.
+     */
     public Connection getConnection() throws SQLException {
+        return ConnectionPool.forConfig(config).acquire(this::openConnection);
+    }
+
+    private Connection openConnection() throws SQLException {
         try {
-            // Make sure the PostgreSQL JDBC driver is loaded
-            Class.forName("org.postgresql.Driver");
+            // Make sure the configured JDBC driver is loaded and registered
+            Class.forName(config.getDriverClassName());
         } catch (ClassNotFoundException e) {
-            throw new SQLException("PostgreSQL JDBC Driver not found", e);
+            throw new SQLException("JDBC Driver not found: " + config.getDriverClassName(), e);
         }
         
-        return DriverManager.getConnection(
+        Connection conn = DriverManager.getConnection(
                 config.getJdbcUrl(), 
                 config.getConnectionProperties());
+        applySessionTimeouts(conn);
+        return conn;
     }
-    
-    public void testConnection() throws SQLException {
-        try (Connection conn = getConnection();
+
+    private void applySessionTimeouts(Connection conn) throws SQLException {
+        String sql = sessionTimeoutSql(config);
+        if (sql == null) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the SET commands for the profile's statement and lock timeouts,
+     * or null if neither is configured
+     */
+    static String sessionTimeoutSql(DatabaseConfig config) {
+        StringBuilder sql = new StringBuilder();
+        if (config.getStatementTimeout() > 0) {
+            sql.append("SET statement_timeout = ").append(config.getStatementTimeout() * 1000L).append(';');
+        }
+        if (config.getLockTimeout() > 0) {
+            sql.append("SET lock_timeout = ").append(config.getLockTimeout() * 1000L).append(';');
+        }
+        return sql.length() > 0 ? sql.toString() : null;
+    }
+
+    /**
+     * @return the server process id of the connection, or -1 if the driver does not expose it
+     */
+    public static int getBackendPid(Connection conn) {
+        try {
+            if (conn.isWrapperFor(PGConnection.class)) {
+                return conn.unwrap(PGConnection.class).getBackendPID();
+            }
+        } catch (SQLException e) {
+            // fall through
+        }
+        return -1;
+    }
+
+    /**
+     * Tells whether the server has a transaction open on the connection,
+     * whether the driver began it or the script issued BEGIN itself. The
+     * JDBC autocommit flag only knows about the former.
+     *
+     * @return false if idle, or if the driver does not report it
+     */
+    public static boolean inOpenTransaction(Connection conn) throws SQLException {
+        return conn.isWrapperFor(BaseConnection.class)
+                && conn.unwrap(BaseConnection.class).getTransactionState() != TransactionState.IDLE;
+    }
+
+    /**
+     * Cancels whatever the backend is running, from a fresh connection. Every
+     * step is bounded by the connect timeout, so an unreachable server fails
+     * the cancel within seconds rather than hanging it.
+     */
+    public void cancelBackend(int backendPid) throws SQLException {
+        int timeout = config.getConnectTimeout() > 0 ? config.getConnectTimeout() : CANCEL_TIMEOUT_SECONDS;
+        Properties props = config.getConnectionProperties();
+        if (config.getJdbcUrl().startsWith("jdbc:postgresql:")) {
+            props.setProperty("connectTimeout", String.valueOf(timeout));
+            props.setProperty("loginTimeout", String.valueOf(timeout));
+            props.setProperty("socketTimeout", String.valueOf(timeout));
+        }
+        try (Connection conn = DriverManager.getConnection(config.getJdbcUrl(), props);
              Statement stmt = conn.createStatement()) {
-            // Simple query to test connection
-            stmt.execute("SELECT 1");
+            stmt.setQueryTimeout(timeout);
+            stmt.execute("SELECT pg_cancel_backend(" + backendPid + ")");
         }
     }
+
+    public DatabaseConfig getDatabaseConfig() {
+        return config;
+    }
+    
+    /**
+     * Checks the profile phase by phase on a fresh connection, outside the
+     * pool; blocks for up to the connect timeout per phase.
+     *
+     * @param listener told about each phase as it finishes; may be null
+     */
+    public List<ConnectionProbe.Step> testConnection(Consumer<ConnectionProbe.Step> listener) {
+        return new ConnectionProbe(config, listener).run();
+    }
+
+    /**
+     * Opens idle connections in the profile's pool ahead of the first run,
+     * so its first statements do not wait for connection setup.
+     *
+     * @return connections opened
+     */
+    public int prewarm() throws SQLException {
+        ConnectionPool pool = ConnectionPool.forConfig(config);
+        return pool.prewarm(this::openConnection, Math.min(pool.getMaxConnections(), PREWARM_CONNECTIONS));
+    }
     
     public void setDatabaseConfig(DatabaseConfig config) {
         this.config = config;
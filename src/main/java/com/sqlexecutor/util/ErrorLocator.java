@@ -0,0 +1,76 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.SQLStatement;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+
+import java.sql.SQLException;
+
+/**
+ * Maps the character position the server reports for an error back to a
+ * line and column in the script file.
+ */
+public class ErrorLocator {
+
+    /**
+     * @param offset characters the executed text had in front of the statement,
+     *               e.g. a {@code PREPARE ... AS} prefix
+     * @return {line, column}; the column is 0 and the line is the statement's
+     *         first line when the server gave no position
+     */
+    public static int[] locate(SQLStatement statement, SQLException e, int offset) {
+        int line = statement.getLineNumber();
+        ServerErrorMessage server = serverMessage(e);
+        if (server == null) {
+            return new int[]{line, 0};
+        }
+        String sql = statement.getSql();
+        int position = server.getPosition() - 1 - offset;
+        if (position < 0 || position > sql.length()) {
+            return new int[]{line, 0};
+        }
+
+        // The statement's line number refers to its first keyword, after any leading comments
+        int codeStart = codeStart(sql);
+        if (position < codeStart) {
+            return new int[]{line, 0};
+        }
+        for (int i = codeStart; i < position; i++) {
+            if (sql.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        int lineStart = sql.lastIndexOf('\n', position - 1) + 1;
+        return new int[]{line, position - lineStart + 1};
+    }
+
+    /**
+     * @return the primary message from the server without pgjdbc's decorations
+     */
+    public static String message(SQLException e) {
+        ServerErrorMessage server = serverMessage(e);
+        return server != null && server.getMessage() != null ? server.getMessage() : e.getMessage();
+    }
+
+    private static ServerErrorMessage serverMessage(SQLException e) {
+        return e instanceof PSQLException ? ((PSQLException) e).getServerErrorMessage() : null;
+    }
+
+    private static int codeStart(String sql) {
+        int i = 0;
+        while (i < sql.length()) {
+            if (Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+}
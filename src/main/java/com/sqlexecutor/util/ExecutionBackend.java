@@ -0,0 +1,81 @@
+package com.sqlexecutor.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Supplies the threads that run file/target pairs in parallel. On Java 21+
+ * every task gets its own virtual thread, which blocks cheaply on JDBC I/O;
+ * concurrency is then bounded only by the connection pool. On older runtimes
+ * a fixed pool of platform threads is used instead.
+ */
+public abstract class ExecutionBackend {
+    private static final ExecutionBackend VIRTUAL_THREADS = createVirtualThreadBackend();
+
+    public abstract String getName();
+
+    /**
+     * @param parallelism how many tasks are expected to run at once
+     */
+    public abstract ExecutorService newExecutor(int parallelism);
+
+    public static ExecutionBackend platformThreads() {
+        return new ExecutionBackend() {
+            @Override
+            public String getName() {
+                return "platform threads";
+            }
+
+            @Override
+            public ExecutorService newExecutor(int parallelism) {
+                AtomicInteger counter = new AtomicInteger();
+                return Executors.newFixedThreadPool(Math.max(parallelism, 1), r -> {
+                    Thread thread = new Thread(r, "sql-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        };
+    }
+
+    /**
+     * @return the virtual-thread backend, or null when the runtime predates Java 21
+     */
+    public static ExecutionBackend virtualThreads() {
+        return VIRTUAL_THREADS;
+    }
+
+    /**
+     * @return virtual threads when available, platform threads otherwise
+     */
+    public static ExecutionBackend best() {
+        return VIRTUAL_THREADS != null ? VIRTUAL_THREADS : platformThreads();
+    }
+
+    private static ExecutionBackend createVirtualThreadBackend() {
+        // Looked up reflectively so the project still compiles for Java 11
+        Method factory;
+        try {
+            factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        return new ExecutionBackend() {
+            @Override
+            public String getName() {
+                return "virtual threads";
+            }
+
+            @Override
+            public ExecutorService newExecutor(int parallelism) {
+                try {
+                    return (ExecutorService) factory.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot create virtual thread executor", e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.sqlexecutor.util;
+
+import java.io.*;
+import java.util.Properties;
+
+/**
+ * Remembers how long each script took on previous runs so progress can show a
+ * realistic ETA. Durations are kept as an exponentially weighted average per
+ * absolute file path.
+ */
+public class ExecutionHistory {
+    private static final String HISTORY_PATH = ConfigManager.getConfigDir() + File.separator + "history.properties";
+    private static final double WEIGHT = 0.3;
+
+    private static Properties history;
+
+    private static synchronized Properties load() {
+        if (history == null) {
+            history = new Properties();
+            File historyFile = new File(HISTORY_PATH);
+            if (historyFile.exists()) {
+                try (InputStream in = new FileInputStream(historyFile)) {
+                    history.load(in);
+                } catch (IOException e) {
+                    System.err.println("Failed to load execution history: " + e.getMessage());
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * @return the expected duration of the file in milliseconds, or -1 if it has never completed
+     */
+    public static synchronized long getExpectedDuration(String filePath) {
+        String value = load().getProperty(filePath);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static synchronized void recordDuration(String filePath, long durationMillis) {
+        long previous = getExpectedDuration(filePath);
+        long updated = previous < 0
+                ? durationMillis
+                : Math.round(previous * (1 - WEIGHT) + durationMillis * WEIGHT);
+        load().setProperty(filePath, String.valueOf(updated));
+
+        try (OutputStream out = new FileOutputStream(HISTORY_PATH)) {
+            history.store(out, "SQL Executor execution history");
+        } catch (IOException e) {
+            System.err.println("Failed to save execution history: " + e.getMessage());
+        }
+    }
+}
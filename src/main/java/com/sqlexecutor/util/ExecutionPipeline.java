@@ -0,0 +1,161 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.SQLFile;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a batch of scripts as a four stage pipeline: scanning, reading and
+ * decoding, splitting into statements, and execution. Each stage runs on its
+ * own thread and hands work to the next through a bounded queue, so upcoming
+ * files are read and split while the current one is executing. Execution
+ * itself happens on the calling thread, one file at a time and in order.
+ */
+public class ExecutionPipeline {
+    static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    // Marks the end of the stream in every queue
+    private static final Object END = new Object();
+
+    private final Function<SQLFile, SQLExecutor> executors;
+    private final int queueCapacity;
+    private boolean stopOnFailure;
+    private final List<Thread> stageThreads = new ArrayList<>();
+    private volatile Throwable stageFailure;
+
+    public ExecutionPipeline(SQLExecutor executor) {
+        this(executor, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public ExecutionPipeline(SQLExecutor executor, int queueCapacity) {
+        this(file -> executor, queueCapacity);
+    }
+
+    /**
+     * @param executors picks the executor for each file, for batches whose
+     *                  files run with different settings
+     */
+    public ExecutionPipeline(Function<SQLFile, SQLExecutor> executors, int queueCapacity) {
+        this.executors = executors;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @param stopOnFailure whether to stop after the first failed file, like {@link SQLExecutor#executeMultiple}
+     */
+    public void setStopOnFailure(boolean stopOnFailure) {
+        this.stopOnFailure = stopOnFailure;
+    }
+
+    /**
+     * Executes the given files in order.
+     */
+    public List<ExecutionResult> execute(List<File> files, Consumer<ExecutionResult> resultConsumer)
+            throws InterruptedException {
+        return run(out -> {
+            for (File file : files) {
+                out.put(file);
+            }
+        }, resultConsumer);
+    }
+
+    /**
+     * Scans the directory for scripts in the same order as {@link FileScanner}
+     * and executes them.
+     */
+    public List<ExecutionResult> executeDirectory(File directory, Consumer<ExecutionResult> resultConsumer)
+            throws InterruptedException {
+        return run(out -> {
+            for (File file : FileScanner.scanForSqlFiles(directory)) {
+                out.put(file);
+            }
+        }, resultConsumer);
+    }
+
+    private List<ExecutionResult> run(FileSource scanner, Consumer<ExecutionResult> resultConsumer)
+            throws InterruptedException {
+        BlockingQueue<Object> scanned = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Object> loaded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Object> split = new ArrayBlockingQueue<>(queueCapacity);
+
+        startStage("sql-pipeline-scan", () -> scanner.run(scanned), scanned);
+        startStage("sql-pipeline-read", () -> transfer(scanned, loaded, file -> new SQLFile((File) file)), loaded);
+        startStage("sql-pipeline-split", () -> transfer(loaded, split, sqlFile -> {
+            ((SQLFile) sqlFile).getStatements();
+            return sqlFile;
+        }), split);
+
+        List<ExecutionResult> results = new ArrayList<>();
+        try {
+            Object item;
+            while ((item = split.take()) != END) {
+                SQLFile sqlFile = (SQLFile) item;
+                ExecutionResult result = executors.apply(sqlFile).execute(sqlFile);
+                results.add(result);
+                if (resultConsumer != null) {
+                    resultConsumer.accept(result);
+                }
+                if (stopOnFailure && !result.isSuccess()) {
+                    break;
+                }
+            }
+        } finally {
+            stopStages();
+        }
+
+        if (stageFailure != null) {
+            throw new IllegalStateException("Pipeline stage failed: " + stageFailure.getMessage(), stageFailure);
+        }
+        return results;
+    }
+
+    private void transfer(BlockingQueue<Object> in, BlockingQueue<Object> out,
+                          Function<Object, Object> step) throws InterruptedException {
+        Object item;
+        while ((item = in.take()) != END) {
+            out.put(step.apply(item));
+        }
+    }
+
+    private void startStage(String name, StageBody body, BlockingQueue<Object> out) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (InterruptedException e) {
+                return; // pipeline is shutting down
+            } catch (RuntimeException | Error e) {
+                stageFailure = e;
+            }
+            try {
+                out.put(END);
+            } catch (InterruptedException ignored) {
+                // pipeline is shutting down
+            }
+        }, name);
+        thread.setDaemon(true);
+        stageThreads.add(thread);
+        thread.start();
+    }
+
+    private void stopStages() {
+        for (Thread thread : stageThreads) {
+            thread.interrupt();
+        }
+        stageThreads.clear();
+    }
+
+    private interface FileSource {
+        void run(BlockingQueue<Object> out) throws InterruptedException;
+    }
+
+    private interface StageBody {
+        void run() throws InterruptedException;
+    }
+}
@@ -0,0 +1,11 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.ExecutionProgress;
+
+/**
+ * Receives progress events from {@link SQLExecutor}. Events are fired on the
+ * executing thread, so implementations must hand off to the EDT themselves.
+ */
+public interface ExecutionProgressListener {
+    void onProgress(ExecutionProgress progress);
+}
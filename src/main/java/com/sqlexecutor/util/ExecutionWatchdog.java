@@ -0,0 +1,129 @@
+package com.sqlexecutor.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces time limits on running statements from a background thread. When a
+ * limit is exceeded the statement is cancelled through JDBC; if it is still
+ * running after a grace period the backend is cancelled server-side with
+ * pg_cancel_backend from a separate connection.
+ *
+ * <p>pg_cancel_backend cancels whatever the backend runs when it arrives, so
+ * {@link Watch#close} waits for an escalation already started: once the
+ * watched statement's caller has closed the watch, nothing it runs next can
+ * be cancelled. The lock only decides whether to escalate; the cancel itself
+ * opens a connection, bounded by the connect timeout, and runs on a thread
+ * of its own so an unreachable server cannot hold up other watches. An
+ * escalated connection is marked broken so the pool closes it rather than
+ * handing it out again.
+ */
+public class ExecutionWatchdog {
+    private static final long ESCALATION_DELAY_MS = 5000;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sql-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ExecutorService canceller = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "sql-watchdog-cancel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts watching a statement. The returned handle must be closed once the
+     * statement finishes.
+     *
+     * @param conn       the pooled connection running the statement
+     * @param backendPid server process id for escalation, or -1 to skip it
+     */
+    public static Watch watch(DatabaseManager dbManager, Connection conn, Statement stmt, int backendPid,
+                              long timeoutMillis) {
+        Watch watch = new Watch();
+        watch.cancelTask = scheduler.schedule(() -> {
+            if (watch.finished) {
+                return;
+            }
+            watch.fired = true;
+            try {
+                stmt.cancel();
+            } catch (SQLException e) {
+                System.err.println("Failed to cancel statement: " + e.getMessage());
+            }
+            if (backendPid > 0) {
+                watch.escalateTask = scheduler.schedule(() -> {
+                    synchronized (watch) {
+                        if (watch.finished) {
+                            return;
+                        }
+                        ConnectionPool.invalidate(conn);
+                        watch.cancelBackend = canceller.submit(() -> {
+                            try {
+                                dbManager.cancelBackend(backendPid);
+                            } catch (SQLException e) {
+                                System.err.println("Failed to cancel backend " + backendPid + ": " + e.getMessage());
+                            }
+                        });
+                    }
+                }, ESCALATION_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        return watch;
+    }
+
+    public static class Watch implements AutoCloseable {
+        private volatile boolean finished;
+        private volatile boolean fired;
+        private volatile ScheduledFuture<?> cancelTask;
+        private volatile ScheduledFuture<?> escalateTask;
+        // Set under the lock once escalation starts, so close() can wait for it
+        private Future<?> cancelBackend;
+
+        /**
+         * @return true if the time limit was hit and a cancel was issued
+         */
+        public boolean hasFired() {
+            return fired;
+        }
+
+        /**
+         * Stops watching. Call as soon as the statement returns, before
+         * anything else runs on its connection; waits for an escalation
+         * already under way, which the connect timeout bounds.
+         */
+        @Override
+        public void close() {
+            Future<?> escalation;
+            synchronized (this) {
+                finished = true;
+                escalation = cancelBackend;
+            }
+            if (cancelTask != null) {
+                cancelTask.cancel(false);
+            }
+            if (escalateTask != null) {
+                escalateTask.cancel(false);
+            }
+            if (escalation != null) {
+                try {
+                    escalation.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // the cancel reports its own failure
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.sqlexecutor.util;
+
+import java.lang.ref.Cleaner;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts for the large things the application holds in memory (loaded
+ * scripts, result-set fetch buffers, the execution log and caches) against
+ * a fixed budget, and makes the rest of the application back off as usage
+ * approaches it: fetch sizes shrink, queries are streamed through a cursor,
+ * and registered caches are asked to drop what they can.
+ *
+ * <p>The budget defaults to 60% of the maximum heap and can be set in
+ * megabytes with {@code -Dsqlexecutor.memoryBudgetMb=N}. Byte counts are
+ * estimates; the aim is to stay clear of {@code OutOfMemoryError} on small
+ * heaps, not exact bookkeeping.
+ */
+public class MemoryBudget {
+    public enum Category { FILES, FETCH, LOG, CACHE }
+
+    /**
+     * Something that can give memory back when the budget runs low.
+     */
+    public interface Evictable {
+        /**
+         * @return estimated bytes released
+         */
+        long evict();
+    }
+
+    // Usage fractions at which behaviour changes
+    private static final double ELEVATED = 0.5;
+    private static final double CRITICAL = 0.8;
+
+    private static final MemoryBudget instance = new MemoryBudget(defaultBudget());
+    private static final Cleaner cleaner = Cleaner.create();
+
+    private final long budget;
+    private final AtomicLong[] used = new AtomicLong[Category.values().length];
+    private final List<Evictable> evictables = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    MemoryBudget(long budget) {
+        this.budget = budget;
+        for (int i = 0; i < used.length; i++) {
+            used[i] = new AtomicLong();
+        }
+    }
+
+    public static MemoryBudget getInstance() {
+        return instance;
+    }
+
+    private static long defaultBudget() {
+        long configured = Long.getLong("sqlexecutor.memoryBudgetMb", 0);
+        return configured > 0 ? configured * 1024 * 1024 : (long) (Runtime.getRuntime().maxMemory() * 0.6);
+    }
+
+    /**
+     * Accounts for memory that the caller releases explicitly by closing the
+     * returned reservation.
+     */
+    public Reservation reserve(Category category, long bytes) {
+        Reservation reservation = new Reservation(category);
+        reservation.resize(bytes);
+        return reservation;
+    }
+
+    /**
+     * Accounts for memory held by {@code owner}; it is released when the
+     * reservation is closed or, failing that, once the owner is garbage collected.
+     */
+    public Reservation track(Object owner, Category category, long bytes) {
+        Reservation reservation = reserve(category, bytes);
+        cleaner.register(owner, reservation::close);
+        return reservation;
+    }
+
+    public void register(Evictable evictable) {
+        evictables.add(evictable);
+    }
+
+    public void unregister(Evictable evictable) {
+        evictables.remove(evictable);
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public long getUsed() {
+        long total = 0;
+        for (AtomicLong bytes : used) {
+            total += bytes.get();
+        }
+        return total;
+    }
+
+    public long getUsed(Category category) {
+        return used[category.ordinal()].get();
+    }
+
+    /**
+     * @return accounted usage as a fraction of the budget
+     */
+    public double getPressure() {
+        return (double) getUsed() / budget;
+    }
+
+    /**
+     * @return true once usage is high enough that large results should be
+     *         streamed rather than buffered
+     */
+    public boolean isElevated() {
+        return getPressure() >= ELEVATED;
+    }
+
+    public boolean isCritical() {
+        return getPressure() >= CRITICAL;
+    }
+
+    /**
+     * Scales a preferred fetch size down as memory gets tight.
+     */
+    public int fetchSize(int preferred) {
+        double pressure = getPressure();
+        if (pressure < ELEVATED) {
+            return preferred;
+        } else if (pressure < CRITICAL) {
+            return Math.max(preferred / 4, 100);
+        }
+        return Math.max(preferred / 20, 50);
+    }
+
+    private void changed(Category category, long delta) {
+        used[category.ordinal()].addAndGet(delta);
+        if (delta > 0 && isCritical()) {
+            evict();
+        }
+    }
+
+    /**
+     * Asks registered caches to release memory until usage is back under the
+     * critical threshold.
+     */
+    public void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (Evictable evictable : evictables) {
+                if (!isCritical()) {
+                    break;
+                }
+                evictable.evict();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * A resizable amount of accounted memory.
+     */
+    public class Reservation implements AutoCloseable {
+        private final Category category;
+        private final AtomicLong bytes = new AtomicLong();
+
+        private Reservation(Category category) {
+            this.category = category;
+        }
+
+        public void resize(long newBytes) {
+            long delta = Math.max(newBytes, 0) - bytes.getAndSet(Math.max(newBytes, 0));
+            if (delta != 0) {
+                changed(category, delta);
+            }
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        @Override
+        public void close() {
+            resize(0);
+        }
+    }
+}
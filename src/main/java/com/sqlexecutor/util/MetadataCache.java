@@ -0,0 +1,414 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Schema, table, column and function names of one database profile, kept in
+ * memory for autocompletion. Names are held in sorted arrays so a prefix
+ * lookup is a binary search followed by a short scan; lookups never touch
+ * the server.
+ *
+ * <p>The catalog is loaded in the background with a few bulk
+ * {@code pg_catalog} queries and persisted under
+ * {@code ~/.sqlexecutor/metadata}, so a restart can complete names before
+ * the server has been contacted. A refresh first compares a cheap catalog
+ * fingerprint and only reloads when it has changed.
+ */
+public class MetadataCache {
+    private static final int MAGIC = 0x53514C4D; // "SQLM"
+    private static final int VERSION = 1;
+    private static final String CACHE_DIR = ConfigManager.getConfigDir() + File.separator + "metadata";
+    private static final Map<String, MetadataCache> caches = new ConcurrentHashMap<>();
+
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "sql-metadata");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String EXCLUDED_SCHEMAS =
+            "n.nspname NOT IN ('information_schema', 'pg_toast') AND n.nspname NOT LIKE 'pg_temp%' "
+                    + "AND n.nspname NOT LIKE 'pg_toast_temp%'";
+
+    private static final String FINGERPRINT_QUERY =
+            "SELECT (SELECT count(*) || ':' || coalesce(max(oid::bigint), 0) || ':' || coalesce(sum(relnatts), 0) FROM pg_class)"
+                    + " || '/' || (SELECT count(*) || ':' || coalesce(max(oid::bigint), 0) FROM pg_proc)"
+                    + " || '/' || (SELECT count(*) FROM pg_namespace)";
+
+    private static final String SCHEMA_QUERY =
+            "SELECT n.nspname FROM pg_namespace n WHERE " + EXCLUDED_SCHEMAS;
+
+    private static final String RELATION_QUERY =
+            "SELECT n.nspname, c.relname, c.relkind FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace"
+                    + " WHERE c.relkind IN ('r', 'p', 'v', 'm', 'f') AND " + EXCLUDED_SCHEMAS;
+
+    private static final String COLUMN_QUERY =
+            "SELECT c.relname, a.attname FROM pg_attribute a JOIN pg_class c ON c.oid = a.attrelid"
+                    + " JOIN pg_namespace n ON n.oid = c.relnamespace"
+                    + " WHERE a.attnum > 0 AND NOT a.attisdropped AND c.relkind IN ('r', 'p', 'v', 'm', 'f')"
+                    + " AND n.nspname <> 'pg_catalog' AND " + EXCLUDED_SCHEMAS;
+
+    private static final String FUNCTION_QUERY =
+            "SELECT DISTINCT n.nspname, p.proname FROM pg_proc p JOIN pg_namespace n ON n.oid = p.pronamespace"
+                    + " WHERE " + EXCLUDED_SCHEMAS;
+
+    public enum Kind {
+        SCHEMA("schema"), TABLE("table"), VIEW("view"), COLUMN("column"), FUNCTION("function");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * A single completion candidate.
+     */
+    public static class Completion {
+        private final String name;
+        private final Kind kind;
+
+        Completion(String name, Kind kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public String toString() {
+            return name + "  (" + kind.getLabel() + ")";
+        }
+    }
+
+    // Replaced on every lookup, so a corrected password is used by the next refresh
+    private volatile DatabaseConfig config;
+    private final File cacheFile;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final MemoryBudget.Reservation memory =
+            MemoryBudget.getInstance().reserve(MemoryBudget.Category.CACHE, 0);
+    private volatile Snapshot snapshot;
+
+    private MetadataCache(DatabaseConfig config, File cacheFile) {
+        this.config = new DatabaseConfig(config);
+        this.cacheFile = cacheFile;
+        MemoryBudget.getInstance().register(() -> {
+            long bytes = memory.getBytes();
+            evict();
+            return bytes;
+        });
+    }
+
+    /**
+     * @return the cache for the given profile, created on first use; later
+     *         refreshes connect with the settings passed last
+     */
+    public static MetadataCache forConfig(DatabaseConfig config) {
+        String key = config.getDriverClassName() + "|" + config.getJdbcUrl() + "|" + config.getUsername();
+        MetadataCache cache = caches.computeIfAbsent(key, k -> new MetadataCache(config,
+                new File(CACHE_DIR, SplitPlanCache.sha256(k.getBytes(StandardCharsets.UTF_8)) + ".meta")));
+        cache.config = new DatabaseConfig(config);
+        return cache;
+    }
+
+    /**
+     * @return true once names are available, from disk or from the server
+     */
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return number of names held, for display and memory accounting
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.names.size() + current.members.size();
+    }
+
+    /**
+     * Loads the persisted catalog if not yet in memory and then checks the
+     * server for changes, all on a background thread. Calls while a refresh
+     * is running are ignored.
+     */
+    public void refreshAsync() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        loader.execute(() -> {
+            try {
+                if (snapshot == null) {
+                    setSnapshot(readSnapshot());
+                }
+                refresh();
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Drops the in-memory catalog. It is read back from disk on the next refresh.
+     */
+    public void evict() {
+        setSnapshot(null);
+    }
+
+    private void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+        memory.resize(snapshot == null ? 0 : snapshot.names.bytes() + snapshot.members.bytes());
+    }
+
+    /**
+     * Completes an identifier. A {@code qualifier} (the text before a dot) of
+     * a schema lists its tables and functions, and one of a table lists its
+     * columns; without a qualifier all names are searched. Matching ignores case.
+     *
+     * @param qualifier text before the last dot, or null
+     * @param prefix    partial name being typed, may be empty
+     * @param limit     maximum number of candidates
+     */
+    public List<Completion> complete(String qualifier, String prefix, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        if (qualifier == null || qualifier.isEmpty()) {
+            return current.names.find(prefix.toLowerCase(Locale.ROOT), 0, limit);
+        }
+        String key = qualifier.toLowerCase(Locale.ROOT) + ".";
+        return current.members.find(key + prefix.toLowerCase(Locale.ROOT), key.length(), limit);
+    }
+
+    private void refresh() {
+        try (Connection conn = new DatabaseManager(config).getConnection();
+             Statement stmt = conn.createStatement()) {
+            String fingerprint;
+            try (ResultSet rs = stmt.executeQuery(FINGERPRINT_QUERY)) {
+                fingerprint = rs.next() ? rs.getString(1) : "";
+            }
+            Snapshot current = snapshot;
+            if (current != null && fingerprint.equals(current.fingerprint)) {
+                return;
+            }
+
+            List<Entry> names = new ArrayList<>();
+            List<Entry> members = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery(SCHEMA_QUERY)) {
+                while (rs.next()) {
+                    names.add(new Entry(rs.getString(1), Kind.SCHEMA));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(RELATION_QUERY)) {
+                while (rs.next()) {
+                    String schema = rs.getString(1);
+                    String relation = rs.getString(2);
+                    Kind kind = "v".equals(rs.getString(3)) || "m".equals(rs.getString(3)) ? Kind.VIEW : Kind.TABLE;
+                    if (!schema.equals("pg_catalog")) {
+                        names.add(new Entry(relation, kind));
+                    }
+                    members.add(new Entry(schema + "." + relation, kind));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(COLUMN_QUERY)) {
+                while (rs.next()) {
+                    String column = rs.getString(2);
+                    names.add(new Entry(column, Kind.COLUMN));
+                    members.add(new Entry(rs.getString(1) + "." + column, Kind.COLUMN));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(FUNCTION_QUERY)) {
+                while (rs.next()) {
+                    String function = rs.getString(2);
+                    names.add(new Entry(function, Kind.FUNCTION));
+                    members.add(new Entry(rs.getString(1) + "." + function, Kind.FUNCTION));
+                }
+            }
+
+            Snapshot loaded = new Snapshot(fingerprint, new NameIndex(names), new NameIndex(members));
+            setSnapshot(loaded);
+            writeSnapshot(loaded);
+        } catch (SQLException e) {
+            System.err.println("Failed to load schema metadata: " + e.getMessage());
+        }
+    }
+
+    private Snapshot readSnapshot() {
+        if (!cacheFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            String fingerprint = in.readUTF();
+            return new Snapshot(fingerprint, NameIndex.read(in), NameIndex.read(in));
+        } catch (IOException e) {
+            System.err.println("Failed to read schema metadata cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeSnapshot(Snapshot snapshot) {
+        cacheFile.getParentFile().mkdirs();
+        File temp = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(snapshot.fingerprint);
+            snapshot.names.write(out);
+            snapshot.members.write(out);
+        } catch (IOException e) {
+            System.err.println("Failed to save schema metadata cache: " + e.getMessage());
+            return;
+        }
+        if (!temp.renameTo(cacheFile)) {
+            cacheFile.delete();
+            temp.renameTo(cacheFile);
+        }
+    }
+
+    private static class Snapshot {
+        final String fingerprint;
+        final NameIndex names;
+        final NameIndex members;
+
+        Snapshot(String fingerprint, NameIndex names, NameIndex members) {
+            this.fingerprint = fingerprint;
+            this.names = names;
+            this.members = members;
+        }
+    }
+
+    private static class Entry {
+        final String name;
+        final String key;
+        final Kind kind;
+
+        Entry(String name, Kind kind) {
+            this.name = name;
+            this.key = name.toLowerCase(Locale.ROOT);
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * Names sorted by lower-case key, with duplicates of the same kind removed.
+     */
+    private static class NameIndex {
+        private final String[] keys;
+        private final String[] names;
+        private final byte[] kinds;
+
+        NameIndex(List<Entry> entries) {
+            entries.sort(Comparator.<Entry, String>comparing(e -> e.key).thenComparing(e -> e.kind));
+            List<Entry> unique = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                Entry last = unique.isEmpty() ? null : unique.get(unique.size() - 1);
+                if (last == null || !last.key.equals(entry.key) || last.kind != entry.kind) {
+                    unique.add(entry);
+                }
+            }
+            keys = new String[unique.size()];
+            names = new String[unique.size()];
+            kinds = new byte[unique.size()];
+            for (int i = 0; i < unique.size(); i++) {
+                keys[i] = unique.get(i).key;
+                names[i] = unique.get(i).name;
+                kinds[i] = (byte) unique.get(i).kind.ordinal();
+            }
+        }
+
+        private NameIndex(String[] names, byte[] kinds) {
+            this.names = names;
+            this.kinds = kinds;
+            this.keys = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                keys[i] = names[i].toLowerCase(Locale.ROOT);
+            }
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        /**
+         * @return estimated heap footprint of the key and name strings
+         */
+        long bytes() {
+            long bytes = kinds.length;
+            for (String name : names) {
+                // Key and name strings plus their headers and array slots
+                bytes += 2 * (name.length() + 56L);
+            }
+            return bytes;
+        }
+
+        /**
+         * @param skip characters of each matching name to leave out of the result
+         */
+        List<Completion> find(String prefix, int skip, int limit) {
+            int i = Arrays.binarySearch(keys, prefix);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            while (i > 0 && keys[i - 1].equals(prefix)) {
+                i--;
+            }
+            Kind[] values = Kind.values();
+            List<Completion> result = new ArrayList<>();
+            for (; i < keys.length && result.size() < limit && keys[i].startsWith(prefix); i++) {
+                result.add(new Completion(names[i].substring(skip), values[kinds[i]]));
+            }
+            return result;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                out.writeUTF(names[i]);
+                out.writeByte(kinds[i]);
+            }
+        }
+
+        static NameIndex read(DataInputStream in) throws IOException {
+            int count = in.readInt();
+            String[] names = new String[count];
+            byte[] kinds = new byte[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = in.readUTF();
+                kinds[i] = in.readByte();
+            }
+            return new NameIndex(names, kinds);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.sqlexecutor.util;
+
+import org.postgresql.util.PSQLWarning;
+
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams server notices and warnings (RAISE NOTICE and friends) while
+ * statements are still running. pgjdbc appends each notice to the
+ * statement's warning chain as soon as it arrives, so a side thread polls
+ * the chains of all attached statements and moves new entries into a
+ * bounded queue. When the queue is full the poller blocks until the
+ * consumer catches up; notices stay on the warning chain meanwhile.
+ */
+public class NoticeMonitor implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 1000;
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final BlockingQueue<String> queue;
+    private final Map<Statement, Cursor> cursors = new ConcurrentHashMap<>();
+    private final Thread poller;
+    private volatile boolean closed;
+
+    public NoticeMonitor() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NoticeMonitor(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.poller = new Thread(this::pollLoop, "sql-notices");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    /**
+     * Starts following a statement's warning chain.
+     *
+     * @param label prefixed to each message, usually the file name
+     */
+    public void attach(Statement stmt, String label) {
+        cursors.put(stmt, new Cursor(stmt, label));
+    }
+
+    /**
+     * Collects anything still pending and stops following the statement.
+     */
+    public void detach(Statement stmt) {
+        Cursor cursor = cursors.remove(stmt);
+        if (cursor != null) {
+            cursor.poll();
+        }
+    }
+
+    /**
+     * Collects pending messages now. Must be called before the statement's
+     * warnings are cleared so none are missed.
+     */
+    public void poll(Statement stmt) {
+        Cursor cursor = cursors.get(stmt);
+        if (cursor != null) {
+            cursor.poll();
+        }
+    }
+
+    /**
+     * Moves all queued messages into {@code target}, without blocking.
+     *
+     * @return the number of messages moved
+     */
+    public int drainTo(Collection<String> target) {
+        return queue.drainTo(target);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        poller.interrupt();
+    }
+
+    private void pollLoop() {
+        while (!closed) {
+            for (Cursor cursor : cursors.values()) {
+                cursor.poll();
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void put(String message) {
+        try {
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Position in one statement's warning chain.
+     */
+    private class Cursor {
+        private final Statement stmt;
+        private final String label;
+        private SQLWarning head;
+        private SQLWarning last;
+
+        Cursor(Statement stmt, String label) {
+            this.stmt = stmt;
+            this.label = label;
+        }
+
+        synchronized void poll() {
+            SQLWarning current;
+            try {
+                current = stmt.getWarnings();
+            } catch (SQLException e) {
+                return; // statement closed
+            }
+            if (current != head) {
+                // Chain was cleared and restarted
+                head = current;
+                last = null;
+            }
+            SQLWarning next = last == null ? head : last.getNextWarning();
+            while (next != null && !closed) {
+                put(label + " " + severity(next) + ": " + next.getMessage());
+                last = next;
+                next = next.getNextWarning();
+            }
+        }
+    }
+
+    private static String severity(SQLWarning warning) {
+        if (warning instanceof PSQLWarning && ((PSQLWarning) warning).getServerErrorMessage() != null) {
+            String severity = ((PSQLWarning) warning).getServerErrorMessage().getSeverity();
+            if (severity != null) {
+                return severity;
+            }
+        }
+        return "WARNING";
+    }
+}
@@ -0,0 +1,107 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.SQLFile;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fans a batch out over files and target databases, running every
+ * file/target pair as its own task on an {@link ExecutionBackend}. The
+ * number of statements in flight against a database is bounded by that
+ * target's {@link ConnectionPool}, not by the number of threads. Tasks are
+ * submitted only as fast as connections can take them, since a submitted
+ * task reads its file before it waits for a connection.
+ */
+public class ParallelExecutor {
+    private final ExecutionBackend backend;
+    private final Function<DatabaseConfig, SQLExecutor> executorFactory;
+
+    /**
+     * @param executorFactory creates a configured executor for a target; called once per target
+     */
+    public ParallelExecutor(ExecutionBackend backend, Function<DatabaseConfig, SQLExecutor> executorFactory) {
+        this.backend = backend;
+        this.executorFactory = executorFactory;
+    }
+
+    /**
+     * Runs every file against every target. Files are not ordered relative to
+     * each other, so this is only suitable for independent scripts.
+     *
+     * @param resultConsumer called from worker threads as each pair completes
+     * @return results ordered by file, then target
+     */
+    public List<ExecutionResult> execute(List<File> files, List<DatabaseConfig> targets,
+                                         Consumer<ExecutionResult> resultConsumer) throws InterruptedException {
+        int parallelism = 0;
+        Map<DatabaseConfig, SQLExecutor> executors = new ConcurrentHashMap<>();
+        for (DatabaseConfig target : targets) {
+            executors.put(target, executorFactory.apply(target));
+            parallelism += target.getMaxConnections();
+        }
+
+        // Each file is read once and shared by all targets, then dropped once
+        // the last target has run it so a large batch is not held in memory
+        Map<File, SQLFile> loaded = new ConcurrentHashMap<>();
+        Map<File, AtomicInteger> pending = new ConcurrentHashMap<>();
+        // At most one task per connection is in flight, so at most that many files are loaded
+        Semaphore inFlight = new Semaphore(Math.max(parallelism, 1));
+        ExecutorService service = backend.newExecutor(parallelism);
+        List<Future<ExecutionResult>> futures = new ArrayList<>();
+        try {
+            for (File file : files) {
+                for (DatabaseConfig target : targets) {
+                    inFlight.acquire();
+                    futures.add(service.submit(() -> {
+                        try {
+                            SQLFile sqlFile = loaded.computeIfAbsent(file, SQLFile::new);
+                            if (pending.computeIfAbsent(file, f -> new AtomicInteger(targets.size()))
+                                    .decrementAndGet() == 0) {
+                                loaded.remove(file);
+                            }
+                            ExecutionResult result = executors.get(target).execute(sqlFile);
+                            if (targets.size() > 1) {
+                                result.setTarget(target.getJdbcUrl());
+                            }
+                            if (resultConsumer != null) {
+                                resultConsumer.accept(result);
+                            }
+                            return result;
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                }
+            }
+
+            List<ExecutionResult> results = new ArrayList<>();
+            for (Future<ExecutionResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Execution task failed: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    public ExecutionBackend getBackend() {
+        return backend;
+    }
+}
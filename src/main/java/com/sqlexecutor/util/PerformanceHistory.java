@@ -0,0 +1,372 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+import com.sqlexecutor.model.ExecutionStatus;
+import com.sqlexecutor.model.PerformanceSummary;
+import com.sqlexecutor.model.SQLStatement;
+import com.sqlexecutor.model.StatementResults;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Timings of every run of a file, and of each statement in it, kept per
+ * target database so recurring scripts can be compared across runs and
+ * server-side regressions noticed.
+ *
+ * <p>Timings are not stored one by one. Each file and statement has a series
+ * of day buckets, and each bucket is a log-scale histogram (8 bins per
+ * doubling, so about 9% wide) of the durations seen that day. Buckets older
+ * than {@link #DAILY_DAYS} are merged into 30-day buckets, so a file run daily
+ * for years keeps a few hundred buckets and the report reads them in
+ * milliseconds. Statements get a series once they take at least
+ * {@link #STATEMENT_MIN_MICROS}; series of statements that left the file are
+ * dropped once they have no daily buckets left. Statements are identified by
+ * the hash of their text, so an edited statement starts a new series.
+ *
+ * <p>File layout under {@code ~/.sqlexecutor/perf}, one file per target and
+ * script: int magic, int version, UTF target, UTF path, int series count; per
+ * series UTF key (empty for the file), int line, UTF statement start, int
+ * bucket count; per bucket int epoch day, short bin count, then short bin and
+ * int count per bin.
+ */
+public class PerformanceHistory {
+    private static final int MAGIC = 0x53514C50; // "SQLP"
+    private static final int VERSION = 1;
+    private static final String PERF_DIR = ConfigManager.getConfigDir() + File.separator + "perf";
+
+    private static final int DAILY_DAYS = 90;
+    private static final int ROLLUP_DAYS = 30;
+    private static final int RECENT_DAYS = 7;
+    private static final int BASELINE_DAYS = 30;
+    private static final int TREND_WEEKS = 8;
+    // Recent median over baseline median that counts as a regression
+    private static final double REGRESSION_FACTOR = 2.0;
+    private static final long MIN_BASELINE_RUNS = 3;
+    // Doubling a sub-millisecond statement is jitter, not a regression
+    private static final long MIN_REGRESSION_MICROS = 1000;
+    private static final long STATEMENT_MIN_MICROS = 10_000;
+    private static final int MAX_STATEMENT_SERIES = 1000;
+    private static final int PREVIEW_CHARS = 60;
+
+    private static final int BINS_PER_DOUBLING = 8;
+    // 2^40 microseconds is about 12 days
+    private static final int MAX_BIN = 40 * BINS_PER_DOUBLING;
+
+    /**
+     * Adds a run of a file to its history.
+     *
+     * @param results    timings of the statements that ran; only successful ones are recorded
+     * @param fileMicros duration of the whole file, or -1 if only part of it ran
+     */
+    public static synchronized void record(String filePath, DatabaseConfig target, List<SQLStatement> statements,
+                                           StatementResults results, long fileMicros) {
+        File file = fileFor(filePath, target);
+        Store store = file.exists() ? load(file) : null;
+        if (store == null) {
+            store = new Store(target.getJdbcUrl(), filePath);
+        }
+        int today = today();
+        if (fileMicros >= 0) {
+            store.series("", 0, null).add(today, fileMicros);
+        }
+
+        MessageDigest digest = StatementDiff.newDigest();
+        Set<String> present = new HashSet<>();
+        int statementSeries = store.series.size();
+        for (int i = 0; i < statements.size(); i++) {
+            SQLStatement statement = statements.get(i);
+            String key = StatementDiff.hash(digest, statement.getSql());
+            present.add(key);
+            if (results.getStatus(i) != ExecutionStatus.SUCCESS) {
+                continue;
+            }
+            long micros = results.getElapsedMicros(i);
+            Series series = store.series.get(key);
+            if (series == null && micros >= STATEMENT_MIN_MICROS && statementSeries < MAX_STATEMENT_SERIES) {
+                series = store.series(key, statement.getLineNumber(), preview(statement.getSql()));
+                statementSeries++;
+            }
+            if (series != null) {
+                series.lineNumber = statement.getLineNumber();
+                series.add(today, micros);
+            }
+        }
+
+        for (Series series : store.series.values()) {
+            series.rollUp(today);
+        }
+        store.series.values().removeIf(series -> !series.key.isEmpty() && !present.contains(series.key)
+                && series.buckets.lastKey() <= today - DAILY_DAYS);
+        save(store, file);
+    }
+
+    /**
+     * @param statements include statements as well as whole files
+     * @return summaries ordered by target, file and line, each file before its statements
+     */
+    public static synchronized List<PerformanceSummary> report(boolean statements) {
+        List<PerformanceSummary> summaries = new ArrayList<>();
+        File[] files = new File(PERF_DIR).listFiles((dir, name) -> name.endsWith(".bin"));
+        if (files == null) {
+            return summaries;
+        }
+        int today = today();
+        for (File file : files) {
+            Store store = load(file);
+            if (store == null) {
+                continue;
+            }
+            for (Series series : store.series.values()) {
+                if (statements || series.key.isEmpty()) {
+                    summaries.add(summarize(store, series, today));
+                }
+            }
+        }
+        summaries.sort(Comparator.comparing(PerformanceSummary::getTarget)
+                .thenComparing(PerformanceSummary::getFilePath)
+                .thenComparingInt(PerformanceSummary::getLineNumber));
+        return summaries;
+    }
+
+    private static PerformanceSummary summarize(Store store, Series series, int today) {
+        Histogram all = series.merged(Integer.MIN_VALUE, today);
+        Histogram month = series.merged(today - BASELINE_DAYS, today);
+        Histogram recent = series.merged(today - RECENT_DAYS, today);
+        Histogram baseline = series.merged(today - RECENT_DAYS - BASELINE_DAYS, today - RECENT_DAYS);
+        long[] weekly = new long[TREND_WEEKS];
+        for (int week = 0; week < TREND_WEEKS; week++) {
+            int end = today - (TREND_WEEKS - 1 - week) * 7;
+            weekly[week] = series.merged(end - 7, end).percentile(0.5);
+        }
+        long recentP50 = recent.percentile(0.5);
+        long baselineP50 = baseline.percentile(0.5);
+        boolean regression = recentP50 >= 0 && baseline.count() >= MIN_BASELINE_RUNS
+                && recentP50 > baselineP50 * REGRESSION_FACTOR
+                && recentP50 - baselineP50 >= MIN_REGRESSION_MICROS;
+        return new PerformanceSummary(store.target, store.filePath, series.lineNumber, series.preview,
+                all.count(), all.percentile(0.5), month.percentile(0.5), month.percentile(0.95),
+                baselineP50, recentP50, weekly, regression);
+    }
+
+    private static String preview(String sql) {
+        String text = StatementDiff.stripLeadingComments(sql).trim().replaceAll("\\s+", " ");
+        return text.length() > PREVIEW_CHARS ? text.substring(0, PREVIEW_CHARS - 3) + "..." : text;
+    }
+
+    private static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    static int bin(long micros) {
+        double doublings = Math.log1p(Math.max(micros, 0)) / Math.log(2);
+        return (int) Math.min(MAX_BIN, Math.round(doublings * BINS_PER_DOUBLING));
+    }
+
+    static long micros(int bin) {
+        return Math.round(Math.expm1(bin * Math.log(2) / BINS_PER_DOUBLING));
+    }
+
+    private static File fileFor(String filePath, DatabaseConfig target) {
+        String key = target.getJdbcUrl() + "\n" + filePath;
+        return new File(PERF_DIR, SplitPlanCache.sha256(key.getBytes(StandardCharsets.UTF_8)) + ".bin");
+    }
+
+    private static Store load(File file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            Store store = new Store(in.readUTF(), in.readUTF());
+            int seriesCount = in.readInt();
+            for (int s = 0; s < seriesCount; s++) {
+                String key = in.readUTF();
+                int lineNumber = in.readInt();
+                String preview = in.readUTF();
+                Series series = store.series(key, lineNumber, key.isEmpty() ? null : preview);
+                int bucketCount = in.readInt();
+                for (int b = 0; b < bucketCount; b++) {
+                    int day = in.readInt();
+                    Histogram histogram = new Histogram();
+                    int bins = in.readShort();
+                    for (int i = 0; i < bins; i++) {
+                        histogram.add(in.readShort(), in.readInt());
+                    }
+                    series.buckets.put(day, histogram);
+                }
+            }
+            return store;
+        } catch (IOException e) {
+            System.err.println("Failed to read performance history " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void save(Store store, File file) {
+        file.getParentFile().mkdirs();
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(store.target);
+                out.writeUTF(store.filePath);
+                out.writeInt(store.series.size());
+                for (Series series : store.series.values()) {
+                    out.writeUTF(series.key);
+                    out.writeInt(series.lineNumber);
+                    out.writeUTF(series.preview == null ? "" : series.preview);
+                    out.writeInt(series.buckets.size());
+                    for (Map.Entry<Integer, Histogram> bucket : series.buckets.entrySet()) {
+                        Histogram histogram = bucket.getValue();
+                        out.writeInt(bucket.getKey());
+                        out.writeShort(histogram.size);
+                        for (int i = 0; i < histogram.size; i++) {
+                            out.writeShort(histogram.bins[i]);
+                            out.writeInt(histogram.counts[i]);
+                        }
+                    }
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Failed to save performance history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * History of one file against one target.
+     */
+    private static class Store {
+        final String target;
+        final String filePath;
+        final Map<String, Series> series = new LinkedHashMap<>();
+
+        Store(String target, String filePath) {
+            this.target = target;
+            this.filePath = filePath;
+        }
+
+        Series series(String key, int lineNumber, String preview) {
+            return series.computeIfAbsent(key, k -> new Series(key, lineNumber, preview));
+        }
+    }
+
+    /**
+     * Day buckets of one file or statement, by epoch day.
+     */
+    private static class Series {
+        final String key;
+        int lineNumber;
+        final String preview;
+        final TreeMap<Integer, Histogram> buckets = new TreeMap<>();
+
+        Series(String key, int lineNumber, String preview) {
+            this.key = key;
+            this.lineNumber = lineNumber;
+            this.preview = preview;
+        }
+
+        void add(int day, long micros) {
+            buckets.computeIfAbsent(day, d -> new Histogram()).add(bin(micros), 1);
+        }
+
+        /**
+         * Merges day buckets that have aged out into the 30-day bucket holding them.
+         */
+        void rollUp(int today) {
+            List<Integer> old = new ArrayList<>(buckets.headMap(today - DAILY_DAYS, true).keySet());
+            for (int day : old) {
+                int period = day - Math.floorMod(day, ROLLUP_DAYS);
+                if (period != day) {
+                    Histogram histogram = buckets.remove(day);
+                    buckets.computeIfAbsent(period, d -> new Histogram()).addAll(histogram);
+                }
+            }
+        }
+
+        /**
+         * @return the durations seen after day {@code from} up to and including day {@code to}
+         */
+        Histogram merged(int from, int to) {
+            Histogram merged = new Histogram();
+            for (Histogram histogram : buckets.subMap(from, false, to, true).values()) {
+                merged.addAll(histogram);
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Counts per log-scale bin, kept sparse and sorted by bin.
+     */
+    static class Histogram {
+        private short[] bins = new short[4];
+        private int[] counts = new int[4];
+        private int size;
+
+        void add(int bin, int count) {
+            int pos = Arrays.binarySearch(bins, 0, size, (short) bin);
+            if (pos >= 0) {
+                counts[pos] += count;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == bins.length) {
+                bins = Arrays.copyOf(bins, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            System.arraycopy(bins, pos, bins, pos + 1, size - pos);
+            System.arraycopy(counts, pos, counts, pos + 1, size - pos);
+            bins[pos] = (short) bin;
+            counts[pos] = count;
+            size++;
+        }
+
+        void addAll(Histogram other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.bins[i], other.counts[i]);
+            }
+        }
+
+        long count() {
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+
+        /**
+         * @return the duration in microseconds below which the fraction {@code p} of runs fall, or -1 if empty
+         */
+        long percentile(double p) {
+            long total = count();
+            if (total == 0) {
+                return -1;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * total));
+            long seen = 0;
+            for (int i = 0; i < size; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return micros(bins[i]);
+                }
+            }
+            return micros(bins[size - 1]);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.PlanNode;
+import com.sqlexecutor.model.QueryPlan;
+import com.sqlexecutor.model.SQLStatement;
+import com.sqlexecutor.model.StatementKind;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs statements under EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) and turns the
+ * output into a {@link QueryPlan}. EXPLAIN ANALYZE really executes the
+ * statement, whatever it looks like: a SELECT may call a function or hold a
+ * data-modifying WITH. The caller therefore runs it inside a transaction
+ * that is always rolled back; {@link SQLExecutor} does so for the whole file.
+ */
+public class QueryPlanProfiler {
+
+    /**
+     * @return true if the statement can be run under EXPLAIN
+     */
+    public static boolean isProfilable(SQLStatement statement) {
+        StatementKind kind = statement.getKind();
+        // EXPLAIN takes SELECT, VALUES, TABLE and DML, but not SHOW
+        return kind == StatementKind.DML
+                || (kind == StatementKind.QUERY && !SQLStatementSplitter.firstKeyword(statement.getSql()).equals("SHOW"));
+    }
+
+    /**
+     * @throws SQLException if the connection is in autocommit mode, where the
+     *                      statement's effects would be committed
+     */
+    public static QueryPlan profile(Statement stmt, SQLStatement statement) throws SQLException {
+        if (stmt.getConnection().getAutoCommit()) {
+            throw new SQLException("Profiling needs a transaction to roll back", "25P01");
+        }
+        String json;
+        try (ResultSet rs = stmt.executeQuery("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + statement.getSql())) {
+            StringBuilder sb = new StringBuilder();
+            while (rs.next()) {
+                sb.append(rs.getString(1)).append('\n');
+            }
+            json = sb.toString();
+        }
+        return parsePlan(json, statement, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    static QueryPlan parsePlan(String json, SQLStatement statement, boolean rolledBack) {
+        Object parsed = JsonParser.parse(json.trim());
+        Map<String, Object> top = (Map<String, Object>) ((List<Object>) parsed).get(0);
+        PlanNode root = toNode((Map<String, Object>) top.get("Plan"));
+        return new QueryPlan(statement.getIndex(), statement.getLineNumber(), root,
+                number(top.get("Planning Time")), number(top.get("Execution Time")), rolledBack);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PlanNode toNode(Map<String, Object> plan) {
+        PlanNode node = new PlanNode();
+        node.setNodeType((String) plan.get("Node Type"));
+        node.setRelationName((String) plan.get("Relation Name"));
+        node.setPlanRows(number(plan.get("Plan Rows")));
+        node.setActualRows(number(plan.get("Actual Rows")));
+        node.setActualTotalTime(number(plan.get("Actual Total Time")));
+        node.setActualLoops(number(plan.get("Actual Loops")));
+        node.setSharedHitBlocks((long) number(plan.get("Shared Hit Blocks")));
+        node.setSharedReadBlocks((long) number(plan.get("Shared Read Blocks")));
+
+        Object children = plan.get("Plans");
+        if (children instanceof List) {
+            for (Object child : (List<Object>) children) {
+                node.getChildren().add(toNode((Map<String, Object>) child));
+            }
+        }
+        return node;
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
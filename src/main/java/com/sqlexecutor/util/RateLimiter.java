@@ -0,0 +1,199 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token bucket that caps the load a run puts on one database, so backfills
+ * can run against production without starving live traffic.
+ *
+ * <p>The bucket fills at the configured rate and holds at most
+ * {@link #BURST_SECONDS} worth of tokens. In statements-per-second mode each
+ * statement takes a token before it is sent (a batch takes one per
+ * statement). Rows and busy time are only known afterwards, so in those
+ * modes the cost is charged when the statement completes and the bucket may
+ * go into debt; the next statement waits until the debt is repaid. In busy
+ * mode a token is a second of statement time, so at 25% a statement that
+ * ran for 100 ms is followed by 300 ms of idle time. Busy time is summed
+ * over all connections to the target.
+ *
+ * <p>The limit can be changed at any time; waiting threads pick up the new
+ * rate at once.
+ */
+public class RateLimiter {
+    public enum Mode {
+        OFF,
+        STATEMENTS_PER_SECOND,
+        ROWS_PER_SECOND,
+        /** Percentage of wall time the target may spend executing statements */
+        BUSY_PERCENT
+    }
+
+    // Burst allowance, as seconds' worth of the rate
+    private static final double BURST_SECONDS = 0.1;
+    // Waits are re-checked at least this often so limit changes take effect quickly
+    private static final long MAX_WAIT_MILLIS = 100;
+
+    private Mode mode = Mode.OFF;
+    private double limit;
+    // Tokens refilled per second: statements, rows, or seconds of busy time
+    private double rate;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long waitedNanos;
+
+    public synchronized void setLimit(Mode mode, double limit) {
+        refill();
+        if (mode == Mode.BUSY_PERCENT) {
+            limit = Math.max(1, Math.min(100, limit));
+        }
+        if (limit <= 0) {
+            mode = Mode.OFF;
+        }
+        this.mode = mode;
+        this.limit = limit;
+        this.rate = mode == Mode.BUSY_PERCENT ? limit / 100.0 : limit;
+        // Keep any debt, but do not carry credit over from a more generous limit
+        this.tokens = Math.min(tokens, capacity());
+        notifyAll();
+    }
+
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    /**
+     * Waits until statements may be sent.
+     *
+     * @param statements how many statements will be sent together
+     * @return nanoseconds spent waiting, or -1 if interrupted
+     */
+    public synchronized long acquire(int statements) {
+        if (mode == Mode.OFF) {
+            return 0;
+        }
+        refill();
+        if (mode == Mode.STATEMENTS_PER_SECOND) {
+            tokens -= statements;
+        }
+        long start = System.nanoTime();
+        try {
+            while (mode != Mode.OFF && tokens < 0) {
+                long millis = (long) Math.ceil(-tokens / rate * 1000);
+                wait(Math.max(1, Math.min(millis, MAX_WAIT_MILLIS)));
+                refill();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+        long waited = System.nanoTime() - start;
+        waitedNanos += waited;
+        return waited;
+    }
+
+    /**
+     * Charges a completed statement or batch against the bucket.
+     *
+     * @param rows      rows affected
+     * @param busyNanos time the statements spent executing
+     */
+    public synchronized void completed(long rows, long busyNanos) {
+        if (mode == Mode.ROWS_PER_SECOND) {
+            refill();
+            tokens -= rows;
+        } else if (mode == Mode.BUSY_PERCENT) {
+            refill();
+            tokens -= busyNanos / 1e9;
+        }
+    }
+
+    /**
+     * @return total time statements have been held back
+     */
+    public synchronized long getWaitedMillis() {
+        return waitedNanos / 1_000_000;
+    }
+
+    private double capacity() {
+        // At least one statement, or a single batch could never start
+        return mode == Mode.STATEMENTS_PER_SECOND ? Math.max(rate * BURST_SECONDS, 1) : rate * BURST_SECONDS;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        if (mode != Mode.OFF) {
+            tokens = Math.min(capacity(), tokens + (now - lastRefill) / 1e9 * rate);
+        }
+        lastRefill = now;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return describe(mode, limit);
+    }
+
+    public static String describe(Mode mode, double limit) {
+        switch (mode) {
+            case STATEMENTS_PER_SECOND:
+                return String.format("%.0f statements/s", limit);
+            case ROWS_PER_SECOND:
+                return String.format("%.0f rows/s", limit);
+            case BUSY_PERCENT:
+                return String.format("%.0f%% busy", limit);
+            default:
+                return "off";
+        }
+    }
+
+    /**
+     * One limiter per target database, all following the same limit. A run
+     * against several targets throttles each separately.
+     */
+    public static class Group {
+        private final Map<String, RateLimiter> limiters = new HashMap<>();
+        private Mode mode = Mode.OFF;
+        private double limit;
+
+        public Group(Mode mode, double limit) {
+            this.mode = mode;
+            this.limit = limit;
+        }
+
+        public synchronized RateLimiter forTarget(DatabaseConfig config) {
+            return limiters.computeIfAbsent(config.getJdbcUrl(), url -> {
+                RateLimiter limiter = new RateLimiter();
+                limiter.setLimit(mode, limit);
+                return limiter;
+            });
+        }
+
+        /**
+         * Changes the limit for every target, including statements already waiting.
+         */
+        public synchronized void setLimit(Mode mode, double limit) {
+            this.mode = mode;
+            this.limit = limit;
+            for (RateLimiter limiter : limiters.values()) {
+                limiter.setLimit(mode, limit);
+            }
+        }
+
+        /**
+         * @return total time statements have been held back, across targets
+         */
+        public synchronized long getWaitedMillis() {
+            long waited = 0;
+            for (RateLimiter limiter : limiters.values()) {
+                waited += limiter.getWaitedMillis();
+            }
+            return waited;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.PerformanceSummary;
+import com.sqlexecutor.model.QueryPlan;
+import com.sqlexecutor.model.StatementResults;
+import com.sqlexecutor.model.ValidationIssue;
+
+import java.util.List;
+
+/**
+ * Renders {@link ExecutionResult}s as the plain-text report shown in the
+ * execution log and printed by the command line. Results are appended to a
+ * caller-supplied builder so a batch can be rendered into one buffer.
+ */
+public class ResultFormatter {
+    private static final int SLOWEST_STATEMENTS = 3;
+    private static final int MAX_MESSAGES_SHOWN = 20;
+    private static final String TREND_LEVELS = "_.-~=+*#";
+
+    public static String format(ExecutionResult result) {
+        StringBuilder sb = new StringBuilder(256);
+        appendTo(sb, result);
+        return sb.toString();
+    }
+
+    public static void appendTo(StringBuilder sb, ExecutionResult result) {
+        sb.append("File: ").append(result.getFileName()).append('\n');
+        if (result.getTarget() != null) {
+            sb.append("Target: ").append(result.getTarget()).append('\n');
+        }
+        sb.append("Status: ").append(result.getStatus()).append('\n');
+        sb.append("Time: ").append(result.getExecutionTime()).append(" ms\n");
+        if (result.getThrottledTime() > 0) {
+            sb.append("Throttled: ").append(result.getThrottledTime()).append(" ms\n");
+        }
+
+        if (result.isSuccess()) {
+            if (result.getStatementResults() != null) {
+                sb.append("Rows affected: ").append(result.getRowsAffected()).append('\n');
+            } else {
+                sb.append(result.getMessage()).append('\n');
+            }
+        } else {
+            sb.append("Error: ").append(result.getMessage());
+            if (result.getSqlState() != null) {
+                sb.append(" [").append(result.getSqlState()).append(']');
+            }
+            if (result.getErrorStatementIndex() >= 0) {
+                sb.append(" (statement ").append(result.getErrorStatementIndex() + 1)
+                        .append(", line ").append(result.getErrorLine());
+                if (result.getErrorColumn() > 0) {
+                    sb.append(':').append(result.getErrorColumn());
+                }
+                sb.append(')');
+            }
+            sb.append('\n');
+        }
+
+        appendStatements(sb, result.getStatementResults());
+
+        List<String> retries = result.getRetries();
+        if (!retries.isEmpty()) {
+            sb.append("Retries: ").append(retries.size()).append('\n');
+            for (String retry : retries) {
+                sb.append("  ").append(retry).append('\n');
+            }
+        }
+
+        for (ValidationIssue issue : result.getValidationIssues()) {
+            sb.append("  ").append(issue).append('\n');
+        }
+        appendMessages(sb, "Warnings", result.getWarnings());
+        appendMessages(sb, "Notices", result.getNotices());
+        if (result.getDroppedMessages() > 0) {
+            sb.append("  (").append(result.getDroppedMessages()).append(" more warnings/notices not kept)\n");
+        }
+
+        for (QueryPlan plan : result.getQueryPlans()) {
+            sb.append(plan);
+        }
+    }
+
+    private static void appendStatements(StringBuilder sb, StatementResults statements) {
+        if (statements == null || statements.getExecutedCount() < 2) {
+            return;
+        }
+        sb.append("Statements: ").append(statements.getExecutedCount()).append(" of ")
+                .append(statements.size()).append(" run; slowest:");
+        for (int index : statements.getSlowest(SLOWEST_STATEMENTS)) {
+            sb.append(" #").append(index + 1).append(" (line ").append(statements.getLineNumber(index))
+                    .append(", ").append(statements.getElapsedMicros(index) / 1000).append(" ms)");
+        }
+        sb.append('\n');
+    }
+
+    private static void appendMessages(StringBuilder sb, String title, List<String> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        sb.append(title).append(": ").append(messages.size()).append('\n');
+        int shown = Math.min(messages.size(), MAX_MESSAGES_SHOWN);
+        for (int i = 0; i < shown; i++) {
+            sb.append("  ").append(messages.get(i)).append('\n');
+        }
+        if (shown < messages.size()) {
+            sb.append("  ... ").append(messages.size() - shown).append(" more\n");
+        }
+    }
+
+    /**
+     * Renders the cross-run performance report, one line per file or
+     * statement, grouped by target.
+     */
+    public static String formatReport(List<PerformanceSummary> summaries) {
+        StringBuilder sb = new StringBuilder(256);
+        int regressions = 0;
+        for (PerformanceSummary summary : summaries) {
+            regressions += summary.isRegression() ? 1 : 0;
+        }
+        sb.append("Performance history: ").append(summaries.size()).append(" entries, ")
+                .append(regressions).append(" regressions (last 7 days' p50 over 2x the 30 days before)\n");
+        String target = null;
+        for (PerformanceSummary summary : summaries) {
+            if (!summary.getTarget().equals(target)) {
+                target = summary.getTarget();
+                sb.append('\n').append("Target: ").append(target).append('\n');
+                sb.append(String.format("   %6s %9s %9s %9s %9s %7s  %-8s  %s%n",
+                        "Runs", "p50", "p95", "Baseline", "Recent", "Change", "Trend", "File / statement"));
+            }
+            sb.append(String.format("%-2s %6d %9s %9s %9s %9s %7s  %-8s  %s%n",
+                    summary.isRegression() ? "!!" : "", summary.getRuns(),
+                    formatMicros(summary.getP50()), formatMicros(summary.getP95()),
+                    formatMicros(summary.getBaselineP50()), formatMicros(summary.getRecentP50()),
+                    formatChange(summary.getChange()), formatTrend(summary.getWeeklyP50()),
+                    summary.isFile() ? summary.getFilePath()
+                            : "  line " + summary.getLineNumber() + ": " + summary.getStatement()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return a duration in the largest unit that keeps it readable, "-" if missing
+     */
+    public static String formatMicros(long micros) {
+        if (micros < 0) {
+            return "-";
+        }
+        if (micros < 1000) {
+            return micros + " us";
+        }
+        if (micros < 1_000_000) {
+            return String.format("%.1f ms", micros / 1000.0);
+        }
+        if (micros < 60_000_000) {
+            return String.format("%.2f s", micros / 1e6);
+        }
+        return String.format("%.1f min", micros / 6e7);
+    }
+
+    public static String formatChange(double change) {
+        return Double.isNaN(change) ? "-" : String.format("%.2fx", change);
+    }
+
+    /**
+     * @return one bar per value scaled between the smallest and largest, blank where missing
+     */
+    public static String formatTrend(long[] values) {
+        long min = Long.MAX_VALUE;
+        long max = -1;
+        for (long value : values) {
+            if (value >= 0) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        StringBuilder sb = new StringBuilder(values.length);
+        int top = TREND_LEVELS.length() - 1;
+        for (long value : values) {
+            if (value < 0) {
+                sb.append(' ');
+            } else {
+                int level = max == min ? top / 2 : (int) Math.round((double) (value - min) / (max - min) * top);
+                sb.append(TREND_LEVELS.charAt(level));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.sqlexecutor.util;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failures are transient and how long to wait before trying
+ * again. Retryable conditions are keyed on SQLSTATE: serialization failures
+ * (40001), deadlocks (40P01) and the connection exception class (08). A
+ * statement that lost its connection may have committed anyway, so callers
+ * only retry those that cannot have. Inside a transaction that spans a
+ * whole file, the file is replayed from its start instead.
+ * Delays grow exponentially up to a cap, with random jitter so that
+ * competing clients do not retry in lock step.
+ */
+public class RetryPolicy {
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public static RetryPolicy defaultPolicy() {
+        return new RetryPolicy(5, 100, 10000);
+    }
+
+    public static RetryPolicy none() {
+        return new RetryPolicy(0, 0, 0);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param retriesSoFar retries already made for the failing statement
+     */
+    public boolean shouldRetry(SQLException e, int retriesSoFar) {
+        return retriesSoFar < maxRetries && isTransient(e);
+    }
+
+    /**
+     * @param retry 1-based number of the retry about to be made
+     * @return milliseconds to wait, between half and all of the capped exponential delay
+     */
+    public long delayFor(int retry) {
+        long ceiling = baseDelayMillis << Math.min(retry - 1, 30);
+        ceiling = Math.min(ceiling < 0 ? maxDelayMillis : ceiling, maxDelayMillis);
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    public static boolean isTransient(SQLException e) {
+        String sqlState = e.getSQLState();
+        return "40001".equals(sqlState) || "40P01".equals(sqlState) || isConnectionFailure(e);
+    }
+
+    /**
+     * @return true if the connection is gone and must be re-opened before retrying
+     */
+    public static boolean isConnectionFailure(SQLException e) {
+        String sqlState = e.getSQLState();
+        return sqlState != null && sqlState.startsWith("08");
+    }
+}
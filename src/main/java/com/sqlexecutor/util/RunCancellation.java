@@ -0,0 +1,53 @@
+package com.sqlexecutor.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets the user stop a run. Shared by every executor of the run: cancelling
+ * cancels the statements running now through JDBC, and files and statements
+ * not yet started are not started. Work already committed stays committed,
+ * and the run's checkpoint journal is kept so it can be resumed.
+ */
+public class RunCancellation {
+    private volatile boolean cancelled;
+    private final Set<Statement> running = ConcurrentHashMap.newKeySet();
+
+    public void cancel() {
+        cancelled = true;
+        for (Statement stmt : running) {
+            try {
+                // The driver only cancels the query this statement is running, if any
+                stmt.cancel();
+            } catch (SQLException e) {
+                System.err.println("Failed to cancel statement: " + e.getMessage());
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a statement to cancel while a file runs on it.
+     */
+    void attach(Statement stmt) {
+        running.add(stmt);
+    }
+
+    void detach(Statement stmt) {
+        running.remove(stmt);
+    }
+
+    /**
+     * @throws SQLException with SQLSTATE 57014 if the run was cancelled
+     */
+    void check() throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Run cancelled by the user", "57014");
+        }
+    }
+}
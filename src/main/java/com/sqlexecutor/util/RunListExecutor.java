@@ -0,0 +1,81 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.RunList;
+import com.sqlexecutor.model.SQLFile;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Runs a saved {@link RunList} in its stored order, stopping at the first
+ * failed file. Files are read and split ahead of execution as in
+ * {@link ExecutionPipeline}; each file runs with its own transaction mode,
+ * timeout and target. Files that changed since the list was saved still
+ * run, with a warning on their result.
+ */
+public class RunListExecutor {
+    private final DatabaseConfig config;
+    private final Consumer<SQLExecutor> executorSetup;
+    // One executor per distinct combination of file options
+    private final Map<String, SQLExecutor> executors = new HashMap<>();
+    private RunList.Entry current;
+    private boolean currentChanged;
+
+    /**
+     * @param config        the profile files run against unless they name another target
+     * @param executorSetup applies shared settings such as listeners to each executor created
+     */
+    public RunListExecutor(DatabaseConfig config, Consumer<SQLExecutor> executorSetup) {
+        this.config = config;
+        this.executorSetup = executorSetup;
+    }
+
+    public List<ExecutionResult> execute(RunList runList, Consumer<ExecutionResult> resultConsumer)
+            throws InterruptedException {
+        Map<File, RunList.Entry> entries = new HashMap<>();
+        for (RunList.Entry entry : runList.getEntries()) {
+            entries.put(entry.getFile(), entry);
+        }
+
+        // Files execute one at a time on this thread, so the selector can
+        // leave a note for the result that follows it
+        ExecutionPipeline pipeline = new ExecutionPipeline(sqlFile -> select(entries.get(sqlFile.getFile()), sqlFile),
+                ExecutionPipeline.DEFAULT_QUEUE_CAPACITY);
+        pipeline.setStopOnFailure(true);
+        return pipeline.execute(runList.getFiles(), result -> {
+            if (!current.getTarget().isEmpty()) {
+                result.setTarget(current.getTarget());
+            }
+            if (currentChanged) {
+                result.addWarning("File changed since the run list was saved");
+            }
+            if (resultConsumer != null) {
+                resultConsumer.accept(result);
+            }
+        });
+    }
+
+    private SQLExecutor select(RunList.Entry entry, SQLFile sqlFile) {
+        current = entry;
+        currentChanged = !RunListStore.isUnchanged(entry, sqlFile.getContent());
+        String key = entry.getTransactionMode() + "|" + entry.getTimeout() + "|" + entry.getTarget();
+        return executors.computeIfAbsent(key, k -> {
+            DatabaseConfig fileConfig = new DatabaseConfig(config);
+            if (entry.getTimeout() > 0) {
+                fileConfig.setStatementTimeout(entry.getTimeout());
+            }
+            if (!entry.getTarget().isEmpty()) {
+                fileConfig.setJdbcUrlOverride(entry.getTarget());
+            }
+            SQLExecutor executor = new SQLExecutor(new DatabaseManager(fileConfig));
+            executor.setSingleTransaction(entry.getTransactionMode() == RunList.TransactionMode.SINGLE);
+            executorSetup.accept(executor);
+            return executor;
+        });
+    }
+}
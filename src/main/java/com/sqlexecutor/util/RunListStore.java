@@ -0,0 +1,248 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.RunList;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Saves and loads {@link RunList}s under {@code ~/.sqlexecutor/runlists}.
+ * Ordering is worked out once, when a list is created: each script may
+ * declare what it needs in a header comment such as
+ * {@code -- depends: 001_schema.sql, lookups/002_codes.sql}, and the files
+ * are sorted so every script runs after its dependencies, otherwise keeping
+ * the order they were given in. Running a saved list needs no scanning,
+ * sorting or header parsing.
+ *
+ * <p>File layout: int magic, int version, UTF name, long created, int count,
+ * then per entry UTF path, long length, long lastModified, UTF hash,
+ * byte transaction mode, int timeout, UTF target.
+ */
+public class RunListStore {
+    private static final int MAGIC = 0x53514C52; // "SQLR"
+    private static final int VERSION = 1;
+    private static final String RUNLIST_DIR = ConfigManager.getConfigDir() + File.separator + "runlists";
+    private static final String EXTENSION = ".run";
+
+    // Only the leading comment block is searched for dependency headers
+    private static final Pattern DEPENDS = Pattern.compile("^--\\s*depends\\s*:\\s*(.+)$", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Hashes the files and orders them by their declared dependencies.
+     *
+     * @param files scripts in their preferred order
+     * @throws IllegalArgumentException if a dependency is not among the files or the dependencies form a cycle
+     */
+    public static RunList create(String name, List<File> files) throws IOException {
+        List<File> ordered = orderByDependencies(files);
+        List<RunList.Entry> entries = new ArrayList<>(ordered.size());
+        for (File file : ordered) {
+            entries.add(new RunList.Entry(file.getAbsoluteFile(), file.length(), file.lastModified(),
+                    SplitPlanCache.sha256(Files.readAllBytes(file.toPath()))));
+        }
+        return new RunList(name, System.currentTimeMillis(), entries);
+    }
+
+    /**
+     * @return the names of all saved run lists
+     */
+    public static List<String> list() {
+        List<String> names = new ArrayList<>();
+        File[] files = new File(RUNLIST_DIR).listFiles((dir, fileName) -> fileName.endsWith(EXTENSION));
+        if (files == null) {
+            return names;
+        }
+        for (File file : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                    names.add(in.readUTF());
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to read run list " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+        return names;
+    }
+
+    /**
+     * @return the saved list, or null if there is none by that name
+     */
+    public static RunList load(String name) throws IOException {
+        File file = fileFor(name);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported run list format: " + file);
+            }
+            String storedName = in.readUTF();
+            long created = in.readLong();
+            int count = in.readInt();
+            List<RunList.Entry> entries = new ArrayList<>(count);
+            RunList.TransactionMode[] modes = RunList.TransactionMode.values();
+            for (int i = 0; i < count; i++) {
+                RunList.Entry entry = new RunList.Entry(new File(in.readUTF()), in.readLong(), in.readLong(), in.readUTF());
+                entry.setTransactionMode(modes[in.readByte()]);
+                entry.setTimeout(in.readInt());
+                entry.setTarget(in.readUTF());
+                entries.add(entry);
+            }
+            return new RunList(storedName, created, entries);
+        }
+    }
+
+    public static void save(RunList runList) throws IOException {
+        new File(RUNLIST_DIR).mkdirs();
+        File file = fileFor(runList.getName());
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(runList.getName());
+            out.writeLong(runList.getCreatedAt());
+            out.writeInt(runList.getEntries().size());
+            for (RunList.Entry entry : runList.getEntries()) {
+                out.writeUTF(entry.getFile().getAbsolutePath());
+                out.writeLong(entry.getLength());
+                out.writeLong(entry.getLastModified());
+                out.writeUTF(entry.getContentHash());
+                out.writeByte(entry.getTransactionMode().ordinal());
+                out.writeInt(entry.getTimeout());
+                out.writeUTF(entry.getTarget());
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static boolean delete(String name) {
+        return fileFor(name).delete();
+    }
+
+    /**
+     * Tells whether a file still has the content it had when the list was
+     * saved. Size and modification time are checked first so unchanged
+     * files are not re-hashed.
+     *
+     * @param content the file's current content
+     */
+    public static boolean isUnchanged(RunList.Entry entry, String content) {
+        File file = entry.getFile();
+        if (file.length() == entry.getLength() && file.lastModified() == entry.getLastModified()) {
+            return true;
+        }
+        return entry.getContentHash().equals(SplitPlanCache.sha256(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static File fileFor(String name) {
+        return new File(RUNLIST_DIR, name.replaceAll("[^A-Za-z0-9._-]", "_") + EXTENSION);
+    }
+
+    static List<File> orderByDependencies(List<File> files) throws IOException {
+        int count = files.size();
+        Map<String, Integer> byPath = new HashMap<>();
+        Map<String, List<Integer>> byName = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            File file = files.get(i).getAbsoluteFile();
+            byPath.put(file.toPath().normalize().toString(), i);
+            byName.computeIfAbsent(file.getName(), k -> new ArrayList<>()).add(i);
+        }
+
+        List<List<Integer>> dependents = new ArrayList<>(count);
+        int[] unmet = new int[count];
+        for (int i = 0; i < count; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < count; i++) {
+            File file = files.get(i).getAbsoluteFile();
+            for (String dependency : readDependencies(file)) {
+                int index = resolve(file, dependency, byPath, byName);
+                if (index < 0) {
+                    throw new IllegalArgumentException(file.getName() + " depends on " + dependency
+                            + ", which is not in the run list");
+                }
+                if (index != i) {
+                    dependents.get(index).add(i);
+                    unmet[i]++;
+                }
+            }
+        }
+
+        // Kahn's algorithm, always taking the earliest ready file to keep the given order where possible
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < count; i++) {
+            if (unmet[i] == 0) {
+                ready.add(i);
+            }
+        }
+        List<File> ordered = new ArrayList<>(count);
+        while (!ready.isEmpty()) {
+            int next = ready.poll();
+            ordered.add(files.get(next));
+            for (int dependent : dependents.get(next)) {
+                if (--unmet[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (ordered.size() < count) {
+            List<String> cycle = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (unmet[i] > 0) {
+                    cycle.add(files.get(i).getName());
+                }
+            }
+            throw new IllegalArgumentException("Circular dependencies between " + String.join(", ", cycle));
+        }
+        return ordered;
+    }
+
+    private static int resolve(File file, String dependency, Map<String, Integer> byPath,
+                               Map<String, List<Integer>> byName) {
+        // Relative to the declaring file first, then by file name if that is unambiguous
+        File relative = new File(file.getParentFile(), dependency);
+        Integer index = byPath.get(relative.toPath().normalize().toString());
+        if (index != null) {
+            return index;
+        }
+        List<Integer> named = byName.get(new File(dependency).getName());
+        return named != null && named.size() == 1 ? named.get(0) : -1;
+    }
+
+    private static Set<String> readDependencies(File file) throws IOException {
+        Set<String> dependencies = new LinkedHashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (!line.startsWith("--")) {
+                    break;
+                }
+                Matcher matcher = DEPENDS.matcher(line);
+                if (matcher.matches()) {
+                    for (String dependency : matcher.group(1).split(",")) {
+                        if (!dependency.trim().isEmpty()) {
+                            dependencies.add(dependency.trim());
+                        }
+                    }
+                }
+            }
+        }
+        return dependencies;
+    }
+}
@@ -1,70 +1,1020 @@
 package com.sqlexecutor.util;
 
+import com.sqlexecutor.model.ExecutionProgress;
 import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.ExecutionStatus;
+import com.sqlexecutor.model.QueryPlan;
 import com.sqlexecutor.model.SQLFile;
+import com.sqlexecutor.model.SQLStatement;
+import com.sqlexecutor.model.StatementResults;
+import com.sqlexecutor.model.StatementKind;
+import com.sqlexecutor.model.ValidationIssue;
 
+import org.postgresql.util.PSQLWarning;
+
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 public class SQLExecutor {
     private DatabaseManager dbManager;
-    
+    private ExecutionProgressListener progressListener;
+    private boolean profilingEnabled;
+    private long runDeadline;
+    private RetryPolicy retryPolicy = RetryPolicy.defaultPolicy();
+    private boolean validateOnly;
+    private NoticeMonitor noticeMonitor;
+    private boolean singleTransaction = true;
+    private AdaptiveController adaptiveController;
+    private RateLimiter.Group rateLimits;
+    private CheckpointJournal journal;
+    private boolean changedOnly;
+    private RunCancellation cancellation;
+
+    // Slack given to the server-side statement_timeout before the watchdog steps in
+    private static final long WATCHDOG_SLACK_MS = 2000;
+
+    // Rows per round trip when a query is streamed through a cursor
+    private static final int FETCH_SIZE = 1000;
+
+    // Rough per-value size of a buffered result row, for memory accounting
+    private static final long ESTIMATED_CELL_BYTES = 32;
+
+    // Commands PostgreSQL refuses to run inside a transaction block
+    private static final Pattern NON_TRANSACTIONAL = Pattern.compile("(?is)(VACUUM|CREATE\\s+DATABASE|DROP\\s+DATABASE"
+            + "|ALTER\\s+SYSTEM|CREATE\\s+TABLESPACE|DROP\\s+TABLESPACE|REINDEX\\s+(SYSTEM|DATABASE)"
+            + "|(CREATE|DROP|REINDEX)\\b.*\\bCONCURRENTLY)\\b.*");
+
     public SQLExecutor(DatabaseManager dbManager) {
         this.dbManager = dbManager;
     }
-    
+
+    /**
+     * Registers a listener that is told after each statement how far the
+     * current file has progressed.
+     */
+    public void setProgressListener(ExecutionProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * When enabled, queries and DML are run under EXPLAIN ANALYZE and their
+     * plans are attached to the result. Each file then runs in one
+     * transaction that is always rolled back, so nothing it does is kept,
+     * whatever kind of statement did it; statements that would end that
+     * transaction or cannot run inside one are skipped. Sequence values
+     * drawn are not given back, as with any rollback.
+     */
+    public void setProfilingEnabled(boolean profilingEnabled) {
+        this.profilingEnabled = profilingEnabled;
+    }
+
+    /**
+     * Sets the wall-clock time (epoch millis) by which the whole run must
+     * finish, or 0 for no limit. Statements still running at the deadline are
+     * cancelled and later files are not started.
+     */
+    public void setRunDeadline(long runDeadline) {
+        this.runDeadline = runDeadline;
+    }
+
+    /**
+     * Sets how transient failures such as deadlocks are retried. Use
+     * {@link RetryPolicy#none()} to fail on the first error.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * When enabled, {@link #execute} checks each statement with
+     * {@link ScriptValidator} instead of running it, and reports every
+     * error found rather than stopping at the first. Nothing is committed.
+     */
+    public void setValidateOnly(boolean validateOnly) {
+        this.validateOnly = validateOnly;
+    }
+
+    /**
+     * Streams server notices from running statements into the given monitor,
+     * in addition to collecting them into each result.
+     */
+    public void setNoticeMonitor(NoticeMonitor noticeMonitor) {
+        this.noticeMonitor = noticeMonitor;
+    }
+
+    /**
+     * When enabled, the default, each file runs inside one transaction that
+     * is committed when the file succeeds and rolled back when it fails, so a
+     * file is applied entirely or not at all. A transient failure loses the
+     * transaction, so the file is rolled back and run again from its start,
+     * with the retry policy's backoff and limit counted across the whole
+     * file. An interrupted file resumes from its start.
+     *
+     * <p>When disabled, every statement commits on its own: a failure leaves
+     * the statements before it applied, but transient failures are retried,
+     * consecutive statements may be batched and an interrupted file resumes
+     * after its last committed statement.
+     *
+     * <p>Files that issue their own BEGIN/COMMIT, use chunk-by, or contain a
+     * command that cannot run inside a transaction, such as VACUUM, always
+     * commit statement by statement; the result notes why.
+     */
+    public void setSingleTransaction(boolean singleTransaction) {
+        this.singleTransaction = singleTransaction;
+    }
+
+    /**
+     * Lets the controller decide how many files run at once and how many
+     * consecutive batchable statements are sent as one JDBC batch. Without
+     * a controller statements are always sent one at a time.
+     */
+    public void setAdaptiveController(AdaptiveController adaptiveController) {
+        this.adaptiveController = adaptiveController;
+    }
+
+    /**
+     * Throttles statements so the load on each target stays within the
+     * group's limit. The limit may be changed while files are running.
+     */
+    public void setRateLimits(RateLimiter.Group rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
+    /**
+     * Records each commit in the journal so an interrupted run can resume.
+     * Files the journal shows as partly done start after their last
+     * committed statement.
+     */
+    public void setCheckpointJournal(CheckpointJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * When enabled, only statements that changed since the file was last
+     * applied to the target run, with the definitions that depend on them;
+     * see {@link StatementDiff}. Files never applied before run in full.
+     */
+    public void setChangedOnly(boolean changedOnly) {
+        this.changedOnly = changedOnly;
+    }
+
+    /**
+     * Lets the run be stopped: cancelling stops the statement running now and
+     * starts nothing further. A file stopped halfway reports CANCELLED.
+     */
+    public void setCancellation(RunCancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
     public ExecutionResult execute(SQLFile sqlFile) {
+        return execute(sqlFile, journal != null ? journal.getStartIndex(sqlFile.getAbsolutePath()) : 0);
+    }
+
+    /**
+     * @param startIndex statements before this one are skipped, as already
+     *                   committed; session SET statements among them are replayed
+     */
+    public ExecutionResult execute(SQLFile sqlFile, int startIndex) {
+        if (validateOnly) {
+            return validate(sqlFile);
+        }
+        if (adaptiveController == null) {
+            return run(sqlFile, startIndex);
+        }
+        if (!adaptiveController.acquire()) {
+            ExecutionResult result = new ExecutionResult(sqlFile.getName());
+            result.setStatus(ExecutionStatus.CANCELLED);
+            result.setMessage("Interrupted before this file started");
+            return result;
+        }
+        try {
+            return run(sqlFile, startIndex);
+        } finally {
+            adaptiveController.release();
+        }
+    }
+
+    private ExecutionResult run(SQLFile sqlFile, int startIndex) {
         ExecutionResult result = new ExecutionResult(sqlFile.getName());
         long startTime = System.currentTimeMillis();
-        
-        try (Connection conn = dbManager.getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            // Execute SQL statements
-            String sql = sqlFile.getContent();
-            boolean hasResults = stmt.execute(sql);
-            int rowsAffected = 0;
-            
-            if (hasResults) {
-                try (ResultSet rs = stmt.getResultSet()) {
-                    // Count rows in result set
-                    while (rs.next()) {
-                        rowsAffected++;
+
+        List<SQLStatement> statements = sqlFile.getStatements();
+        long totalBytes = statements.isEmpty() ? 0 : statements.get(statements.size() - 1).getEndByte();
+        long rowsAffected = 0;
+        SQLStatement current = null;
+        StatementResults statementResults = new StatementResults(statements.size());
+
+        if (runDeadline > 0 && startTime >= runDeadline) {
+            result.setStatus(ExecutionStatus.TIMED_OUT);
+            result.setMessage("Run time limit exceeded before this file started");
+            return result;
+        }
+        if (cancellation != null && cancellation.isCancelled()) {
+            result.setStatus(ExecutionStatus.CANCELLED);
+            result.setMessage("Run cancelled before this file started");
+            return result;
+        }
+
+        int statementTimeout = dbManager.getDatabaseConfig().getStatementTimeout();
+        RateLimiter limiter = rateLimits != null ? rateLimits.forTarget(dbManager.getDatabaseConfig()) : null;
+        long throttledNanos = 0;
+        ExecutionWatchdog.Watch watch = null;
+        long statementStart = 0;
+        long statementNanos = 0;
+        Session session = null;
+        result.setStatementResults(statementResults);
+
+        String ownTransactions = singleTransaction && !profilingEnabled ? ownTransactionReason(statements) : null;
+        // A profiled file always runs in a transaction, which is rolled back at the end
+        boolean fileTransaction = profilingEnabled || (singleTransaction && ownTransactions == null);
+
+        try {
+            session = openSession(statementTimeout);
+            attachSession(session, sqlFile);
+            if (fileTransaction) {
+                session.conn.setAutoCommit(false);
+            } else if (ownTransactions != null) {
+                result.addNotice("Committed statement by statement: " + ownTransactions);
+            }
+            StatementDiff.Selection selection = changedOnly
+                    ? StatementDiff.select(statements, sqlFile.getAbsolutePath(), dbManager.getDatabaseConfig()) : null;
+            if (selection != null) {
+                result.addNotice(String.format("Changed only: %d changed and %d dependent statements of %d",
+                        selection.getChanged(), selection.getDependents(), statements.size()));
+            }
+            int i = Math.min(startIndex, statements.size());
+            if (i > 0) {
+                replaySessionSettings(session, statements, i);
+                result.addWarning(String.format("Resumed at statement %d (line %d); the statements before it "
+                        + "were committed by an interrupted run", i + 1,
+                        i < statements.size() ? statements.get(i).getLineNumber() : 0));
+            }
+            fireProgress(sqlFile, i, statements.size(), i > 0 ? statements.get(i - 1).getEndByte() : 0,
+                    totalBytes, 0, startTime);
+
+            // Position of an explicit BEGIN in the script, so a failed transaction can be replayed
+            int transactionStart = -1;
+            long rowsAtTransactionStart = 0;
+            int retries = 0;
+            // In a file transaction a failure replays the whole file, so retries count across it
+            int fileStart = i;
+            int fileRetries = 0;
+            // Statements of a failed batch are retried singly up to here
+            int noBatchBefore = 0;
+
+            // Execute SQL statements one at a time so progress can be reported
+            while (i < statements.size()) {
+                if (cancellation != null) {
+                    cancellation.check();
+                }
+                if (selection != null && !selection.isSelected(i)) {
+                    // Unchanged since it was last applied
+                    while (i < statements.size() && !selection.isSelected(i)) {
+                        i++;
+                    }
+                    SQLStatement last = statements.get(i - 1);
+                    if (!fileTransaction && transactionStart < 0) {
+                        checkpoint(sqlFile, i, result);
                     }
+                    fireProgress(sqlFile, last.getIndex() + 1, statements.size(),
+                            last.getEndByte(), totalBytes, rowsAffected, startTime);
+                    continue;
+                }
+                int batchEnd = i >= noBatchBefore && transactionStart < 0
+                        ? batchEnd(statements, i, selection, fileTransaction) : i + 1;
+                if (batchEnd - i > 1) {
+                    throttledNanos += throttle(limiter, batchEnd - i);
+                    long batchRows = executeBatch(session, statements, i, batchEnd, statementTimeout,
+                            statementResults, result, limiter);
+                    if (batchRows >= 0) {
+                        SQLStatement last = statements.get(batchEnd - 1);
+                        rowsAffected += batchRows;
+                        retries = 0;
+                        i = batchEnd;
+                        checkpoint(sqlFile, i, result);
+                        fireProgress(sqlFile, last.getIndex() + 1, statements.size(),
+                                last.getEndByte(), totalBytes, rowsAffected, startTime);
+                        continue;
+                    }
+                    // The batch was rolled back; run its statements singly to find the failure
+                    noBatchBefore = batchEnd;
+                }
+
+                SQLStatement statement = statements.get(i);
+                if (profilingEnabled && escapesTransaction(statement)) {
+                    result.addWarning(String.format("Not run while profiling: statement %d (line %d) controls "
+                            + "transactions or cannot run inside the rolled-back one",
+                            statement.getIndex() + 1, statement.getLineNumber()));
+                    i++;
+                    fireProgress(sqlFile, statement.getIndex() + 1, statements.size(),
+                            statement.getEndByte(), totalBytes, rowsAffected, startTime);
+                    continue;
+                }
+                current = statement;
+                // A profiled chunk-by statement is explained whole: chunks would commit
+                ChunkedStatement chunked = profilingEnabled ? null
+                        : ChunkedStatement.parse(statement, sqlFile.getAbsolutePath());
+                if (chunked != null && transactionStart >= 0) {
+                    throw new SQLException("chunk-by cannot be used inside a transaction", "25001");
+                }
+                if (chunked == null) {
+                    // Chunked statements are throttled chunk by chunk
+                    throttledNanos += throttle(limiter, 1);
+                }
+                statementStart = System.currentTimeMillis();
+                statementNanos = System.nanoTime();
+                // Each chunk gets the statement timeout; only the run deadline covers them all
+                long timeout = chunked == null ? watchdogTimeout(statementTimeout)
+                        : runDeadline > 0 ? Math.max(runDeadline - System.currentTimeMillis(), 0) : -1;
+                watch = timeout >= 0 ? ExecutionWatchdog.watch(dbManager, session.conn, session.stmt,
+                        session.backendPid, timeout) : null;
+
+                long rows;
+                try {
+                    rows = chunked == null ? executeStatement(session.stmt, statement, result)
+                            : executeChunked(chunked, session.stmt, sqlFile, statement, result, limiter,
+                            rowsAffected, totalBytes, startTime);
+                } catch (SQLException e) {
+                    if (watch != null) {
+                        // Before anything else runs on the connection; whether it fired is still read below
+                        watch.close();
+                    }
+                    // Notices raised before the error are still worth keeping
+                    collectWarnings(session.stmt, result);
+                    if (limiter != null && chunked == null) {
+                        limiter.completed(0, System.nanoTime() - statementNanos);
+                    }
+                    if (adaptiveController != null) {
+                        adaptiveController.recordFailure(e);
+                    }
+                    if (watch != null && watch.hasFired()
+                            || !retryPolicy.shouldRetry(e, fileTransaction ? fileRetries : retries)) {
+                        throw e;
+                    }
+                    // Nothing in a file transaction commits before its end
+                    if (!fileTransaction && RetryPolicy.isConnectionFailure(e)
+                            && !cannotHaveCommitted(e, statement, chunked, transactionStart)) {
+                        throw outcomeUnknown(e);
+                    }
+                    if (watch != null) {
+                        watch.close();
+                        watch = null;
+                    }
+                    long delay;
+                    if (fileTransaction) {
+                        fileRetries++;
+                        delay = retryPolicy.delayFor(fileRetries);
+                        result.addRetry(String.format("Retry %d of the file from statement %d after statement %d "
+                                        + "(line %d) failed with %s [%s], waited %d ms", fileRetries, fileStart + 1,
+                                statement.getIndex() + 1, statement.getLineNumber(), e.getMessage(), e.getSQLState(),
+                                delay));
+                    } else {
+                        retries++;
+                        delay = retryPolicy.delayFor(retries);
+                        result.addRetry(String.format("Retry %d of statement %d (line %d) after %s [%s], waited %d ms",
+                                retries, statement.getIndex() + 1, statement.getLineNumber(),
+                                e.getMessage(), e.getSQLState(), delay));
+                    }
+                    if (!sleep(delay)) {
+                        throw e;
+                    }
+
+                    if (RetryPolicy.isConnectionFailure(e)) {
+                        ConnectionPool.invalidate(session.conn);
+                        detachSession(session);
+                        session.close();
+                        session = openSession(statementTimeout);
+                        attachSession(session, sqlFile);
+                        replaySessionSettings(session, statements,
+                                fileTransaction ? fileStart : transactionStart >= 0 ? transactionStart : i);
+                        if (fileTransaction) {
+                            session.conn.setAutoCommit(false);
+                        }
+                    } else if (fileTransaction) {
+                        session.conn.rollback();
+                        // Settings replayed inside the transaction went with it
+                        replaySessionSettings(session, statements, fileStart);
+                    } else if (transactionStart >= 0) {
+                        session.stmt.execute("ROLLBACK");
+                    }
+                    if (fileTransaction) {
+                        i = fileStart;
+                        rowsAffected = 0;
+                        transactionStart = -1;
+                        fireProgress(sqlFile, i, statements.size(), i > 0 ? statements.get(i - 1).getEndByte() : 0,
+                                totalBytes, 0, startTime);
+                    } else if (transactionStart >= 0) {
+                        // The whole transaction was lost, replay it from BEGIN
+                        i = transactionStart;
+                        rowsAffected = rowsAtTransactionStart;
+                        transactionStart = -1;
+                    }
+                    continue;
+                }
+
+                if (watch != null) {
+                    watch.close();
+                    watch = null;
+                }
+                collectWarnings(session.stmt, result);
+                if (limiter != null && chunked == null) {
+                    limiter.completed(rows, System.nanoTime() - statementNanos);
+                }
+                if (adaptiveController != null) {
+                    adaptiveController.record(1, System.nanoTime() - statementNanos);
+                }
+                statementResults.record(i, statement.getLineNumber(), (System.nanoTime() - statementNanos) / 1000,
+                        rows, ExecutionStatus.SUCCESS);
+
+                if (statement.getKind() == StatementKind.TRANSACTION) {
+                    String keyword = SQLStatementSplitter.firstKeyword(statement.getSql());
+                    if (keyword.equals("BEGIN") || keyword.equals("START")) {
+                        transactionStart = i;
+                        rowsAtTransactionStart = rowsAffected;
+                    } else if (!keyword.equals("SAVEPOINT") && !keyword.equals("RELEASE")) {
+                        transactionStart = -1;
+                    }
+                }
+
+                rowsAffected += rows;
+                retries = 0;
+                i++;
+                if (!fileTransaction && transactionStart < 0) {
+                    checkpoint(sqlFile, i, result);
+                }
+                fireProgress(sqlFile, statement.getIndex() + 1, statements.size(),
+                        statement.getEndByte(), totalBytes, rowsAffected, startTime);
+            }
+
+            if (profilingEnabled) {
+                session.conn.rollback();
+                result.addNotice("Profiled in a transaction that was rolled back; nothing was applied");
+            } else if (fileTransaction) {
+                try {
+                    session.conn.commit();
+                } catch (SQLException e) {
+                    throw RetryPolicy.isConnectionFailure(e) ? outcomeUnknown(e) : e;
+                }
+            }
+            if (journal != null) {
+                try {
+                    journal.fileFinished(sqlFile.getAbsolutePath());
+                } catch (IOException e) {
+                    result.addWarning("Checkpoint not saved: " + e.getMessage());
+                }
+            }
+            if (!profilingEnabled) {
+                StatementDiff.recordApplied(statements, sqlFile.getAbsolutePath(), dbManager.getDatabaseConfig());
+                // A resumed or changed-only run says nothing about how long the whole file takes
+                boolean wholeFile = startIndex == 0 && selection == null;
+                long elapsed = System.currentTimeMillis() - startTime;
+                PerformanceHistory.record(sqlFile.getAbsolutePath(), dbManager.getDatabaseConfig(), statements,
+                        statementResults, wholeFile ? elapsed * 1000 : -1);
+                if (wholeFile) {
+                    ExecutionHistory.recordDuration(sqlFile.getAbsolutePath(), elapsed);
                 }
-            } else {
-                rowsAffected = stmt.getUpdateCount();
             }
-            
             result.setSuccess(true);
             result.setRowsAffected(rowsAffected);
             result.setMessage("SQL executed successfully");
-            
+
         } catch (SQLException e) {
-            result.setSuccess(false);
-            result.setMessage(e.getMessage());
+            if (fileTransaction && session != null) {
+                rollbackQuietly(session.conn);
+            }
+            boolean cancelled = cancellation != null && cancellation.isCancelled();
+            boolean overLimit = !cancelled && ((watch != null && watch.hasFired())
+                    || (statementTimeout > 0 && System.currentTimeMillis() - statementStart >= statementTimeout * 1000L));
+            ExecutionStatus status = classifyFailure(e, overLimit);
+            result.setStatus(status);
+            result.setMessage(ErrorLocator.message(e));
+            result.setSqlState(e.getSQLState());
+            if (current != null) {
+                int[] location = ErrorLocator.locate(current, e, 0);
+                result.setErrorLocation(current.getIndex(), location[0], location[1]);
+                statementResults.record(current.getIndex(), current.getLineNumber(),
+                        (System.nanoTime() - statementNanos) / 1000, 0, status);
+            }
         } finally {
+            if (watch != null) {
+                watch.close();
+            }
+            if (session != null) {
+                detachSession(session);
+                if (fileTransaction) {
+                    restoreAutoCommit(session.conn);
+                }
+                session.close();
+            }
             long endTime = System.currentTimeMillis();
             result.setExecutionTime(endTime - startTime);
+            result.setThrottledTime(throttledNanos / 1_000_000);
+        }
+
+        return result;
+    }
+
+    private ExecutionResult validate(SQLFile sqlFile) {
+        ExecutionResult result = new ExecutionResult(sqlFile.getName());
+        long startTime = System.currentTimeMillis();
+        List<SQLStatement> statements = sqlFile.getStatements();
+        long totalBytes = statements.isEmpty() ? 0 : statements.get(statements.size() - 1).getEndByte();
+
+        try (Session session = openSession(dbManager.getDatabaseConfig().getStatementTimeout())) {
+            ScriptValidator validator = new ScriptValidator(session.conn, session.stmt);
+            validator.begin();
+            int errors = 0;
+            try {
+                fireProgress(sqlFile, 0, statements.size(), 0, totalBytes, 0, startTime);
+                for (SQLStatement statement : statements) {
+                    if (cancellation != null) {
+                        cancellation.check();
+                    }
+                    ValidationIssue issue = validator.check(statement);
+                    if (issue != null) {
+                        result.addValidationIssue(issue);
+                        errors += issue.isWarning() ? 0 : 1;
+                    }
+                    fireProgress(sqlFile, statement.getIndex() + 1, statements.size(),
+                            statement.getEndByte(), totalBytes, 0, startTime);
+                }
+            } finally {
+                validator.end();
+            }
+
+            result.setSuccess(errors == 0);
+            result.setMessage(errors == 0
+                    ? "Validated " + statements.size() + " statements"
+                    : errors + " of " + statements.size() + " statements failed validation");
+        } catch (SQLException e) {
+            result.setStatus(classifyFailure(e, false));
+            result.setMessage(e.getMessage());
+        } finally {
+            result.setExecutionTime(System.currentTimeMillis() - startTime);
         }
-        
         return result;
     }
-    
+
+    private Session openSession(int statementTimeout) throws SQLException {
+        Connection conn = dbManager.getConnection();
+        try {
+            Statement stmt = conn.createStatement();
+            if (statementTimeout > 0) {
+                stmt.setQueryTimeout(statementTimeout);
+            }
+            return new Session(conn, stmt, DatabaseManager.getBackendPid(conn));
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the end (exclusive) of the run of batchable statements starting
+     *         at {@code from}, capped at the controller's batch size
+     */
+    private int batchEnd(List<SQLStatement> statements, int from, StatementDiff.Selection selection,
+                         boolean fileTransaction) {
+        if (adaptiveController == null || fileTransaction || profilingEnabled) {
+            return from + 1;
+        }
+        int limit = Math.min(statements.size(), from + adaptiveController.getBatchSize());
+        int end = from;
+        while (end < limit && statements.get(end).isBatchable()
+                && (selection == null || selection.isSelected(end))
+                && !ChunkedStatement.hasDirective(statements.get(end).getSql())) {
+            end++;
+        }
+        return Math.max(end, from + 1);
+    }
+
+    /**
+     * @return why the statements cannot run as one transaction, or null if they can
+     */
+    private static String ownTransactionReason(List<SQLStatement> statements) {
+        for (SQLStatement statement : statements) {
+            String sql = statement.getSql();
+            if (endsTransaction(statement)) {
+                return "the file controls its own transactions (line " + statement.getLineNumber() + ")";
+            } else if (ChunkedStatement.hasDirective(sql)) {
+                return "chunk-by commits chunk by chunk (line " + statement.getLineNumber() + ")";
+            } else if (isNonTransactional(statement)) {
+                return "the statement at line " + statement.getLineNumber() + " cannot run inside a transaction";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the statement would end the file's transaction or
+     *         cannot run inside one
+     */
+    private static boolean escapesTransaction(SQLStatement statement) {
+        return endsTransaction(statement) || isNonTransactional(statement);
+    }
+
+    /**
+     * @return true for transaction control other than savepoints, which work inside the file's transaction
+     */
+    private static boolean endsTransaction(SQLStatement statement) {
+        if (statement.getKind() != StatementKind.TRANSACTION) {
+            return false;
+        }
+        String sql = statement.getSql();
+        String keyword = SQLStatementSplitter.firstKeyword(sql);
+        return !keyword.equals("SAVEPOINT") && !keyword.equals("RELEASE")
+                && !sql.toUpperCase(Locale.ROOT).matches("(?s)\\s*ROLLBACK\\s+(WORK\\s+|TRANSACTION\\s+)?TO\\b.*");
+    }
+
+    private static boolean isNonTransactional(SQLStatement statement) {
+        return NON_TRANSACTIONAL.matcher(StatementDiff.stripLeadingComments(statement.getSql())).matches();
+    }
+
+    /**
+     * Sends statements {@code [from, to)} as one JDBC batch. The batch runs in
+     * its own transaction so that, whatever the driver does in autocommit
+     * mode, a failure leaves nothing applied and the statements can be rerun
+     * one at a time.
+     *
+     * @return rows affected, or -1 if the batch failed and was rolled back
+     * @throws SQLException if the connection was lost while committing, so
+     *                      the batch may or may not have been applied
+     */
+    private long executeBatch(Session session, List<SQLStatement> statements, int from, int to,
+                              int statementTimeout, StatementResults statementResults, ExecutionResult result,
+                              RateLimiter limiter) throws SQLException {
+        long timeout = watchdogTimeout(statementTimeout);
+        ExecutionWatchdog.Watch watch = timeout >= 0
+                ? ExecutionWatchdog.watch(dbManager, session.conn, session.stmt, session.backendPid, timeout) : null;
+        long start = System.nanoTime();
+        boolean committing = false;
+        try {
+            for (int i = from; i < to; i++) {
+                session.stmt.addBatch(statements.get(i).getSql());
+            }
+            session.conn.setAutoCommit(false);
+            int[] counts;
+            try {
+                counts = session.stmt.executeBatch();
+                committing = true;
+                session.conn.commit();
+            } finally {
+                if (watch != null) {
+                    watch.close();
+                }
+            }
+
+            long elapsed = System.nanoTime() - start;
+            adaptiveController.record(to - from, elapsed);
+            long rows = 0;
+            for (int i = from; i < to; i++) {
+                // SUCCESS_NO_INFO and missing counts are reported as 0 rows
+                long count = i - from < counts.length ? Math.max(counts[i - from], 0) : 0;
+                rows += count;
+                statementResults.record(i, statements.get(i).getLineNumber(), elapsed / 1000 / (to - from),
+                        count, ExecutionStatus.SUCCESS);
+            }
+            if (limiter != null) {
+                limiter.completed(rows, elapsed);
+            }
+            return rows;
+        } catch (SQLException e) {
+            if (limiter != null) {
+                limiter.completed(0, System.nanoTime() - start);
+            }
+            adaptiveController.recordFailure(e);
+            if (committing && RetryPolicy.isConnectionFailure(e)) {
+                // Running the statements again could apply them twice
+                throw outcomeUnknown(e);
+            }
+            rollbackQuietly(session.conn);
+            return -1;
+        } finally {
+            try {
+                session.stmt.clearBatch();
+            } catch (SQLException ignored) {
+                // statement unusable; the next statement reports the real problem
+            }
+            if (watch != null) {
+                watch.close();
+            }
+            restoreAutoCommit(session.conn);
+            collectWarnings(session.stmt, result);
+        }
+    }
+
+    /**
+     * Records that the first {@code completed} statements are committed. A
+     * journal that cannot be written does not stop the run; it only means
+     * an interruption cannot be resumed from this point.
+     */
+    private void checkpoint(SQLFile sqlFile, int completed, ExecutionResult result) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.statementsCommitted(sqlFile.getAbsolutePath(), completed);
+        } catch (IOException e) {
+            result.addWarning("Checkpoint not saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-runs the SET statements among those skipped on resume, so the new
+     * session has the search_path, roles and timeouts the script relied on.
+     */
+    private static void replaySessionSettings(Session session, List<SQLStatement> statements, int end)
+            throws SQLException {
+        for (int k = 0; k < end; k++) {
+            String sql = statements.get(k).getSql();
+            String keyword = SQLStatementSplitter.firstKeyword(sql);
+            if ((keyword.equals("SET") || keyword.equals("RESET"))
+                    && !sql.toUpperCase(Locale.ROOT).matches("(?s).*\\bSET\\s+(LOCAL|TRANSACTION|CONSTRAINTS)\\b.*")) {
+                session.stmt.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Tells whether a statement that lost its connection can be run again on
+     * a new one without the risk of applying it twice. In autocommit the
+     * server may have committed it just before the connection dropped.
+     *
+     * @return true if the statement was never sent, is read-only, only
+     *         affects the session, or runs inside an explicit transaction
+     *         that is replayed from its BEGIN
+     */
+    private static boolean cannotHaveCommitted(SQLException e, SQLStatement statement, ChunkedStatement chunked,
+                                               int transactionStart) {
+        // No connection to send it on, or none could be opened
+        if ("08003".equals(e.getSQLState()) || "08001".equals(e.getSQLState())) {
+            return true;
+        }
+        String keyword = SQLStatementSplitter.firstKeyword(statement.getSql());
+        if (keyword.equals("COMMIT") || keyword.equals("END") || keyword.equals("PREPARE")) {
+            return false;
+        }
+        if (chunked == null && (statement.getKind() == StatementKind.QUERY
+                || keyword.equals("BEGIN") || keyword.equals("START")
+                || keyword.equals("SET") || keyword.equals("RESET"))) {
+            return true;
+        }
+        return transactionStart >= 0;
+    }
+
+    private static SQLException outcomeUnknown(SQLException e) {
+        return new SQLException("Connection lost before the server confirmed the statement; it may or may not "
+                + "have been applied. Check the database before running it again. (" + e.getMessage() + ")",
+                e.getSQLState(), e);
+    }
+
+    /**
+     * Runs a statement with a chunk-by header in committed chunks, reporting
+     * progress within the statement after each one.
+     */
+    private long executeChunked(ChunkedStatement chunked, Statement stmt, SQLFile sqlFile, SQLStatement statement,
+                                ExecutionResult result, RateLimiter limiter, long rowsBefore, long totalBytes,
+                                long startTime) throws SQLException {
+        int count = sqlFile.getStatements().size();
+        long span = statement.getEndByte() - statement.getStartByte();
+        return chunked.execute(stmt, result, limiter, runDeadline, (chunks, rows, fraction) ->
+                fireProgress(sqlFile, statement.getIndex(), count,
+                        statement.getStartByte() + (fraction > 0 ? (long) (span * fraction) : 0), totalBytes,
+                        rowsBefore + rows, startTime));
+    }
+
+    /**
+     * Waits for the rate limit, if any.
+     *
+     * @return nanoseconds spent waiting
+     */
+    private static long throttle(RateLimiter limiter, int statements) throws SQLException {
+        if (limiter == null) {
+            return 0;
+        }
+        long waited = limiter.acquire(statements);
+        if (waited < 0) {
+            throw new SQLException("Interrupted while waiting for the rate limit", "57014");
+        }
+        return waited;
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException ignored) {
+            // connection broken; the server discards the transaction anyway
+        }
+    }
+
+    private static void restoreAutoCommit(Connection conn) {
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException ignored) {
+            // connection broken; the pool will not reuse it
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return milliseconds the watchdog should allow the next statement, or -1 for no limit
+     */
+    private long watchdogTimeout(int statementTimeout) {
+        long timeout = statementTimeout > 0 ? statementTimeout * 1000L + WATCHDOG_SLACK_MS : -1;
+        if (runDeadline > 0) {
+            long remaining = Math.max(runDeadline - System.currentTimeMillis(), 0);
+            timeout = timeout < 0 ? remaining : Math.min(timeout, remaining);
+        }
+        return timeout;
+    }
+
+    private static ExecutionStatus classifyFailure(SQLException e, boolean overLimit) {
+        String sqlState = e.getSQLState();
+        if ("55P03".equals(sqlState) || ("57014".equals(sqlState) && overLimit)) {
+            // lock_timeout, or a cancel issued because a limit was exceeded
+            return ExecutionStatus.TIMED_OUT;
+        }
+        if ("57014".equals(sqlState)) {
+            // statement_timeout reports itself; anything else came from outside
+            String message = e.getMessage() != null ? e.getMessage().toLowerCase() : "";
+            return message.contains("timeout") ? ExecutionStatus.TIMED_OUT : ExecutionStatus.CANCELLED;
+        }
+        return ExecutionStatus.FAILED;
+    }
+
+    private long executeStatement(Statement stmt, SQLStatement statement, ExecutionResult result)
+            throws SQLException {
+        if (profilingEnabled && QueryPlanProfiler.isProfilable(statement)) {
+            QueryPlan plan = QueryPlanProfiler.profile(stmt, statement);
+            result.addQueryPlan(plan);
+            return Math.round(plan.getRoot().getActualRows());
+        }
+
+        MemoryBudget budget = MemoryBudget.getInstance();
+        Connection conn = stmt.getConnection();
+        // pgjdbc buffers whole results unless a cursor is used, which needs autocommit off. In autocommit
+        // the query gets a transaction of its own, but only if the script has none open that it would end
+        boolean stream = false;
+        boolean ownTransaction = false;
+        if (statement.getKind() == StatementKind.QUERY && budget.isElevated()) {
+            ownTransaction = conn.getAutoCommit() && !DatabaseManager.inOpenTransaction(conn);
+            stream = ownTransaction || !conn.getAutoCommit();
+        }
+        if (ownTransaction) {
+            conn.setAutoCommit(false);
+        }
+        try {
+            stmt.setFetchSize(stream ? budget.fetchSize(FETCH_SIZE) : 0);
+            boolean hasResults = stmt.execute(statement.getSql());
+            long rowsAffected = 0;
+
+            if (hasResults) {
+                try (ResultSet rs = stmt.getResultSet();
+                     MemoryBudget.Reservation buffer = budget.reserve(MemoryBudget.Category.FETCH, 0)) {
+                    long rowBytes = ESTIMATED_CELL_BYTES * rs.getMetaData().getColumnCount();
+                    if (stream) {
+                        buffer.resize(stmt.getFetchSize() * rowBytes);
+                    }
+                    // Count rows in result set
+                    while (rs.next()) {
+                        rowsAffected++;
+                        if (!stream && (rowsAffected & 1023) == 0) {
+                            buffer.resize(rowsAffected * rowBytes);
+                        }
+                    }
+                }
+            } else {
+                rowsAffected = Math.max(stmt.getUpdateCount(), 0);
+            }
+            if (ownTransaction) {
+                conn.commit();
+            }
+            return rowsAffected;
+        } finally {
+            if (ownTransaction) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                    // connection broken; the failure being thrown says more
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the statement's warning chain into the result. Server notices
+     * such as RAISE NOTICE arrive as warnings with a non-WARNING severity.
+     */
+    private void collectWarnings(Statement stmt, ExecutionResult result) {
+        try {
+            SQLWarning warning = stmt.getWarnings();
+            if (warning == null) {
+                return;
+            }
+            if (noticeMonitor != null) {
+                noticeMonitor.poll(stmt);
+            }
+            for (; warning != null; warning = warning.getNextWarning()) {
+                if (isNotice(warning)) {
+                    result.addNotice(warning.getMessage());
+                } else {
+                    result.addWarning(warning.getMessage());
+                }
+            }
+            stmt.clearWarnings();
+        } catch (SQLException ignored) {
+            // statement already closed
+        }
+    }
+
+    private void attachSession(Session session, SQLFile sqlFile) {
+        if (noticeMonitor != null) {
+            noticeMonitor.attach(session.stmt, sqlFile.getName());
+        }
+        if (cancellation != null) {
+            cancellation.attach(session.stmt);
+        }
+    }
+
+    private void detachSession(Session session) {
+        if (noticeMonitor != null && session != null) {
+            noticeMonitor.detach(session.stmt);
+        }
+        if (cancellation != null && session != null) {
+            cancellation.detach(session.stmt);
+        }
+    }
+
+    static boolean isNotice(SQLWarning warning) {
+        if (warning instanceof PSQLWarning && ((PSQLWarning) warning).getServerErrorMessage() != null) {
+            return !"WARNING".equals(((PSQLWarning) warning).getServerErrorMessage().getSeverity());
+        }
+        return false;
+    }
+
+    private void fireProgress(SQLFile sqlFile, int index, int count, long bytes, long totalBytes,
+                              long rows, long startTime) {
+        if (progressListener != null) {
+            progressListener.onProgress(new ExecutionProgress(sqlFile.getAbsolutePath(), index, count,
+                    bytes, totalBytes, rows, System.currentTimeMillis() - startTime));
+        }
+    }
+
+    /**
+     * Connection and statement used to run one file.
+     */
+    private static class Session implements AutoCloseable {
+        private final Connection conn;
+        private final Statement stmt;
+        private final int backendPid;
+
+        Session(Connection conn, Statement stmt, int backendPid) {
+            this.conn = conn;
+            this.stmt = stmt;
+            this.backendPid = backendPid;
+        }
+
+        @Override
+        public void close() {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // connection may already be broken
+            }
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // connection may already be broken
+            }
+        }
+    }
+
     public List<ExecutionResult> executeMultiple(List<SQLFile> sqlFiles) {
         List<ExecutionResult> results = new ArrayList<>();
-        
+
         for (SQLFile sqlFile : sqlFiles) {
             ExecutionResult result = execute(sqlFile);
             results.add(result);
-            
+
             // If an execution fails, stop further execution if needed
             if (!result.isSuccess()) {
                 break;
             }
         }
-        
+
         return results;
     }
-}
\ No newline at end of file
+}
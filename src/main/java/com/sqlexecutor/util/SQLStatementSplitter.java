@@ -0,0 +1,251 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.SQLStatement;
+import com.sqlexecutor.model.StatementKind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits a PostgreSQL script into individual statements on top-level semicolons.
+ * Quoted strings, quoted identifiers, dollar-quoted bodies and comments are
+ * skipped so that semicolons inside them do not end a statement.
+ */
+public class SQLStatementSplitter {
+
+    public static List<SQLStatement> split(String script) {
+        List<SQLStatement> statements = new ArrayList<>();
+        if (script == null || script.isEmpty()) {
+            return statements;
+        }
+
+        int length = script.length();
+        int start = 0;
+        long startByte = 0;
+        long currentByte = 0;
+        int line = 1;
+        int startLine = -1;     // line of first code character in the current statement
+        boolean hasCode = false;
+
+        int i = 0;
+        while (i < length) {
+            char c = script.charAt(i);
+            int next = i + 1;
+
+            if (c == '-' && next < length && script.charAt(next) == '-') {
+                // Line comment
+                next = script.indexOf('\n', i);
+                next = next < 0 ? length : next;
+            } else if (c == '/' && next < length && script.charAt(next) == '*') {
+                next = skipBlockComment(script, i);
+            } else if (c == '\'') {
+                boolean escapes = i > 0 && (script.charAt(i - 1) == 'E' || script.charAt(i - 1) == 'e')
+                        && (i < 2 || !Character.isLetterOrDigit(script.charAt(i - 2)));
+                next = skipQuoted(script, i, '\'', escapes);
+            } else if (c == '"') {
+                next = skipQuoted(script, i, '"', false);
+            } else if (c == '$') {
+                next = skipDollarQuoted(script, i);
+            } else if (c == ';') {
+                currentByte += 1;
+                if (hasCode) {
+                    statements.add(new SQLStatement(statements.size(),
+                            script.substring(start, i).trim(), startLine, startByte, currentByte));
+                }
+                start = i + 1;
+                startByte = currentByte;
+                hasCode = false;
+                i++;
+                continue;
+            }
+
+            if (!hasCode && !Character.isWhitespace(c) && !isCommentStart(script, i)) {
+                hasCode = true;
+                startLine = line;
+            }
+
+            for (int j = i; j < next; j++) {
+                char ch = script.charAt(j);
+                if (ch == '\n') {
+                    line++;
+                }
+                currentByte += utf8Length(script, j);
+                if (Character.isHighSurrogate(ch) && j + 1 < next) {
+                    j++;
+                }
+            }
+            i = next;
+        }
+
+        if (hasCode) {
+            statements.add(new SQLStatement(statements.size(),
+                    script.substring(start).trim(), startLine, startByte, currentByte));
+        }
+        return statements;
+    }
+
+    /**
+     * Classifies a single statement by its first keyword, ignoring leading comments.
+     */
+    public static StatementKind classify(String sql) {
+        String keyword = firstKeyword(sql);
+        switch (keyword) {
+            case "SELECT":
+            case "VALUES":
+            case "TABLE":
+            case "SHOW":
+                return StatementKind.QUERY;
+            case "WITH":
+                // A CTE may wrap a data-modifying statement
+                String upper = sql.toUpperCase(Locale.ROOT);
+                return upper.matches("(?s).*\\)\\s*(INSERT|UPDATE|DELETE|MERGE)\\b.*")
+                        ? StatementKind.DML : StatementKind.QUERY;
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "MERGE":
+                return StatementKind.DML;
+            case "CREATE":
+            case "ALTER":
+            case "DROP":
+            case "TRUNCATE":
+            case "COMMENT":
+            case "GRANT":
+            case "REVOKE":
+                return StatementKind.DDL;
+            case "BEGIN":
+            case "START":
+            case "COMMIT":
+            case "END":
+            case "ROLLBACK":
+            case "ABORT":
+            case "SAVEPOINT":
+            case "RELEASE":
+                return StatementKind.TRANSACTION;
+            default:
+                return StatementKind.OTHER;
+        }
+    }
+
+    /**
+     * @return true if the statement produces only an update count: DML without
+     *         RETURNING, or DDL other than the statements that refuse to run
+     *         inside a transaction block
+     */
+    public static boolean isBatchable(String sql, StatementKind kind) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        if (kind == StatementKind.DML) {
+            return !upper.matches("(?s).*\\bRETURNING\\b.*");
+        }
+        if (kind == StatementKind.DDL) {
+            return !upper.matches("(?s).*\\bCONCURRENTLY\\b.*") && !upper.matches("(?s).*\\b(CREATE|DROP)\\s+DATABASE\\b.*");
+        }
+        return false;
+    }
+
+    /**
+     * @return the first keyword of the statement in upper case, skipping comments and parentheses
+     */
+    public static String firstKeyword(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                i = skipBlockComment(sql, i);
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < length && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return sql.substring(start, i).toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isCommentStart(String script, int i) {
+        if (i + 1 >= script.length()) {
+            return false;
+        }
+        char c = script.charAt(i);
+        char n = script.charAt(i + 1);
+        return (c == '-' && n == '-') || (c == '/' && n == '*');
+    }
+
+    static int skipBlockComment(String script, int i) {
+        // PostgreSQL block comments nest
+        int depth = 0;
+        int length = script.length();
+        while (i < length) {
+            if (script.startsWith("/*", i)) {
+                depth++;
+                i += 2;
+            } else if (script.startsWith("*/", i)) {
+                depth--;
+                i += 2;
+                if (depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    static int skipQuoted(String script, int i, char quote, boolean backslashEscapes) {
+        int length = script.length();
+        i++;
+        while (i < length) {
+            char c = script.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < length && script.charAt(i + 1) == quote) {
+                    i += 2; // doubled quote
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    static int skipDollarQuoted(String script, int i) {
+        // $tag$ ... $tag$ where tag is empty or an identifier not starting with a digit
+        int length = script.length();
+        int j = i + 1;
+        while (j < length && (Character.isLetterOrDigit(script.charAt(j)) || script.charAt(j) == '_')) {
+            j++;
+        }
+        if (j >= length || script.charAt(j) != '$'
+                || (j > i + 1 && Character.isDigit(script.charAt(i + 1)))
+                || (i > 0 && (Character.isLetterOrDigit(script.charAt(i - 1)) || script.charAt(i - 1) == '_'))) {
+            return i + 1; // positional parameter or part of an identifier
+        }
+        String tag = script.substring(i, j + 1);
+        int end = script.indexOf(tag, j + 1);
+        return end < 0 ? length : end + tag.length();
+    }
+
+    static int utf8Length(String s, int i) {
+        char c = s.charAt(i);
+        if (c < 0x80) {
+            return 1;
+        } else if (c < 0x800) {
+            return 2;
+        } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+            return 4;
+        }
+        return 3;
+    }
+}
@@ -0,0 +1,111 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.SQLStatement;
+import com.sqlexecutor.model.StatementKind;
+import com.sqlexecutor.model.ValidationIssue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Checks the statements of a script against the server without keeping any
+ * of their effects. Everything runs in one transaction that is always rolled
+ * back. Queries and DML are only parsed and planned with {@code PREPARE}, so
+ * they never execute; other statements run under a savepoint so that later
+ * statements can see the objects they create. A failing statement is rolled
+ * back to its savepoint and validation carries on.
+ *
+ * <p>Transaction control statements are skipped, and statements that refuse
+ * to run inside a transaction block are reported as warnings.
+ */
+public class ScriptValidator {
+    private static final String SAVEPOINT = "sqlexecutor_validate";
+    private static final String PREPARE_PREFIX = "PREPARE sqlexecutor_validate AS ";
+
+    private final Connection conn;
+    private final Statement stmt;
+    private boolean autoCommit;
+
+    public ScriptValidator(Connection conn, Statement stmt) {
+        this.conn = conn;
+        this.stmt = stmt;
+    }
+
+    public void begin() throws SQLException {
+        autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+    }
+
+    /**
+     * Rolls back everything the script did.
+     */
+    public void end() throws SQLException {
+        try {
+            conn.rollback();
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return the problem found, or null if the statement is valid
+     * @throws SQLException if the connection itself failed
+     */
+    public ValidationIssue check(SQLStatement statement) throws SQLException {
+        if (statement.getKind() == StatementKind.TRANSACTION) {
+            return null;
+        }
+        String sql = statement.getSql();
+        if (!runsInTransaction(sql)) {
+            return new ValidationIssue(statement.getIndex(), statement.getLineNumber(), 0, null,
+                    "Not validated: cannot run inside a transaction block", true);
+        }
+
+        boolean prepare = isPreparable(statement);
+        stmt.execute("SAVEPOINT " + SAVEPOINT);
+        try {
+            if (prepare) {
+                stmt.execute(PREPARE_PREFIX + sql);
+                stmt.execute("DEALLOCATE sqlexecutor_validate");
+            } else {
+                stmt.execute(sql);
+            }
+            stmt.execute("RELEASE SAVEPOINT " + SAVEPOINT);
+            return null;
+        } catch (SQLException e) {
+            if (RetryPolicy.isConnectionFailure(e)) {
+                throw e;
+            }
+            stmt.execute("ROLLBACK TO SAVEPOINT " + SAVEPOINT);
+            stmt.execute("RELEASE SAVEPOINT " + SAVEPOINT);
+            return toIssue(statement, e, prepare ? PREPARE_PREFIX.length() : 0);
+        }
+    }
+
+    private static boolean isPreparable(SQLStatement statement) {
+        // PREPARE accepts SELECT, VALUES, INSERT, UPDATE, DELETE and MERGE
+        StatementKind kind = statement.getKind();
+        return kind == StatementKind.DML
+                || (kind == StatementKind.QUERY && !SQLStatementSplitter.firstKeyword(statement.getSql()).equals("SHOW"));
+    }
+
+    private static boolean runsInTransaction(String sql) {
+        String keyword = SQLStatementSplitter.firstKeyword(sql);
+        String upper = sql.toUpperCase(Locale.ROOT);
+        if (keyword.equals("VACUUM") || keyword.equals("CHECKPOINT")
+                || (keyword.equals("COPY") && upper.matches("(?s).*\\b(STDIN|STDOUT)\\b.*"))) {
+            return false;
+        }
+        return !upper.matches("(?s).*\\bCONCURRENTLY\\b.*")
+                && !upper.matches("(?s)\\s*(CREATE|DROP)\\s+(DATABASE|TABLESPACE)\\b.*")
+                && !upper.matches("(?s)\\s*ALTER\\s+SYSTEM\\b.*");
+    }
+
+    private static ValidationIssue toIssue(SQLStatement statement, SQLException e, int offset) {
+        int[] location = ErrorLocator.locate(statement, e, offset);
+        return new ValidationIssue(statement.getIndex(), location[0], location[1], e.getSQLState(),
+                ErrorLocator.message(e), false);
+    }
+}
@@ -0,0 +1,235 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.SQLStatement;
+import com.sqlexecutor.model.StatementKind;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Persists the statement split of each script so unchanged files are not
+ * lexed again. Plans are keyed by the SHA-256 of the file content and stored
+ * as small binary sidecars under {@code ~/.sqlexecutor/cache}. An index from
+ * path, size and modification time to content hash avoids re-hashing files
+ * that have not been touched. Statements built from a cached plan cut their
+ * text from the same content the plan was found by when first needed, never
+ * from the file, which may have been saved again since.
+ *
+ * <p>Sidecar layout: int magic, int version, int count, then per statement
+ * long startByte, long endByte, int line, byte kind, boolean batchable.
+ * The cache directory is kept under {@link #MAX_CACHE_BYTES} by deleting
+ * the least recently used sidecars.
+ */
+public class SplitPlanCache {
+    private static final int MAGIC = 0x53504C54; // "SPLT"
+    private static final int VERSION = 1;
+    private static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final String CACHE_DIR = ConfigManager.getConfigDir() + File.separator + "cache";
+    private static final String INDEX_PATH = CACHE_DIR + File.separator + "index.properties";
+
+    // Files smaller than this are cheaper to lex than to look up
+    private static final long MIN_FILE_BYTES = 64 * 1024;
+
+    private static final SplitPlanCache instance = new SplitPlanCache();
+
+    private final Properties index = new Properties();
+
+    private SplitPlanCache() {
+        new File(CACHE_DIR).mkdirs();
+        File indexFile = new File(INDEX_PATH);
+        if (indexFile.exists()) {
+            try (InputStream in = new FileInputStream(indexFile)) {
+                index.load(in);
+            } catch (IOException e) {
+                System.err.println("Failed to load split plan index: " + e.getMessage());
+            }
+        }
+    }
+
+    public static SplitPlanCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the statements of a script as loaded from disk, from the cache
+     * when possible and by splitting {@code content} otherwise.
+     *
+     * @param length       size of the file when {@code content} was read
+     * @param lastModified modification time of the file when {@code content} was read
+     */
+    public List<SQLStatement> getStatements(File file, long length, long lastModified, String content) {
+        if (length < MIN_FILE_BYTES) {
+            return SQLStatementSplitter.split(content);
+        }
+        try {
+            String hash = contentHash(file.getAbsolutePath() + "|" + length + "|" + lastModified, content);
+            File sidecar = new File(CACHE_DIR, hash + ".splt");
+            if (sidecar.exists()) {
+                List<SQLStatement> statements = readPlan(sidecar, content);
+                if (statements != null) {
+                    sidecar.setLastModified(System.currentTimeMillis());
+                    return statements;
+                }
+            }
+
+            List<SQLStatement> statements = SQLStatementSplitter.split(content);
+            writePlan(sidecar, statements);
+            evict();
+            return statements;
+        } catch (IOException e) {
+            System.err.println("Split plan cache unavailable: " + e.getMessage());
+            return SQLStatementSplitter.split(content);
+        }
+    }
+
+    private synchronized String contentHash(String key, String content) throws IOException {
+        String hash = index.getProperty(key);
+        if (hash == null) {
+            hash = sha256(content.getBytes(StandardCharsets.UTF_8));
+            index.setProperty(key, hash);
+            try (OutputStream out = new FileOutputStream(INDEX_PATH)) {
+                index.store(out, "Split plan index: path|size|mtime = content hash");
+            }
+        }
+        return hash;
+    }
+
+    private List<SQLStatement> readPlan(File sidecar, String content) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int count = in.readInt();
+            ByteCursor cursor = new ByteCursor(content);
+
+            StatementKind[] kinds = StatementKind.values();
+            List<SQLStatement> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long start = in.readLong();
+                long end = in.readLong();
+                int line = in.readInt();
+                StatementKind kind = kinds[in.readByte()];
+                boolean batchable = in.readBoolean();
+                int startChar = cursor.charAt(start);
+                int endChar = cursor.charAt(end);
+                if (startChar < 0 || endChar < 0) {
+                    return null; // the plan does not fit this content
+                }
+                statements.add(new SQLStatement(i, line, start, end, kind, batchable,
+                        sliceLoader(content, startChar, endChar)));
+            }
+            return statements;
+        }
+    }
+
+    private static Supplier<String> sliceLoader(String content, int start, int end) {
+        return () -> {
+            String text = content.substring(start, end).trim();
+            if (text.endsWith(";")) {
+                text = text.substring(0, text.length() - 1).trim();
+            }
+            return text;
+        };
+    }
+
+    private void writePlan(File sidecar, List<SQLStatement> statements) throws IOException {
+        File temp = new File(sidecar.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(statements.size());
+            for (SQLStatement statement : statements) {
+                out.writeLong(statement.getStartByte());
+                out.writeLong(statement.getEndByte());
+                out.writeInt(statement.getLineNumber());
+                out.writeByte(statement.getKind().ordinal());
+                out.writeBoolean(statement.isBatchable());
+            }
+        }
+        if (!temp.renameTo(sidecar)) {
+            temp.delete();
+        }
+    }
+
+    private synchronized void evict() {
+        File[] sidecars = new File(CACHE_DIR).listFiles((dir, name) -> name.endsWith(".splt"));
+        if (sidecars == null) {
+            return;
+        }
+        long total = 0;
+        for (File sidecar : sidecars) {
+            total += sidecar.length();
+        }
+        if (total <= MAX_CACHE_BYTES) {
+            return;
+        }
+
+        Arrays.sort(sidecars, Comparator.comparingLong(File::lastModified));
+        Set<String> evicted = new HashSet<>();
+        for (File sidecar : sidecars) {
+            if (total <= MAX_CACHE_BYTES) {
+                break;
+            }
+            total -= sidecar.length();
+            sidecar.delete();
+            evicted.add(sidecar.getName().substring(0, sidecar.getName().length() - ".splt".length()));
+        }
+
+        index.values().removeIf(evicted::contains);
+        try (OutputStream out = new FileOutputStream(INDEX_PATH)) {
+            index.store(out, "Split plan index: path|size|mtime = content hash");
+        } catch (IOException e) {
+            System.err.println("Failed to save split plan index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Turns the plan's UTF-8 byte offsets, which only ever increase, back
+     * into positions in the content, counting bytes the way the splitter does.
+     */
+    private static class ByteCursor {
+        private final String content;
+        private int index;
+        private long bytes;
+
+        ByteCursor(String content) {
+            this.content = content;
+        }
+
+        /**
+         * @return the position at the byte offset, or -1 if it is behind the
+         *         cursor, past the end or inside a character
+         */
+        int charAt(long offset) {
+            while (bytes < offset && index < content.length()) {
+                int length = SQLStatementSplitter.utf8Length(content, index);
+                bytes += length;
+                index += length == 4 ? 2 : 1;
+            }
+            return bytes == offset ? index : -1;
+        }
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
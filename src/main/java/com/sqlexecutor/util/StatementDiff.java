@@ -0,0 +1,255 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+import com.sqlexecutor.model.SQLStatement;
+import com.sqlexecutor.model.StatementKind;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers, per file and target database, the hashes of the statements
+ * last applied successfully, so that re-applying a large library of
+ * idempotent definitions can run only what changed.
+ *
+ * <p>A statement is selected when its text is new, or when it mentions an
+ * object defined by another selected statement: recreating a table empties
+ * it, so the inserts that fill it must run again, and replacing an object
+ * can require its dependents to be recreated too. This is followed
+ * transitively. Session settings and transaction control always run.
+ * Selected statements keep their order in the file, which is the dependency
+ * order the library already runs in.
+ *
+ * <p>File layout under {@code ~/.sqlexecutor/applied}: int magic, int version,
+ * int count, then a UTF hash per statement.
+ */
+public class StatementDiff {
+    private static final int MAGIC = 0x53514C41; // "SQLA"
+    private static final int VERSION = 1;
+    private static final String APPLIED_DIR = ConfigManager.getConfigDir() + File.separator + "applied";
+    // Leading 128 bits of SHA-256 are plenty to tell statements apart
+    private static final int HASH_CHARS = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final Pattern DEFINITION = Pattern.compile(
+            "^(?:CREATE(?:\\s+OR\\s+REPLACE)?|ALTER|DROP)\\s+(?:(?:TEMP|TEMPORARY|UNLOGGED|MATERIALIZED|UNIQUE)\\s+)*"
+                    + "(?:FUNCTION|PROCEDURE|VIEW|TABLE|TYPE|SEQUENCE|DOMAIN|AGGREGATE|INDEX|TRIGGER)\\s+"
+                    + "(?:CONCURRENTLY\\s+)?(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?([A-Za-z0-9_$.\"]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern WORD = Pattern.compile("[a-z_][a-z0-9_$]*");
+
+    /**
+     * Statements chosen to run.
+     */
+    public static class Selection {
+        private final boolean[] selected;
+        private final int changed;
+        private final int dependents;
+
+        Selection(boolean[] selected, int changed, int dependents) {
+            this.selected = selected;
+            this.changed = changed;
+            this.dependents = dependents;
+        }
+
+        public boolean isSelected(int index) {
+            return selected[index];
+        }
+
+        /**
+         * @return statements that are new or whose text changed
+         */
+        public int getChanged() {
+            return changed;
+        }
+
+        /**
+         * @return unchanged statements selected because something they depend on changed
+         */
+        public int getDependents() {
+            return dependents;
+        }
+    }
+
+    /**
+     * @return the statements to run, or null if the file was never applied to the target
+     */
+    public static Selection select(List<SQLStatement> statements, String filePath, DatabaseConfig target) {
+        Set<String> applied = load(fileFor(filePath, target));
+        if (applied == null) {
+            return null;
+        }
+        int count = statements.size();
+        boolean[] selected = new boolean[count];
+        Deque<Integer> work = new ArrayDeque<>();
+        int changed = 0;
+        MessageDigest digest = newDigest();
+        for (int i = 0; i < count; i++) {
+            SQLStatement statement = statements.get(i);
+            if (!applied.contains(hash(digest, statement.getSql()))) {
+                selected[i] = true;
+                changed++;
+                work.add(i);
+            } else if (alwaysRuns(statement)) {
+                selected[i] = true;
+            }
+        }
+        if (changed == 0) {
+            return new Selection(selected, 0, 0);
+        }
+
+        // Statements by the names they mention, to find dependents of a changed definition
+        Map<String, List<Integer>> mentions = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            for (String word : words(statements.get(i).getSql())) {
+                mentions.computeIfAbsent(word, k -> new ArrayList<>()).add(i);
+            }
+        }
+        int dependents = 0;
+        Set<String> followed = new HashSet<>();
+        while (!work.isEmpty()) {
+            String name = definedName(statements.get(work.poll()).getSql());
+            if (name == null || !followed.add(name)) {
+                continue;
+            }
+            for (int dependent : mentions.getOrDefault(name, new ArrayList<>())) {
+                if (!selected[dependent]) {
+                    selected[dependent] = true;
+                    dependents++;
+                    work.add(dependent);
+                }
+            }
+        }
+        return new Selection(selected, changed, dependents);
+    }
+
+    /**
+     * Stores the statements as the version now applied to the target.
+     */
+    public static void recordApplied(List<SQLStatement> statements, String filePath, DatabaseConfig target) {
+        File file = fileFor(filePath, target);
+        file.getParentFile().mkdirs();
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(statements.size());
+                MessageDigest digest = newDigest();
+                for (SQLStatement statement : statements) {
+                    out.writeUTF(hash(digest, statement.getSql()));
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Failed to record applied statements: " + e.getMessage());
+        }
+    }
+
+    private static Set<String> load(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int count = in.readInt();
+            Set<String> hashes = new HashSet<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                hashes.add(in.readUTF());
+            }
+            return hashes;
+        } catch (IOException e) {
+            System.err.println("Failed to read applied statements " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean alwaysRuns(SQLStatement statement) {
+        if (statement.getKind() == StatementKind.TRANSACTION) {
+            return true;
+        }
+        String keyword = SQLStatementSplitter.firstKeyword(statement.getSql());
+        return keyword.equals("SET") || keyword.equals("RESET");
+    }
+
+    /**
+     * @return the unqualified, lower-case name of the object the statement defines, or null
+     */
+    static String definedName(String sql) {
+        Matcher matcher = DEFINITION.matcher(stripLeadingComments(sql));
+        if (!matcher.find()) {
+            return null;
+        }
+        String name = matcher.group(1);
+        int dot = name.lastIndexOf('.');
+        return name.substring(dot + 1).replace("\"", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> words(String sql) {
+        // Function bodies are included: a mention anywhere counts
+        Set<String> words = new HashSet<>();
+        Matcher matcher = WORD.matcher(sql.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        return words;
+    }
+
+    static String stripLeadingComments(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            if (Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                i = SQLStatementSplitter.skipBlockComment(sql, i);
+            } else {
+                break;
+            }
+        }
+        return sql.substring(i);
+    }
+
+    static String hash(MessageDigest digest, String sql) {
+        byte[] bytes = digest.digest(sql.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[HASH_CHARS];
+        for (int i = 0; i < HASH_CHARS / 2; i++) {
+            hex[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static File fileFor(String filePath, DatabaseConfig target) {
+        String key = target.getJdbcUrl() + "\n" + filePath;
+        return new File(APPLIED_DIR, SplitPlanCache.sha256(key.getBytes(StandardCharsets.UTF_8)) + ".bin");
+    }
+}
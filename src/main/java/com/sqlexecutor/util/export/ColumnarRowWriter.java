@@ -0,0 +1,163 @@
+package com.sqlexecutor.util.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Compact binary columnar format. Rows are buffered into row groups and each
+ * group is written column by column, so memory use is bounded by the group
+ * size rather than the result size. Layout, all integers big-endian:
+ *
+ * <pre>
+ * "SQLXCOL1"
+ * int columnCount, then per column: modified-UTF-8 name, byte type
+ * repeated row groups:
+ *   int rowCount
+ *   per column: int bitmapLength, null bitmap (bit set = NULL),
+ *               int dataLength, values of non-null rows
+ * int 0
+ * </pre>
+ *
+ * Types are {@link #TYPE_LONG} (8 bytes), {@link #TYPE_DOUBLE} (8 bytes),
+ * {@link #TYPE_BOOLEAN} (1 byte) and {@link #TYPE_STRING} (UTF-8
+ * with int length prefix).
+ */
+class ColumnarRowWriter implements RowWriter {
+    static final byte TYPE_LONG = 1;
+    static final byte TYPE_DOUBLE = 2;
+    static final byte TYPE_BOOLEAN = 3;
+    static final byte TYPE_STRING = 4;
+
+    private static final byte[] MAGIC = {'S', 'Q', 'L', 'X', 'C', 'O', 'L', '1'};
+    private static final int MAX_GROUP_ROWS = 8192;
+    private static final int MAX_GROUP_BYTES = 8 * 1024 * 1024;
+
+    private final DataOutputStream out;
+    private byte[] types;
+    private ByteArrayOutputStream[] buffers;
+    private DataOutputStream[] columns;
+    private byte[][] nullBitmaps;
+    private int groupRows;
+    private long groupBytes;
+
+    ColumnarRowWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    @Override
+    public void start(ResultSetMetaData metaData) throws IOException, SQLException {
+        int count = metaData.getColumnCount();
+        types = new byte[count];
+        buffers = new ByteArrayOutputStream[count];
+        columns = new DataOutputStream[count];
+        nullBitmaps = new byte[count][(MAX_GROUP_ROWS + 7) / 8];
+
+        out.write(MAGIC);
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            types[i] = typeOf(metaData.getColumnType(i + 1));
+            buffers[i] = new ByteArrayOutputStream();
+            columns[i] = new DataOutputStream(buffers[i]);
+            out.writeUTF(metaData.getColumnLabel(i + 1));
+            out.writeByte(types[i]);
+        }
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws IOException, SQLException {
+        for (int i = 0; i < types.length; i++) {
+            DataOutputStream column = columns[i];
+            int before = column.size();
+            switch (types[i]) {
+                case TYPE_LONG:
+                    long longValue = rs.getLong(i + 1);
+                    if (!rs.wasNull()) {
+                        column.writeLong(longValue);
+                    }
+                    break;
+                case TYPE_DOUBLE:
+                    double doubleValue = rs.getDouble(i + 1);
+                    if (!rs.wasNull()) {
+                        column.writeDouble(doubleValue);
+                    }
+                    break;
+                case TYPE_BOOLEAN:
+                    boolean booleanValue = rs.getBoolean(i + 1);
+                    if (!rs.wasNull()) {
+                        column.writeBoolean(booleanValue);
+                    }
+                    break;
+                default:
+                    String stringValue = rs.getString(i + 1);
+                    if (stringValue != null) {
+                        byte[] bytes = stringValue.getBytes(StandardCharsets.UTF_8);
+                        column.writeInt(bytes.length);
+                        column.write(bytes);
+                    }
+            }
+            if (column.size() == before) {
+                nullBitmaps[i][groupRows >> 3] |= (byte) (1 << (groupRows & 7));
+            }
+            groupBytes += column.size() - before;
+        }
+
+        groupRows++;
+        if (groupRows == MAX_GROUP_ROWS || groupBytes >= MAX_GROUP_BYTES) {
+            flushGroup();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        flushGroup();
+        out.writeInt(0);
+        out.flush();
+    }
+
+    private void flushGroup() throws IOException {
+        if (groupRows == 0) {
+            return;
+        }
+        int bitmapLength = (groupRows + 7) / 8;
+        out.writeInt(groupRows);
+        for (int i = 0; i < types.length; i++) {
+            out.writeInt(bitmapLength);
+            out.write(nullBitmaps[i], 0, bitmapLength);
+            Arrays.fill(nullBitmaps[i], (byte) 0);
+
+            out.writeInt(buffers[i].size());
+            buffers[i].writeTo(out);
+            buffers[i].reset();
+        }
+        groupRows = 0;
+        groupBytes = 0;
+    }
+
+    private static byte typeOf(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return TYPE_LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return TYPE_DOUBLE;
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return TYPE_BOOLEAN;
+            default:
+                // NUMERIC keeps its exact text representation
+                return TYPE_STRING;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sqlexecutor.util.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * RFC 4180 CSV with a header line. NULL is written as an empty field.
+ */
+class CsvRowWriter implements RowWriter {
+    private final Writer out;
+    private int columnCount;
+
+    CsvRowWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void start(ResultSetMetaData metaData) throws IOException, SQLException {
+        columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            if (i > 1) {
+                out.write(',');
+            }
+            writeField(metaData.getColumnLabel(i));
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws IOException, SQLException {
+        for (int i = 1; i <= columnCount; i++) {
+            if (i > 1) {
+                out.write(',');
+            }
+            String value = rs.getString(i);
+            if (value != null) {
+                writeField(value);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+}
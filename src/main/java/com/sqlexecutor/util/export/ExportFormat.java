@@ -0,0 +1,39 @@
+package com.sqlexecutor.util.export;
+
+import java.util.Locale;
+
+/**
+ * File formats a query result can be exported to.
+ */
+public enum ExportFormat {
+    CSV(".csv"),
+    JSON_LINES(".jsonl"),
+    /** Row-grouped binary columns, see {@link ColumnarRowWriter} */
+    COLUMNAR(".col");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Picks the format from a file name such as {@code out.csv} or {@code out.jsonl.gz}.
+     */
+    public static ExportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        for (ExportFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,99 @@
+package com.sqlexecutor.util.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * One JSON object per line, keyed by column label. Numeric and boolean
+ * columns are written as JSON numbers and booleans, everything else as strings.
+ */
+class JsonLinesRowWriter implements RowWriter {
+    private final Writer out;
+    private String[] keys;
+    private int[] types;
+
+    JsonLinesRowWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void start(ResultSetMetaData metaData) throws IOException, SQLException {
+        int count = metaData.getColumnCount();
+        keys = new String[count];
+        types = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = quote(metaData.getColumnLabel(i + 1)) + ":";
+            types[i] = metaData.getColumnType(i + 1);
+        }
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws IOException, SQLException {
+        out.write('{');
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(keys[i]);
+            String value = rs.getString(i + 1);
+            if (value == null) {
+                out.write("null");
+            } else if (isNumeric(types[i]) && !value.equals("NaN") && !value.contains("Infinity")) {
+                out.write(value);
+            } else if (types[i] == Types.BOOLEAN || types[i] == Types.BIT) {
+                out.write(rs.getBoolean(i + 1) ? "true" : "false");
+            } else {
+                out.write(quote(value));
+            }
+        }
+        out.write("}\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    private static boolean isNumeric(int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,121 @@
+package com.sqlexecutor.util.export;
+
+import com.sqlexecutor.util.MemoryBudget;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the result of a query straight to a file. Rows are fetched from the
+ * server in chunks through a cursor and written as they arrive, so exports of
+ * any size run in constant memory. CSV exports from PostgreSQL use
+ * {@code COPY ... TO STDOUT}, which skips JDBC row decoding entirely.
+ */
+public class ResultExporter {
+    private static final int FETCH_SIZE = 10000;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Rough per-value size of a fetched row, for memory accounting
+    private static final long ESTIMATED_CELL_BYTES = 32;
+
+    private int fetchSize = FETCH_SIZE;
+
+    /**
+     * Sets how many rows are fetched per round trip when exporting through JDBC.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Exports using the format implied by the target's extension; a trailing
+     * {@code .gz} enables gzip compression.
+     *
+     * @return number of rows written, or -1 if unknown (COPY path)
+     */
+    public long export(Connection conn, String query, File target) throws SQLException, IOException {
+        String name = target.getName().toLowerCase();
+        return export(conn, query, target, ExportFormat.fromFileName(name), name.endsWith(".gz"));
+    }
+
+    public long export(Connection conn, String query, File target, ExportFormat format, boolean gzip)
+            throws SQLException, IOException {
+        try (OutputStream out = openOutput(target, gzip)) {
+            if (format == ExportFormat.CSV && conn.isWrapperFor(PGConnection.class)) {
+                return copyOut(conn, query, out);
+            }
+            return streamRows(conn, query, format, out);
+        }
+    }
+
+    private long copyOut(Connection conn, String query, OutputStream out) throws SQLException, IOException {
+        CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+        return copyManager.copyOut("COPY (" + stripTerminator(query) + ") TO STDOUT WITH (FORMAT csv, HEADER)", out);
+    }
+
+    // The FETCH reservation in the try-with-resources is held only for its scope, never referenced
+    @SuppressWarnings("try")
+    private long streamRows(Connection conn, String query, ExportFormat format, OutputStream out)
+            throws SQLException, IOException {
+        // pgjdbc only uses a cursor (and so bounded memory) outside autocommit
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            MemoryBudget budget = MemoryBudget.getInstance();
+            stmt.setFetchSize(budget.fetchSize(fetchSize));
+            try (ResultSet rs = stmt.executeQuery(stripTerminator(query));
+                 MemoryBudget.Reservation buffer = budget.reserve(MemoryBudget.Category.FETCH,
+                         (long) stmt.getFetchSize() * rs.getMetaData().getColumnCount() * ESTIMATED_CELL_BYTES)) {
+                Writer writer = null;
+                RowWriter rowWriter;
+                if (format == ExportFormat.COLUMNAR) {
+                    rowWriter = new ColumnarRowWriter(out);
+                } else {
+                    writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                    rowWriter = format == ExportFormat.JSON_LINES
+                            ? new JsonLinesRowWriter(writer) : new CsvRowWriter(writer);
+                }
+
+                long rows = 0;
+                rowWriter.start(rs.getMetaData());
+                while (rs.next()) {
+                    rowWriter.writeRow(rs);
+                    rows++;
+                }
+                rowWriter.finish();
+                if (writer != null) {
+                    writer.flush();
+                }
+                return rows;
+            }
+        } finally {
+            conn.rollback();
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static OutputStream openOutput(File target, boolean gzip) throws IOException {
+        FileChannel channel = FileChannel.open(target.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        return gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+
+    private static String stripTerminator(String query) {
+        String trimmed = query.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+}
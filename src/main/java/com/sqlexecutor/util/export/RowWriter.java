@@ -0,0 +1,18 @@
+package com.sqlexecutor.util.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Writes rows of a result set to an output stream one at a time, without
+ * holding more than a bounded amount of data in memory.
+ */
+interface RowWriter {
+    void start(ResultSetMetaData metaData) throws IOException, SQLException;
+
+    void writeRow(ResultSet rs) throws IOException, SQLException;
+
+    void finish() throws IOException;
+}
@@ -0,0 +1,27 @@
+package com.sqlexecutor.bench;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FakeDriverTest {
+
+    @Test
+    void unmodelledGettersReturnTheirOwnPrimitiveType() throws SQLException {
+        try (Connection conn = new FakeDriver().connect("jdbc:sqlexecutor-fake:?rows=1", new Properties());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1")) {
+            assertTrue(rs.next());
+            assertEquals(0.0f, rs.getFloat(1));
+            assertEquals((short) 0, rs.getShort(1));
+            assertEquals((byte) 0, rs.getByte(1));
+        }
+    }
+}
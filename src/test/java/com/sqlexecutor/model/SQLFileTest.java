@@ -0,0 +1,44 @@
+package com.sqlexecutor.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SQLFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsUtf8() throws IOException {
+        SQLFile file = write("SELECT '中文';".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(StandardCharsets.UTF_8, file.getCharset());
+        assertEquals("SELECT '中文';", file.getContent());
+    }
+
+    @Test
+    void fallsBackToThePlatformCharsetForInvalidUtf8() throws IOException {
+        // "中文" in GBK, which is not valid UTF-8
+        byte[] bytes = {'S', 'E', 'L', 'E', 'C', 'T', ' ', '\'', (byte) 0xD6, (byte) 0xD0, (byte) 0xCE, (byte) 0xC4,
+                '\'', ';'};
+        SQLFile file = write(bytes);
+
+        assertEquals(Charset.defaultCharset(), file.getCharset());
+        assertEquals(new String(bytes, Charset.defaultCharset()), file.getContent());
+    }
+
+    private SQLFile write(byte[] bytes) throws IOException {
+        File file = dir.resolve("script.sql").toFile();
+        Files.write(file.toPath(), bytes);
+        return new SQLFile(file);
+    }
+}
@@ -0,0 +1,185 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.SQLStatement;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ChunkedStatementTest {
+
+    @Test
+    void chunksByUuidKey() throws SQLException {
+        UuidTable table = new UuidTable(25);
+        ChunkedStatement chunked = parse("-- chunk-by: id, size: 10\nUPDATE t SET done = true WHERE done = false",
+                "uuid-key.sql");
+        assertNotNull(chunked);
+
+        ExecutionResult result = new ExecutionResult("uuid-key.sql");
+        long rows = chunked.execute(table.statement(), result, null, 0, null);
+
+        assertEquals(25, rows);
+        assertEquals(Arrays.asList(10, 10, 5), table.chunkRows);
+        assertEquals(new ArrayList<>(table.keys), table.updatedKeys);
+        assertEquals(1, result.getNotices().size());
+    }
+
+    @Test
+    void emptyUuidTableRunsNoChunk() throws SQLException {
+        UuidTable table = new UuidTable(0);
+        ChunkedStatement chunked = parse("-- chunk-by: id, size: 10\nDELETE FROM t", "uuid-empty.sql");
+
+        long rows = chunked.execute(table.statement(), new ExecutionResult("uuid-empty.sql"), null, 0, null);
+
+        assertEquals(0, rows);
+        assertEquals(0, table.chunkRows.size());
+    }
+
+    private static ChunkedStatement parse(String sql, String scriptPath) throws SQLException {
+        return ChunkedStatement.parse(new SQLStatement(0, sql, 1, 0, sql.length()), scriptPath);
+    }
+
+    /**
+     * Stands in for a table {@code t} with a uuid column {@code id}. It
+     * answers the queries ChunkedStatement sends and, like PostgreSQL, has
+     * no min or max for uuid. Comparing canonical uuid text matches the
+     * server's byte order.
+     */
+    private static class UuidTable {
+        private static final Pattern NEXT_KEY = Pattern.compile(
+                "SELECT id FROM t WHERE id (>=?) CAST\\(\\? AS uuid\\) ORDER BY id(?: OFFSET (\\d+) LIMIT 1| DESC LIMIT 1)");
+        private static final Pattern CHUNK = Pattern.compile(
+                "t\\.id (>=?) CAST\\(\\? AS uuid\\) AND t\\.id <= CAST\\(\\? AS uuid\\)$");
+        private static final Pattern AGGREGATE = Pattern.compile("(?i)\\b(min|max)\\s*\\(");
+
+        private final TreeSet<String> keys = new TreeSet<>();
+        private final List<Integer> chunkRows = new ArrayList<>();
+        private final List<String> updatedKeys = new ArrayList<>();
+        private final Connection connection;
+
+        UuidTable(int rows) {
+            Random random = new Random(rows);
+            while (keys.size() < rows) {
+                keys.add(new UUID(random.nextLong(), random.nextLong()).toString());
+            }
+            connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getAutoCommit":
+                                return true;
+                            case "prepareStatement":
+                                return statement((String) args[0]);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        Statement statement() {
+            return statement(null);
+        }
+
+        private PreparedStatement statement(String prepared) {
+            Map<Integer, String> params = new HashMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getConnection":
+                                return connection;
+                            case "getQueryTimeout":
+                                return 0;
+                            case "setString":
+                                params.put((Integer) args[0], (String) args[1]);
+                                return null;
+                            case "executeQuery":
+                                return query(args != null ? (String) args[0] : prepared, params);
+                            case "executeUpdate":
+                                return update(prepared, params);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private ResultSet query(String sql, Map<Integer, String> params) throws SQLException {
+            if (AGGREGATE.matcher(sql).find()) {
+                throw new SQLException("ERROR: function min(uuid) does not exist", "42883");
+            }
+            if (sql.startsWith("SELECT (SELECT id FROM t WHERE id IS NOT NULL ORDER BY id LIMIT 1)")) {
+                return keys.isEmpty() ? rows(new String[]{null, null})
+                        : rows(new String[]{keys.first(), keys.last()});
+            }
+            Matcher matcher = NEXT_KEY.matcher(sql);
+            if (!matcher.matches()) {
+                throw new SQLException("Unexpected query: " + sql);
+            }
+            List<String> after = new ArrayList<>(keys.tailSet(params.get(1), matcher.group(1).equals(">=")));
+            if (matcher.group(2) == null) {
+                return after.isEmpty() ? rows() : rows(new String[]{after.get(after.size() - 1)});
+            }
+            int offset = Integer.parseInt(matcher.group(2));
+            return offset < after.size() ? rows(new String[]{after.get(offset)}) : rows();
+        }
+
+        private int update(String sql, Map<Integer, String> params) throws SQLException {
+            Matcher matcher = CHUNK.matcher(sql);
+            if (!matcher.find()) {
+                throw new SQLException("Unexpected update: " + sql);
+            }
+            List<String> chunk = new ArrayList<>(
+                    keys.subSet(params.get(1), matcher.group(1).equals(">="), params.get(2), true));
+            chunkRows.add(chunk.size());
+            updatedKeys.addAll(chunk);
+            return chunk.size();
+        }
+
+        private static ResultSet rows(String[]... rows) {
+            ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                    UuidTable.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getColumnTypeName":
+                                return "uuid";
+                            case "getColumnType":
+                                return Types.OTHER;
+                            default:
+                                return null;
+                        }
+                    });
+            int[] position = {-1};
+            return (ResultSet) Proxy.newProxyInstance(UuidTable.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                return ++position[0] < rows.length;
+                            case "getString":
+                                return rows[position[0]][(Integer) args[0] - 1];
+                            case "getMetaData":
+                                return metaData;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
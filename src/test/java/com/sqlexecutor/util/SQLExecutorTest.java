@@ -0,0 +1,91 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+import com.sqlexecutor.model.ExecutionResult;
+import com.sqlexecutor.model.ExecutionStatus;
+import com.sqlexecutor.model.SQLFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the executor against {@link com.sqlexecutor.bench.FakeDriver}. Each
+ * test uses its own URL so it gets a connection pool of its own.
+ */
+class SQLExecutorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void runsFile() throws IOException {
+        SQLExecutor executor = executor("run", "rows=5");
+        ExecutionResult result = executor.execute(file("INSERT INTO t VALUES (1);\nINSERT INTO t VALUES (2);\n"
+                + "SELECT * FROM t;\n"));
+
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertEquals(7, result.getRowsAffected());
+        assertEquals(3, result.getStatementResults().getExecutedCount());
+    }
+
+    @Test
+    void retriesTransientFailureByReplayingTheFile() throws IOException {
+        SQLExecutor executor = executor("retry", "failureRate=1&failureState=40001");
+        executor.setRetryPolicy(new RetryPolicy(2, 1, 1));
+        ExecutionResult result = executor.execute(file("SET search_path = public;\nINSERT INTO t VALUES (1);\n"));
+
+        assertEquals(ExecutionStatus.FAILED, result.getStatus());
+        assertEquals("40001", result.getSqlState());
+        assertEquals(2, result.getRetries().size());
+        assertTrue(result.getRetries().get(1).startsWith("Retry 2 of the file from statement 1"),
+                result.getRetries().get(1));
+    }
+
+    @Test
+    void doesNotRetryPermanentFailure() throws IOException {
+        SQLExecutor executor = executor("permanent", "failureRate=1&failureState=23505");
+        executor.setRetryPolicy(new RetryPolicy(2, 1, 1));
+        ExecutionResult result = executor.execute(file("INSERT INTO t VALUES (1);\n"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("23505", result.getSqlState());
+        assertTrue(result.getRetries().isEmpty());
+    }
+
+    @Test
+    void profilesInARolledBackTransaction() throws IOException {
+        SQLExecutor executor = executor("profile", "");
+        executor.setProfilingEnabled(true);
+        ExecutionResult result = executor.execute(file("WITH d AS (DELETE FROM t RETURNING *) SELECT * FROM d;\n"
+                + "COMMIT;\nCREATE TABLE x (a int);\n"));
+
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertEquals(1, result.getQueryPlans().size());
+        assertTrue(result.getQueryPlans().get(0).isRolledBack());
+        assertEquals(1, result.getWarnings().size());
+        assertTrue(result.getWarnings().get(0).startsWith("Not run while profiling: statement 2"));
+        assertTrue(result.getNotices().contains("Profiled in a transaction that was rolled back; nothing was applied"));
+    }
+
+    private SQLExecutor executor(String name, String settings) {
+        DatabaseConfig config = new DatabaseConfig("localhost", 5432, "test", "", "test");
+        config.setDriverClassName("com.sqlexecutor.bench.FakeDriver");
+        config.setJdbcUrlOverride("jdbc:sqlexecutor-fake:" + name + "?" + settings);
+        return new SQLExecutor(new DatabaseManager(config));
+    }
+
+    private SQLFile file(String script) throws IOException {
+        File file = dir.resolve("script.sql").toFile();
+        Files.write(file.toPath(), script.getBytes(StandardCharsets.UTF_8));
+        return new SQLFile(file);
+    }
+}
@@ -0,0 +1,45 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.SQLFile;
+import com.sqlexecutor.model.SQLStatement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SplitPlanCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cachedStatementsKeepTheTextTheyWereSplitFrom() throws IOException {
+        // Large enough for the cache, with multi-byte text so byte and char offsets differ
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            script.append("INSERT INTO t VALUES (").append(i).append(", 'zhōngwén 中文 ").append(i).append("');\n");
+        }
+        File file = dir.resolve("large.sql").toFile();
+        Files.write(file.toPath(), script.toString().getBytes(StandardCharsets.UTF_8));
+
+        // The first load splits and stores the plan, the second is built from it
+        List<SQLStatement> split = new SQLFile(file).getStatements();
+        List<SQLStatement> cached = new SQLFile(file).getStatements();
+
+        // Saved again before the cached statements are read
+        Files.write(file.toPath(), "DROP TABLE t;\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(split.size(), cached.size());
+        for (int i = 0; i < split.size(); i++) {
+            assertEquals(split.get(i).getSql(), cached.get(i).getSql());
+        }
+        assertEquals("INSERT INTO t VALUES (1999, 'zhōngwén 中文 1999')", cached.get(1999).getSql());
+    }
+}
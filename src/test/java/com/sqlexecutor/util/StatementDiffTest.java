@@ -0,0 +1,57 @@
+package com.sqlexecutor.util;
+
+import com.sqlexecutor.model.DatabaseConfig;
+import com.sqlexecutor.model.SQLStatement;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementDiffTest {
+    private static final String APPLIED = "CREATE TABLE t (id int);\n"
+            + "INSERT INTO t VALUES (1);\n"
+            + "INSERT INTO t VALUES (2);\n"
+            + "CREATE VIEW v AS SELECT id FROM t;\n"
+            + "CREATE TABLE other (x int);\n"
+            + "INSERT INTO other VALUES (1);\n";
+
+    private final DatabaseConfig target = new DatabaseConfig("localhost", 5432, "test", "", "test");
+
+    @Test
+    void changedTableSelectsUnchangedInserts() {
+        String path = "/scripts/changed-table.sql";
+        StatementDiff.recordApplied(SQLStatementSplitter.split(APPLIED), path, target);
+
+        List<SQLStatement> statements = SQLStatementSplitter.split(
+                APPLIED.replace("CREATE TABLE t (id int)", "CREATE TABLE t (id int, name text)"));
+        StatementDiff.Selection selection = StatementDiff.select(statements, path, target);
+
+        assertEquals(1, selection.getChanged());
+        assertEquals(3, selection.getDependents());
+        assertTrue(selection.isSelected(0));
+        assertTrue(selection.isSelected(1));
+        assertTrue(selection.isSelected(2));
+        assertTrue(selection.isSelected(3));
+        assertFalse(selection.isSelected(4));
+        assertFalse(selection.isSelected(5));
+    }
+
+    @Test
+    void changedInsertSelectsOnlyItself() {
+        String path = "/scripts/changed-insert.sql";
+        StatementDiff.recordApplied(SQLStatementSplitter.split(APPLIED), path, target);
+
+        List<SQLStatement> statements = SQLStatementSplitter.split(
+                APPLIED.replace("INSERT INTO t VALUES (2)", "INSERT INTO t VALUES (3)"));
+        StatementDiff.Selection selection = StatementDiff.select(statements, path, target);
+
+        assertEquals(1, selection.getChanged());
+        assertEquals(0, selection.getDependents());
+        for (int i = 0; i < statements.size(); i++) {
+            assertEquals(i == 2, selection.isSelected(i));
+        }
+    }
+}